@@ -0,0 +1,53 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * <p>Moves every entity from IDENTITY columns (and the TABLE generator of Contact) to pooled sequences.</p>
+ *
+ * <p>Each sequence is created with INCREMENT BY the configured allocation size, and starts far enough above the
+ * highest existing id that the first block handed out by the pooled optimizer begins at max(id) + 1. The identity
+ * defaults of the columns are left in place, they are unused once Hibernate supplies the ids.</p>
+ *
+ * <p>Written in Java rather than SQL because the start values depend on the data, and the increment on
+ * {@value PooledSequenceGenerator#ALLOCATION_SIZE_PROPERTY}. Changing that property later needs a migration
+ * altering the INCREMENT BY of the sequences, Hibernate refuses to start on a mismatch.</p>
+ */
+public class V3__PooledSequences extends BaseJavaMigration {
+
+    private static final String[][] SEQUENCES = {
+            {"customer_seq", "customer"},
+            {"hotel_seq", "hotel"},
+            {"booking_seq", "Booking"},
+            {"travel_agent_seq", "travel_agent"},
+            {"contact_seq", "contact"},
+            {"outbox_entry_seq", "outbox_entry"}
+    };
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        int allocationSize = PooledSequenceGenerator.allocationSize();
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String[] sequence : SEQUENCES) {
+                long start = maxId(statement, sequence[1]) + allocationSize;
+                statement.execute("create sequence " + sequence[0]
+                        + " start with " + start + " increment by " + allocationSize);
+            }
+            statement.execute("drop table hibernate_sequences");
+        }
+    }
+
+    private static long maxId(Statement statement, String table) throws SQLException {
+        try (ResultSet result = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+}
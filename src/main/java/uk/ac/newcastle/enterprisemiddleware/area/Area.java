@@ -1,11 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.area;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.io.Serializable;
 /**
  * <p>Simple POJO representing AreaCode objects</p>
  *
  * @author hugofirth
  */
+@RegisterForReflection
 public class Area implements Serializable {
 
     private static final long serialVersionUID = 249872301293L;
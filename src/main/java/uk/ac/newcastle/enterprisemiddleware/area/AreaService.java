@@ -1,6 +1,7 @@
 package uk.ac.newcastle.enterprisemiddleware.area;
 
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import uk.ac.newcastle.enterprisemiddleware.health.RemoteCall;
 
 import javax.enterprise.context.Dependent;
 import javax.ws.rs.GET;
@@ -16,6 +17,7 @@ import java.util.List;
  * @author hugofirth
  */
 @Path("/areas")
+@RemoteCall
 @RegisterRestClient(configKey = "area-api")
 public interface AreaService {
 
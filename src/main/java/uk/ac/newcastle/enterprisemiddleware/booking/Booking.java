@@ -1,7 +1,11 @@
 package uk.ac.newcastle.enterprisemiddleware.booking;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -19,19 +23,46 @@ import java.util.Objects;
 @NamedQueries({
         @NamedQuery(name = Booking.FIND_ALL, query = "SELECT p FROM Booking p ORDER BY p.customer.id ASC,p.hotel.id ASC,p.bookingDate DESC"),
         @NamedQuery(name = Booking.FIND_BY_CUSTOMER_ID, query = "SELECT b FROM Booking b WHERE b.customer.id = :customerId"),
-        @NamedQuery(name = Booking.FIND_BY_DATE_AND_HOTEL_ID, query = "SELECT b FROM Booking b WHERE b.hotel.id = :hotelId AND b.bookingDate = :bookingDate")
+        @NamedQuery(name = Booking.FIND_BY_DATE_AND_HOTEL_ID, query = "SELECT b FROM Booking b WHERE b.hotel.id = :hotelId AND b.bookingDate = :bookingDate"),
+        @NamedQuery(name = Booking.FIND_ITINERARY_BY_CUSTOMER_ID, query = "SELECT new uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryEntry("
+                + "b.id, b.bookingDate, h.id, h.name, h.postCode, t.id, t.flightBookingId, t.taxiBookingId) "
+                + "FROM Booking b JOIN b.hotel h LEFT JOIN TravelAgentBooking t ON t.hotelBookingId = b.id "
+                + "WHERE b.customer.id = :customerId AND b.bookingDate >= :from AND b.bookingDate <= :to "
+                + "AND (b.bookingDate > :from OR b.id > :after) ORDER BY b.bookingDate, b.id"),
+        @NamedQuery(name = Booking.COUNT_UPCOMING_BY_CUSTOMER_ID, query = "SELECT b.hotel.id, b.bookingDate, COUNT(b) FROM Booking b "
+                + "WHERE b.customer.id = :customerId AND b.bookingDate >= :from GROUP BY b.hotel.id, b.bookingDate"),
+        @NamedQuery(name = Booking.DELETE_BY_CUSTOMER_ID, query = "DELETE FROM Booking b WHERE b.customer.id = :customerId"),
+        @NamedQuery(name = Booking.DELETE_BY_HOTEL_ID, query = "DELETE FROM Booking b WHERE b.hotel.id = :hotelId"),
+        @NamedQuery(name = Booking.DELETE_BY_IDS, query = "DELETE FROM Booking b WHERE b.id IN :ids")
+})
+@Table(indexes = {
+        @Index(name = "idx_booking_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_booking_customer_id_booking_date", columnList = "customer_id, booking_date"),
+        @Index(name = "idx_booking_hotel_id_booking_date", columnList = "hotel_id, booking_date"),
+        @Index(name = "idx_booking_booking_date", columnList = "booking_date")
 })
 public class Booking implements Serializable {
 
     public static final String FIND_ALL = "Booking.findAll";
     public static final String FIND_BY_CUSTOMER_ID = "Booking.findByCustomerId";
     public static final String FIND_BY_DATE_AND_HOTEL_ID = "Booking.findByDateAndHotelId";
+    public static final String FIND_ITINERARY_BY_CUSTOMER_ID = "Booking.findItineraryByCustomerId";
+    public static final String COUNT_UPCOMING_BY_CUSTOMER_ID = "Booking.countUpcomingByCustomerId";
+    public static final String DELETE_BY_CUSTOMER_ID = "Booking.deleteByCustomerId";
+    public static final String DELETE_BY_HOTEL_ID = "Booking.deleteByHotelId";
+    public static final String DELETE_BY_IDS = "Booking.deleteByIds";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @GenericGenerator(name = "booking_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "booking_seq"))
     @Column(name = "id", nullable = false)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @ManyToOne
     @PrimaryKeyJoinColumn
@@ -57,6 +88,14 @@ public class Booking implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Customer getCustomer() {
         return customer;
     }
@@ -86,13 +125,13 @@ public class Booking implements Serializable {
         if (this == o) return true;
         if (!(o instanceof Booking)) return false;
         Booking booking = (Booking) o;
-        return getHotel().equals(booking.getHotel()) &&
-                getBookingDate().equals(booking.getBookingDate());
+        // A hotel takes as many bookings for a date as it has rooms, so only the id tells two bookings apart
+        return id != null && id.equals(booking.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getHotel(), getBookingDate());
+        return Objects.hashCode(id);
     }
 
     /**
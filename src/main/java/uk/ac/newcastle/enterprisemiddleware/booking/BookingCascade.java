@@ -0,0 +1,73 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import uk.ac.newcastle.enterprisemiddleware.booking.archive.ArchiveService;
+import uk.ac.newcastle.enterprisemiddleware.inventory.InventoryService;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.TravelAgentCancellations;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.logging.Logger;
+
+/**
+ * <p>Deletes the bookings of a customer or a hotel about to be deleted, in bulk.</p>
+ *
+ * <p>Customers and hotels do not cascade their removal to their bookings, which would load every booking and delete
+ * them one by one. The bookings, the travel agent bookings made with them and the archived bookings are deleted with
+ * one statement each instead. Rooms are only given back for upcoming stays, and remote cancellations only queued for
+ * them, so deleting a customer or a hotel costs the same however long its history is.</p>
+ */
+@Dependent
+public class BookingCascade {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    BookingRepository crud;
+
+    @Inject
+    InventoryService inventory;
+
+    @Inject
+    TravelAgentCancellations travelAgentCancellations;
+
+    @Inject
+    ArchiveService archive;
+
+    /**
+     * <p>Deletes the bookings of a customer, as part of the current transaction, and releases the rooms of the
+     * upcoming ones.</p>
+     *
+     * @param customerId id of the customer
+     */
+    public void deleteForCustomer(Long customerId) {
+        Date today = java.sql.Date.valueOf(LocalDate.now());
+        travelAgentCancellations.deleteForCustomer(customerId, today);
+
+        for (Object[] rooms : crud.countUpcomingByCustomerId(customerId, today)) {
+            inventory.releaseRooms((Long) rooms[0], (Date) rooms[1], ((Long) rooms[2]).intValue());
+        }
+        int deleted = crud.deleteByCustomerId(customerId);
+        archive.deleteForCustomer(customerId);
+        log.info("BookingCascade.deleteForCustomer() - " + deleted + " bookings of customer " + customerId);
+    }
+
+    /**
+     * <p>Deletes the bookings of a hotel, as part of the current transaction, with its room inventory.</p>
+     *
+     * @param hotelId id of the hotel
+     */
+    public void deleteForHotel(Long hotelId) {
+        Date today = java.sql.Date.valueOf(LocalDate.now());
+        travelAgentCancellations.deleteForHotel(hotelId, today);
+
+        inventory.deleteHotel(hotelId);
+        int deleted = crud.deleteByHotelId(hotelId);
+        archive.deleteForHotel(hotelId);
+        log.info("BookingCascade.deleteForHotel() - " + deleted + " bookings of hotel " + hotelId);
+    }
+}
@@ -0,0 +1,66 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import javax.validation.constraints.Future;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * <p>A short lived hold on a hotel for a date, kept in the maps shared by the application instances, see
+ * {@link BookingHolds}.</p>
+ *
+ * <p>While the hold lasts no other request can book the hotel for that date. It ends when it is confirmed into a
+ * {@link Booking}, released, or when it expires.</p>
+ */
+public class BookingHold implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    @NotNull
+    private Long hotelId;
+
+    @NotNull
+    @Future(message = "Booking date can not be in the past. Please choose one from the future")
+    private Date bookingDate;
+
+    private Date expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public void setHotelId(Long hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    public Date getBookingDate() {
+        return bookingDate;
+    }
+
+    public void setBookingDate(Date bookingDate) {
+        this.bookingDate = bookingDate;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingHold { id = " + id + ", hotelId = " + hotelId + ", bookingDate = " + bookingDate
+                + ", expiresAt = " + expiresAt + " }";
+    }
+}
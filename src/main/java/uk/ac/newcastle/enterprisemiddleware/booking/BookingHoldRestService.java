@@ -0,0 +1,166 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Transactional;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <p>Short lived holds on a hotel for a date, to be confirmed into a {@link Booking} or released.</p>
+ *
+ * <p>Examples: <pre>POST api/holds?seconds=120</pre> <pre>POST api/holds/{id}/confirm?customerId=1</pre>
+ * <pre>DELETE api/holds/{id}</pre></p>
+ */
+@Path("/holds")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class BookingHoldRestService {
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    BookingService service;
+
+    /**
+     * <p>Holds a hotel for a date.</p>
+     *
+     * @param hold The hotel id and booking date to hold
+     * @param seconds The duration of the hold
+     * @return A Response containing the hold, with its id and expiry time
+     */
+    @POST
+    @Operation(description = "Hold a hotel for a date, for a limited time")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "201", description = "Hold created successfully."),
+            @APIResponse(responseCode = "400", description = "Invalid hold supplied in request body, or unknown hotel"),
+            @APIResponse(responseCode = "409", description = "The hotel is already booked or held for the date"),
+            @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
+    })
+    public Response createHold(
+            @Parameter(description = "JSON representation of the hotel id and booking date to hold", required = true)
+            BookingHold hold,
+            @Parameter(description = "Duration of the hold in seconds")
+            @QueryParam("seconds")
+            Integer seconds) {
+
+        if (hold == null) {
+            throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
+        }
+
+        try {
+            BookingHold created = service.hold(hold, seconds);
+            log.info("createHold completed. " + created);
+            return Response.status(Response.Status.CREATED).entity(created).build();
+        } catch (ConstraintViolationException ce) {
+            Map<String, String> responseObj = new HashMap<>();
+            for (ConstraintViolation<?> violation : ce.getConstraintViolations()) {
+                responseObj.put(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, ce);
+        } catch (UniqueBookingException e) {
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("booking", "hotel is already booked or held for this date, please choose another date or hotel");
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        } catch (HotelNotFoundException e) {
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("hotel", "Hotel not found!");
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, e);
+        }
+    }
+
+    /**
+     * @param id The id of the hold
+     * @return A Response containing the hold
+     */
+    @GET
+    @Path("/{id}")
+    @Operation(summary = "Fetch a hold by id", description = "Returns a live hold, or 404 once it has expired")
+    public Response retrieveHoldById(@PathParam("id") String id) {
+        BookingHold hold = service.findHold(id);
+        if (hold == null) {
+            throw new RestServiceException("No live hold with the id " + id + " was found!", Response.Status.NOT_FOUND);
+        }
+        return Response.ok(hold).build();
+    }
+
+    /**
+     * <p>Books the held hotel and date for a customer.</p>
+     *
+     * @param id The id of the hold
+     * @param customerId The id of the customer making the booking
+     * @return A Response containing the booking
+     */
+    @POST
+    @Path("/{id}/confirm")
+    @Operation(description = "Turn a hold into a Booking")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "201", description = "Booking created successfully."),
+            @APIResponse(responseCode = "400", description = "Invalid or unknown customer"),
+            @APIResponse(responseCode = "404", description = "The hold does not exist or has expired"),
+            @APIResponse(responseCode = "409", description = "The hotel has been booked for the date"),
+            @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
+    })
+    @Transactional
+    public Response confirmHold(
+            @PathParam("id") String id,
+            @Parameter(description = "Id of the customer making the booking", required = true)
+            @QueryParam("customerId")
+            Long customerId) {
+
+        try {
+            Booking booking = service.confirm(id, customerId);
+            log.info("confirmHold completed. Booking = { " + booking + " }");
+            return Response.status(Response.Status.CREATED).entity(booking).build();
+        } catch (ConstraintViolationException ce) {
+            Map<String, String> responseObj = new HashMap<>();
+            for (ConstraintViolation<?> violation : ce.getConstraintViolations()) {
+                responseObj.put(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, ce);
+        } catch (UniqueBookingException e) {
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("booking", "booking is already registered, please register on another date or hotel");
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        } catch (CustomerNotFoundException e) {
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("customer", "Customer not found!");
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, e);
+        } catch (RestServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RestServiceException(e);
+        }
+    }
+
+    /**
+     * @param id The id of the hold to release
+     * @return A Response indicating the outcome of the release
+     */
+    @DELETE
+    @Path("/{id}")
+    @Operation(description = "Release a hold without booking")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "204", description = "The hold has been released"),
+            @APIResponse(responseCode = "404", description = "The hold does not exist or has expired")
+    })
+    public Response releaseHold(@PathParam("id") String id) {
+        if (!service.release(id)) {
+            throw new RestServiceException("No live hold with the id " + id + " was found!", Response.Status.NOT_FOUND);
+        }
+        return Response.noContent().build();
+    }
+}
@@ -0,0 +1,213 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.cluster.Cluster;
+import uk.ac.newcastle.enterprisemiddleware.cluster.SharedMap;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * <p>Keeps the {@link BookingHold}s in maps shared by all the instances of the application (see {@link Cluster}), so
+ * that a hold taken through one instance counts on every other one.</p>
+ *
+ * <p>A hold takes one room of a hotel for a date. Holds are looked up by id in one map, and by hotel and day in
+ * another one, mapping the ids of the holds of the hotel and day to their expiry time. A new hold is added to the
+ * latter with a single atomic compute, which also checks that a room is left and drops the expired holds. A hold is
+ * treated as gone as soon as its expiry time has passed; the entries themselves are removed once their lifespan is
+ * over.</p>
+ */
+@ApplicationScoped
+public class BookingHolds {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @Inject
+    Cluster cluster;
+
+    @ConfigProperty(name = "booking.hold.max-seconds", defaultValue = "900")
+    int maxSeconds;
+
+    private SharedMap<String, BookingHold> byId;
+    private SharedMap<HotelDay, HashMap<String, Long>> byHotelDay;
+
+    @PostConstruct
+    void init() {
+        byId = cluster.map("booking-holds");
+        byHotelDay = cluster.map("booking-holds-by-hotel-day");
+    }
+
+    /**
+     * <p>Holds a room of a hotel for a date, unless all the rooms left are held already.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param bookingDate date to hold the room for
+     * @param seconds duration of the hold
+     * @param available number of rooms of the hotel not booked for that date
+     * @return the new hold
+     * @throws UniqueBookingException if all the available rooms are held
+     */
+    BookingHold hold(Long hotelId, Date bookingDate, int seconds, int available) throws UniqueBookingException {
+        long now = System.currentTimeMillis();
+
+        BookingHold hold = new BookingHold();
+        hold.setId(UUID.randomUUID().toString());
+        hold.setHotelId(hotelId);
+        hold.setBookingDate(bookingDate);
+        hold.setExpiresAt(new Date(now + seconds * 1000L));
+
+        String id = hold.getId();
+        long expiresAt = hold.getExpiresAt().getTime();
+        Map<String, Long> holds = byHotelDay.compute(new HotelDay(hotelId, bookingDate),
+                (key, current) -> take(current, id, expiresAt, now, available), lifespanMillis());
+        if (holds == null || !holds.containsKey(id)) {
+            throw new UniqueBookingException("Unique Booking Violation");
+        }
+        byId.put(id, hold, seconds * 1000L);
+
+        log.info("BookingHolds.hold() - " + hold);
+        return hold;
+    }
+
+    /**
+     * @param id id of a hold
+     * @return the hold, or null if it does not exist or has expired
+     */
+    BookingHold find(String id) {
+        BookingHold hold = byId.get(id);
+        return hold == null || expired(hold, System.currentTimeMillis()) ? null : hold;
+    }
+
+    /**
+     * @param id id of the hold to end
+     * @return true if the hold existed and had not expired
+     */
+    boolean release(String id) {
+        BookingHold hold = byId.remove(id);
+        if (hold == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        byHotelDay.compute(new HotelDay(hold.getHotelId(), hold.getBookingDate()),
+                (key, current) -> without(current, id, now), lifespanMillis());
+        log.info("BookingHolds.release() - " + hold);
+        return !expired(hold, now);
+    }
+
+    /**
+     * <p>Releases a hold once the current transaction has committed, e.g. the one writing its booking. After a
+     * rollback the hold is kept until it expires, so that the booking can be retried.</p>
+     *
+     * @param id id of the hold to end
+     */
+    void releaseAfterCommit(String id) {
+        if (transactions.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            release(id);
+            return;
+        }
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    release(id);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param hotelId id of the hotel
+     * @param bookingDate the date
+     * @param holdId id of a hold not to count, e.g. the one a booking confirms, or null
+     * @return the number of rooms of the hotel held for the date by live holds other than the given one
+     */
+    int heldByOthers(Long hotelId, Date bookingDate, String holdId) {
+        return count(new HotelDay(hotelId, bookingDate), holdId);
+    }
+
+    /**
+     * @param hotelId id of the hotel
+     * @param date the date
+     * @return the number of rooms of the hotel held for the date by live holds
+     */
+    int held(Long hotelId, LocalDate date) {
+        return count(new HotelDay(hotelId, date), null);
+    }
+
+    private int count(HotelDay key, String excludedId) {
+        Map<String, Long> holds = byHotelDay.get(key);
+        if (holds == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Map.Entry<String, Long> hold : holds.entrySet()) {
+            if (hold.getValue() > now && !hold.getKey().equals(excludedId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The holds of a hotel and day are kept until the longest hold taken after the last change could expire
+     * */
+    private long lifespanMillis() {
+        return maxSeconds * 1000L;
+    }
+
+    private static boolean expired(BookingHold hold, long now) {
+        return hold.getExpiresAt().getTime() <= now;
+    }
+
+    /**
+     * The live holds of a hotel and day, plus the new one if a room is left. Runs on the instance owning the key
+     * */
+    private static HashMap<String, Long> take(HashMap<String, Long> holds, String id, long expiresAt, long now,
+                                              int available) {
+        HashMap<String, Long> live = without(holds, null, now);
+        if (live == null) {
+            live = new HashMap<>();
+        }
+        if (live.size() < available) {
+            live.put(id, expiresAt);
+        }
+        return live.isEmpty() ? null : live;
+    }
+
+    /**
+     * The live holds of a hotel and day, but the given one
+     * */
+    private static HashMap<String, Long> without(HashMap<String, Long> holds, String id, long now) {
+        if (holds == null) {
+            return null;
+        }
+        HashMap<String, Long> live = new HashMap<>();
+        for (Map.Entry<String, Long> hold : holds.entrySet()) {
+            if (hold.getValue() > now && !hold.getKey().equals(id)) {
+                live.put(hold.getKey(), hold.getValue());
+            }
+        }
+        return live.isEmpty() ? null : live;
+    }
+}
@@ -1,5 +1,10 @@
 package uk.ac.newcastle.enterprisemiddleware.booking;
 
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -19,6 +24,9 @@ public class BookingRepository {
     @Inject
     EntityManager em;
 
+    @Inject
+    ReadRouting routing;
+
     /**
      * <p>Persists the Booking object to the application database using the EntityManager.</p>
      *
@@ -29,10 +37,14 @@ public class BookingRepository {
     Booking create(Booking booking) {
         log.info("BookingRepository.create() - CREATING - customer =  " + booking.getCustomer() + ", hotel = " + booking.getHotel() + ", bookingDate = " + booking.getBookingDate());
 
+        // Attach the managed customer and hotel so that the nested objects are sent back to the client.
+        // Both are already in the persistence context (or the second-level cache) after validation, so unlike
+        // em.refresh() this does not issue another query.
+        booking.setCustomer(em.find(Customer.class, booking.getCustomer().getId()));
+        booking.setHotel(em.find(Hotel.class, booking.getHotel().getId()));
+
         // Write the booking to the database.
         em.persist(booking);
-        // refreshes booking object to send back to the client -> nested objects are not getting refreshed
-        em.refresh(booking);
 
         return booking;
     }
@@ -42,8 +54,9 @@ public class BookingRepository {
      *
      * @return List of Booking objects
      */
+    @ReadOnly
     List<Booking> findAllOrderedByDate() {
-        TypedQuery<Booking> query = em.createNamedQuery(Booking.FIND_ALL, Booking.class);
+        TypedQuery<Booking> query = routing.entityManager().createNamedQuery(Booking.FIND_ALL, Booking.class);
         return query.getResultList();
     }
 
@@ -53,8 +66,9 @@ public class BookingRepository {
      * @param id The id of the Booking to be returned
      * @return The Booking with the specified id
      */
+    @ReadOnly
     Booking findById(Long id) {
-        return em.find(Booking.class, id);
+        return routing.entityManager().find(Booking.class, id);
     }
 
     /**
@@ -62,11 +76,46 @@ public class BookingRepository {
      * @param customerId customer id
      * @return List of bookings
      */
+    @ReadOnly
     public List<Booking> findByCustomerId (Long customerId) {
-        TypedQuery<Booking> query = em.createNamedQuery(Booking.FIND_BY_CUSTOMER_ID, Booking.class).setParameter("customerId", customerId);
+        TypedQuery<Booking> query = routing.entityManager().createNamedQuery(Booking.FIND_BY_CUSTOMER_ID, Booking.class).setParameter("customerId", customerId);
         return query.getResultList();
     }
 
+    /**
+     * <p>Returns, for every hotel and date a customer has bookings for from a date on, the number of those bookings.</p>
+     *
+     * @param customerId customer id
+     * @param from the first date
+     * @return rows of hotel id, booking date and number of bookings
+     */
+    List<Object[]> countUpcomingByCustomerId(Long customerId, Date from) {
+        return em.createNamedQuery(Booking.COUNT_UPCOMING_BY_CUSTOMER_ID, Object[].class)
+                .setParameter("customerId", customerId)
+                .setParameter("from", from)
+                .getResultList();
+    }
+
+    /**
+     * <p>Deletes all the bookings of a customer with one statement, without loading them.</p>
+     *
+     * @param customerId customer id
+     * @return the number of bookings deleted
+     */
+    int deleteByCustomerId(Long customerId) {
+        return em.createNamedQuery(Booking.DELETE_BY_CUSTOMER_ID).setParameter("customerId", customerId).executeUpdate();
+    }
+
+    /**
+     * <p>Deletes all the bookings of a hotel with one statement, without loading them.</p>
+     *
+     * @param hotelId hotel id
+     * @return the number of bookings deleted
+     */
+    int deleteByHotelId(Long hotelId) {
+        return em.createNamedQuery(Booking.DELETE_BY_HOTEL_ID).setParameter("hotelId", hotelId).executeUpdate();
+    }
+
     /**
      * <p>Returns a List of Bookings made by customer on a specific hotel and date.<p/>
      *
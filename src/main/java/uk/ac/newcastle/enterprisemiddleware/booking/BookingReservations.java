@@ -0,0 +1,75 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * <p>Bounds the number of bookings being created at the same time for the same hotel and date within this application
+ * instance.</p>
+ *
+ * <p>A hotel cannot take more bookings for a date than it has rooms, so when as many transactions as there are rooms
+ * are already creating a booking, further requests are rejected with a {@link UniqueBookingException} straight away,
+ * instead of queuing on the room counter of the database. A reservation is released when its transaction
+ * completes.</p>
+ */
+@ApplicationScoped
+public class BookingReservations {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    private final Map<HotelDay, Integer> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Reserves a slot for creating a booking of a hotel for a date, until the end of the current transaction.</p>
+     *
+     * <p>Outside of a transaction nothing is reserved, as there is no commit to wait for.</p>
+     *
+     * @param hotel the hotel about to be booked
+     * @param bookingDate the date about to be booked
+     * @throws UniqueBookingException if as many transactions as the hotel has rooms are booking it for that date
+     */
+    void reserve(Hotel hotel, Date bookingDate) throws UniqueBookingException {
+        if (transactions.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            return;
+        }
+
+        HotelDay key = new HotelDay(hotel.getId(), bookingDate);
+        int capacity = hotel.getCapacity();
+        boolean[] reserved = new boolean[1];
+        inFlight.compute(key, (k, count) -> {
+            int current = count == null ? 0 : count;
+            reserved[0] = current < capacity;
+            return reserved[0] ? current + 1 : count;
+        });
+        if (!reserved[0]) {
+            log.info("BookingReservations.reserve() - All rooms already being booked: " + key);
+            throw new UniqueBookingException("Unique Booking Violation");
+        }
+
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            }
+        });
+    }
+}
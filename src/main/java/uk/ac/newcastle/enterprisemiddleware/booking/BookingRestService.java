@@ -6,6 +6,7 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.jboss.resteasy.reactive.Cache;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 
 import javax.inject.Inject;
@@ -14,8 +15,13 @@ import javax.transaction.Transactional;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -147,7 +153,8 @@ public class BookingRestService {
             @Parameter(description = "Id of Booking to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
+            long id,
+            @Context Request request) {
 
         Booking booking = service.findById(id);
         if (booking == null) {
@@ -156,7 +163,12 @@ public class BookingRestService {
         }
         log.info("findById " + id + ": found Booking = " + booking);
 
-        return Response.ok(booking).build();
+        EntityTag tag = EntityTags.weak(versionsOf(Collections.singletonList(booking)));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(booking).tag(tag).build();
     }
 
     /**
@@ -180,7 +192,8 @@ public class BookingRestService {
             @Parameter(description = "Id of Booking to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("customerId")
-            long customerId) {
+            long customerId,
+            @Context Request request) {
 
         List<Booking> bookings = service.findByCustomerId(customerId);
         if (bookings == null || bookings.size() == 0) {
@@ -189,7 +202,12 @@ public class BookingRestService {
         }
         log.info("retrieveBookingByCustomerId " + customerId + ": found Booking = " + bookings);
 
-        return Response.ok(bookings).build();
+        EntityTag tag = EntityTags.weak(versionsOf(bookings));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(bookings).tag(tag).build();
     }
 
     /**
@@ -235,4 +253,19 @@ public class BookingRestService {
         log.info("deleteBooking completed. Booking = " + deletedBooking);
         return builder.build();
     }
+
+    /**
+     * Ids and versions of the Bookings, and of the Customer and Hotel embedded in their representation
+     * */
+    private static List<Object> versionsOf(List<Booking> bookings) {
+        List<Object> parts = new ArrayList<>();
+        for (Booking booking : bookings) {
+            parts.add(booking.getId());
+            parts.add(booking.getVersion());
+            parts.add(booking.getCustomer().getVersion());
+            parts.add(booking.getHotel().getId());
+            parts.add(booking.getHotel().getVersion());
+        }
+        return parts;
+    }
 }
@@ -1,5 +1,12 @@
 package uk.ac.newcastle.enterprisemiddleware.booking;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerService;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
+import uk.ac.newcastle.enterprisemiddleware.inventory.Availability;
+import uk.ac.newcastle.enterprisemiddleware.inventory.InventoryService;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 
 import javax.enterprise.context.Dependent;
@@ -7,6 +14,8 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
@@ -27,6 +36,27 @@ public class BookingService {
     @Inject
     BookingValidator validator;
 
+    @Inject
+    BookingReservations reservations;
+
+    @Inject
+    BookingHolds holds;
+
+    @Inject
+    CustomerService customerService;
+
+    @Inject
+    HotelService hotelService;
+
+    @Inject
+    InventoryService inventory;
+
+    @ConfigProperty(name = "booking.hold.default-seconds", defaultValue = "60")
+    int defaultHoldSeconds;
+
+    @ConfigProperty(name = "booking.hold.max-seconds", defaultValue = "900")
+    int maxHoldSeconds;
+
     /**
      * <p>Returns a List of all persisted {@link Booking} objects, sorted alphabetically by name.<p/>
      *
@@ -72,22 +102,191 @@ public class BookingService {
      *
      * <p>Validates the data in the provided Customer object using a {@link BookingValidator} object.<p/>
      *
+     * <p>The booking takes one of the rooms of the hotel for the date (see {@link InventoryService}), and is rejected
+     * with a {@link UniqueBookingException} when there is none left.<p/>
+     *
      * @param booking The Booking object to be written to the database using a {@link BookingRepository} object
      * @return The Booking object that has been successfully written to the application database
      * @throws ConstraintViolationException, ValidationException, Exception
      */
     public Booking create(Booking booking) throws Exception {
+        return create(booking, null);
+    }
+
+    /**
+     * <p>Writes the provided Booking object to the application database, confirming a {@link BookingHold}.<p/>
+     *
+     * <p>A booking can take the room held by the given hold, or a room that is neither booked nor held. The hold is
+     * released once the booking has been committed.<p/>
+     *
+     * <p>A booking confirming a live hold takes no in-flight reservation: its room is already set aside, so the
+     * requests booking the same hotel and date at the same time must not turn it away.<p/>
+     *
+     * @param booking The Booking object to be written to the database using a {@link BookingRepository} object
+     * @param holdId The id of the hold the booking confirms, or null
+     * @return The Booking object that has been successfully written to the application database
+     * @throws ConstraintViolationException, ValidationException, Exception
+     */
+    public Booking create(Booking booking, String holdId) throws Exception {
         log.info("BookingService.create() - Creating " + booking.getBookingDate());
 
+        // Fail fast when as many requests as there are rooms are already booking the hotel for the date.
+        Hotel hotel = booking.getHotel() == null || booking.getHotel().getId() == null ? null
+                : hotelService.findById(booking.getHotel().getId());
+        if (hotel != null && booking.getBookingDate() != null
+                && !confirmsLiveHold(hotel, booking.getBookingDate(), holdId)) {
+            reservations.reserve(hotel, booking.getBookingDate());
+        }
+
         // Check to make sure the data fits with the parameters in the Booking model and passes validation.
         validator.validateBooking(booking);
 
+        return book(booking, hotel, holdId);
+    }
+
+    /**
+     * <p>Writes a booking of a hotel for a date by a customer, both just read by the caller, to the application
+     * database.<p/>
+     *
+     * <p>Unlike {@link #create(Booking)}, the customer and the hotel are not looked up again, so the booking only
+     * takes the room and inserts the row.<p/>
+     *
+     * @param customer The customer making the booking
+     * @param hotel The hotel to book
+     * @param bookingDate The date to book
+     * @return The Booking object that has been successfully written to the application database
+     * @throws ConstraintViolationException, ValidationException, Exception
+     */
+    public Booking createFor(Customer customer, Hotel hotel, Date bookingDate) throws Exception {
+        Booking booking = new Booking();
+        booking.setCustomer(customer);
+        booking.setHotel(hotel);
+        booking.setBookingDate(bookingDate);
+        log.info("BookingService.createFor() - Creating " + bookingDate);
+
+        if (bookingDate != null) {
+            reservations.reserve(hotel, bookingDate);
+        }
+        validator.validateFields(booking);
+
+        return book(booking, hotel, null);
+    }
+
+    /**
+     * A hold confirmed for another hotel or date does not set aside the room being booked
+     * */
+    private boolean confirmsLiveHold(Hotel hotel, Date bookingDate, String holdId) {
+        BookingHold hold = holdId == null ? null : holds.find(holdId);
+        return hold != null && new HotelDay(hotel.getId(), bookingDate)
+                .equals(new HotelDay(hold.getHotelId(), hold.getBookingDate()));
+    }
+
+    /**
+     * Takes a room for a valid booking and writes it, leaving the rooms held for other requests
+     * */
+    private Booking book(Booking booking, Hotel hotel, String holdId) throws Exception {
+        int held = holds.heldByOthers(hotel.getId(), booking.getBookingDate(), holdId);
+        if (!inventory.takeRoom(hotel, booking.getBookingDate(), held)) {
+            throw new UniqueBookingException("Unique Booking Violation");
+        }
+
         // Write the booking to the database.
-        return crud.create(booking);
+        Booking created = crud.create(booking);
+
+        if (holdId != null) {
+            holds.releaseAfterCommit(holdId);
+        }
+        return created;
+    }
+
+    /**
+     * <p>Holds a room of a hotel for a date, so that no other request can book it until the hold is confirmed,
+     * released or expires.<p/>
+     *
+     * <p>The rooms left are counted from the cached availability, so a hold may be granted for a room booked
+     * elsewhere a moment before; confirming it then fails like any booking of a full hotel.<p/>
+     *
+     * @param hold The hotel and date to hold
+     * @param seconds The duration of the hold, or null for the default duration
+     * @return The hold, with its id and expiry time
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     * @throws HotelNotFoundException If the hotel does not exist
+     * @throws UniqueBookingException If all the rooms of the hotel are booked or held for the date
+     */
+    public BookingHold hold(BookingHold hold, Integer seconds) {
+        int duration = seconds == null ? defaultHoldSeconds : seconds;
+        if (duration < 1 || duration > maxHoldSeconds) {
+            throw new RestServiceException("Hold duration must be between 1 and " + maxHoldSeconds + " seconds",
+                    Response.Status.BAD_REQUEST);
+        }
+
+        validator.validateHold(hold);
+        Hotel hotel = hotelService.findById(hold.getHotelId());
+        int available = hotel.getCapacity() - inventory.booked(hotel.getId(), hold.getBookingDate());
+        return holds.hold(hotel.getId(), hold.getBookingDate(), duration, available);
+    }
+
+    /**
+     * <p>Returns a live hold, specified by its id.<p/>
+     *
+     * @param holdId The id of the hold
+     * @return The hold, or null if it does not exist or has expired
+     */
+    BookingHold findHold(String holdId) {
+        return holds.find(holdId);
+    }
+
+    /**
+     * <p>Turns a hold into a booking of its hotel and date for a customer.<p/>
+     *
+     * @param holdId The id of the hold
+     * @param customerId The id of the customer making the booking
+     * @return The Booking object that has been successfully written to the application database
+     * @throws Exception if the hold does not exist or has expired, or if the booking cannot be created
+     */
+    Booking confirm(String holdId, Long customerId) throws Exception {
+        BookingHold hold = holds.find(holdId);
+        if (hold == null) {
+            throw new RestServiceException("No live hold with the id " + holdId + " was found!", Response.Status.NOT_FOUND);
+        }
+
+        Booking booking = new Booking();
+        booking.setCustomer(customerId == null ? null : customerService.findById(customerId));
+        booking.setHotel(hotelService.findById(hold.getHotelId()));
+        booking.setBookingDate(hold.getBookingDate());
+        return create(booking, holdId);
+    }
+
+    /**
+     * <p>Ends a hold without booking.<p/>
+     *
+     * @param holdId The id of the hold
+     * @return true if the hold existed and had not expired
+     */
+    public boolean release(String holdId) {
+        return holds.release(holdId);
+    }
+
+    /**
+     * <p>Returns the availability of a hotel for every date of a range: its rooms, minus the rooms booked (read from
+     * the cached aggregate of {@link InventoryService}) and the rooms held.<p/>
+     *
+     * @param hotel The hotel
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return One Availability per date
+     */
+    public List<Availability> availability(Hotel hotel, LocalDate from, LocalDate to) {
+        List<Availability> availability = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            availability.add(new Availability(date, hotel.getCapacity(), inventory.booked(hotel.getId(), date),
+                    holds.held(hotel.getId(), date)));
+        }
+        return availability;
     }
 
     /**
-     * <p>Deletes the provided Booking object from the application database if found there.<p/>
+     * <p>Deletes the provided Booking object from the application database if found there, releasing its room.<p/>
      *
      * @param id The id of Booking object to be removed from the application database
      * @return The Booking object that has been successfully removed from the application database; or null
@@ -106,6 +305,7 @@ public class BookingService {
         if (booking.getId() != null) {
             log.info("delete() - Deleting " + booking.toString());
             deletedBooking = crud.delete(booking);
+            inventory.releaseRoom(booking.getHotel().getId(), booking.getBookingDate());
         } else {
             log.info("delete() - No ID was found so can't Delete.");
         }
@@ -4,18 +4,14 @@ import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.customer.CustomerService;
 import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
 import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
+import uk.ac.newcastle.enterprisemiddleware.util.BeanValidation;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -37,34 +33,26 @@ public class BookingValidator {
     @Inject
     private HotelService hotelService;
 
-    @Inject
-    private BookingService bookingService;
     /**
      * <p>Validates the given Booking object and throws validation exceptions based on the type of error. If the error is standard
      * bean validation errors then it will throw a ConstraintValidationException with the set of the constraints violated.<p/>
      *
      *
-     * <p>Error is thrown if booking hotel and date combination is not unique i.e.
-     * There can be only one customer per hotel and date combination.
-     * it throws a regular validation exception so that it can be interpreted separately.</p>
+     * <p>Error is thrown if the customer or the hotel does not exist. Whether the hotel has a room left for the date is
+     * not checked here: taking the room is the check, see {@link uk.ac.newcastle.enterprisemiddleware.inventory.InventoryService}.</p>
      *
      *
      * @param booking The Booking object to be validated
      * @throws ConstraintViolationException If Bean Validation errors exist
-     * @throws ValidationException If booking with the same hotel/date combination exists already exists
+     * @throws ValidationException If the customer or the hotel does not exist
      */
     void validateBooking(Booking booking) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-
         Customer customer = booking.getCustomer();
         Hotel hotel = booking.getHotel();
-        Set<ConstraintViolation<Booking>> violations = validator.validate(booking);
 
         log.info("Validating booking request");
 
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
-        }
+        validateFields(booking);
 
         if (customer == null || customerNotFound(customer.getId())) {
             throw new CustomerNotFoundException("Customer " + customer +" does not exist!");
@@ -74,14 +62,36 @@ public class BookingValidator {
             throw new HotelNotFoundException("Hotel with " + hotel +" does not exist");
         }
 
-        // Check the uniqueness of hotel + booking date
-        if (bookingAlreadyExists(booking.getBookingDate(), hotel.getId())) {
-            throw new UniqueBookingException("Unique Booking Violation");
-        }
-
         log.info("Booking request valid" + booking);
     }
 
+    /**
+     * <p>Validates the fields of the given Booking object, without looking its customer and hotel up, e.g. when the
+     * caller has just read them.</p>
+     *
+     * @param booking The Booking object to be validated
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     */
+    void validateFields(Booking booking) throws ConstraintViolationException {
+        // Create a bean validator and check for issues.
+        BeanValidation.validate(validator, booking);
+    }
+
+    /**
+     * <p>Validates the given BookingHold object: standard bean validation, then the hotel must exist.</p>
+     *
+     * @param hold The BookingHold object to be validated
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     * @throws ValidationException If the hotel does not exist
+     */
+    void validateHold(BookingHold hold) throws ConstraintViolationException, ValidationException {
+        BeanValidation.validate(validator, hold);
+
+        if (hotelNotFound(hold.getHotelId())) {
+            throw new HotelNotFoundException("Hotel with id " + hold.getHotelId() + " does not exist");
+        }
+    }
+
     /**
      * Validates if customer exists in the database
      *
@@ -101,16 +111,4 @@ public class BookingValidator {
     private boolean hotelNotFound(Long hotelId) {
         return hotelService.findById(hotelId) == null;
     }
-
-    /**
-     * Checks if booking already exists based uniqueness of booking date and hotel
-     *
-     * @param bookingDate date on which booking is made
-     * @param hotelId hotel for which booking was made
-     * @return boolean indicating if booking already exists
-     * */
-    private boolean bookingAlreadyExists(Date bookingDate, Long hotelId) {
-        List<Booking> bookings = bookingService.findByDateAndHotelId(hotelId, bookingDate);
-        return bookings.size() > 0;
-    }
 }
@@ -0,0 +1,51 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * <p>A hotel and a day: what a {@link Booking} takes a room of.</p>
+ *
+ * <p>Booking dates are stored as dates in the default time zone, so the day is taken in that zone.</p>
+ */
+final class HotelDay implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long hotelId;
+    private final long epochDay;
+
+    HotelDay(Long hotelId, Date date) {
+        this(hotelId, Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    HotelDay(Long hotelId, LocalDate date) {
+        this.hotelId = hotelId;
+        this.epochDay = date.toEpochDay();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HotelDay)) {
+            return false;
+        }
+        HotelDay hotelDay = (HotelDay) o;
+        return hotelId == hotelDay.hotelId && epochDay == hotelDay.epochDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hotelId, epochDay);
+    }
+
+    @Override
+    public String toString() {
+        return "hotel " + hotelId + " on day " + epochDay;
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.newcastle.enterprisemiddleware.booking.archive;
+
+import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryEntry;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.TravelAgentBooking;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.Date;
+import java.util.List;
+
+@RequestScoped
+public class ArchiveRepository {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ReadRouting routing;
+
+    /**
+     * @param before the archive horizon
+     * @param limit maximum number of bookings
+     * @return the oldest live bookings dated before the horizon, as archive rows not yet persisted
+     */
+    List<ArchivedBooking> findBookingsBefore(Date before, int limit) {
+        return em.createNamedQuery(ArchivedBooking.FIND_BOOKINGS_BEFORE, ArchivedBooking.class)
+                .setParameter("before", before)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * <p>Writes archive rows, and deletes the live bookings and travel agent bookings they were made from.</p>
+     *
+     * @param archived the archive rows
+     * @param bookingIds ids of their bookings
+     */
+    void moveToArchive(List<ArchivedBooking> archived, List<Long> bookingIds) {
+        for (ArchivedBooking booking : archived) {
+            em.persist(booking);
+        }
+        em.createNamedQuery(TravelAgentBooking.DELETE_BY_HOTEL_BOOKING_IDS).setParameter("ids", bookingIds).executeUpdate();
+        em.createNamedQuery(Booking.DELETE_BY_IDS).setParameter("ids", bookingIds).executeUpdate();
+    }
+
+    /**
+     * @see uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryRepository
+     */
+    @ReadOnly
+    List<ItineraryEntry> findItineraryByCustomerId(Long customerId, Date from, Date to, long after, int limit) {
+        return routing.entityManager().createNamedQuery(ArchivedBooking.FIND_ITINERARY_BY_CUSTOMER_ID, ItineraryEntry.class)
+                .setParameter("customerId", customerId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * <p>Deletes the archived bookings of a customer with one statement.</p>
+     *
+     * @param customerId customer id
+     * @return the number of archived bookings deleted
+     */
+    int deleteByCustomerId(Long customerId) {
+        return em.createNamedQuery(ArchivedBooking.DELETE_BY_CUSTOMER_ID).setParameter("customerId", customerId).executeUpdate();
+    }
+
+    /**
+     * <p>Deletes the archived bookings of a hotel with one statement.</p>
+     *
+     * @param hotelId hotel id
+     * @return the number of archived bookings deleted
+     */
+    int deleteByHotelId(Long hotelId) {
+        return em.createNamedQuery(ArchivedBooking.DELETE_BY_HOTEL_ID).setParameter("hotelId", hotelId).executeUpdate();
+    }
+}
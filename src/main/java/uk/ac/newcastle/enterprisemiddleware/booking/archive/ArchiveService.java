@@ -0,0 +1,83 @@
+package uk.ac.newcastle.enterprisemiddleware.booking.archive;
+
+import uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryEntry;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <p>Service Class for the archive of past bookings.</p>
+ *
+ * @see BookingArchiver
+ */
+@Dependent
+public class ArchiveService {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    ArchiveRepository crud;
+
+    /**
+     * <p>Moves the oldest bookings dated before the horizon to the archive, in a transaction of its own.</p>
+     *
+     * @param before the archive horizon
+     * @param limit maximum number of bookings to move
+     * @return the number of bookings moved
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int archiveBatch(Date before, int limit) {
+        // A booking is joined with at most one travel agent booking; keep the first row should there be more
+        Map<Long, ArchivedBooking> batch = new LinkedHashMap<>();
+        Date now = new Date();
+        for (ArchivedBooking booking : crud.findBookingsBefore(before, limit)) {
+            booking.setArchivedOn(now);
+            batch.putIfAbsent(booking.getId(), booking);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        crud.moveToArchive(new ArrayList<>(batch.values()), new ArrayList<>(batch.keySet()));
+        return batch.size();
+    }
+
+    /**
+     * <p>Returns the archived stays of a customer, as itinerary entries.</p>
+     *
+     * @see uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryRepository
+     */
+    public List<ItineraryEntry> findItineraryByCustomerId(Long customerId, Date from, Date to, long after, int limit) {
+        return crud.findItineraryByCustomerId(customerId, from, to, after, limit);
+    }
+
+    /**
+     * <p>Deletes the archived bookings of a customer, as part of the current transaction.</p>
+     *
+     * @param customerId id of the customer
+     */
+    public void deleteForCustomer(Long customerId) {
+        int deleted = crud.deleteByCustomerId(customerId);
+        log.info("ArchiveService.deleteForCustomer() - " + deleted + " archived bookings of customer " + customerId);
+    }
+
+    /**
+     * <p>Deletes the archived bookings of a hotel, as part of the current transaction.</p>
+     *
+     * @param hotelId id of the hotel
+     */
+    public void deleteForHotel(Long hotelId) {
+        int deleted = crud.deleteByHotelId(hotelId);
+        log.info("ArchiveService.deleteForHotel() - " + deleted + " archived bookings of hotel " + hotelId);
+    }
+}
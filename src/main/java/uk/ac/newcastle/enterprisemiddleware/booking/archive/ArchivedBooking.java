@@ -0,0 +1,152 @@
+package uk.ac.newcastle.enterprisemiddleware.booking.archive;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * <p>A {@link uk.ac.newcastle.enterprisemiddleware.booking.Booking} moved out of the booking tables once its date is
+ * past the archive horizon, together with the travel agent booking made with it.</p>
+ *
+ * <p>The row is flat and keeps ids only, with no foreign keys, so archived bookings cost nothing to the queries and
+ * writes of the live tables. It keeps the id of the booking, which is unique across the live and archived bookings.</p>
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = ArchivedBooking.FIND_BOOKINGS_BEFORE, query = "SELECT new uk.ac.newcastle.enterprisemiddleware.booking.archive.ArchivedBooking("
+                + "b.id, b.bookingDate, b.customer.id, b.hotel.id, t.id, t.flightBookingId, t.taxiBookingId) "
+                + "FROM Booking b LEFT JOIN TravelAgentBooking t ON t.hotelBookingId = b.id "
+                + "WHERE b.bookingDate < :before ORDER BY b.bookingDate, b.id"),
+        @NamedQuery(name = ArchivedBooking.FIND_ITINERARY_BY_CUSTOMER_ID, query = "SELECT new uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryEntry("
+                + "a.id, a.bookingDate, a.hotelId, h.name, h.postCode, a.travelAgentBookingId, a.flightBookingId, a.taxiBookingId) "
+                + "FROM ArchivedBooking a LEFT JOIN Hotel h ON h.id = a.hotelId "
+                + "WHERE a.customerId = :customerId AND a.bookingDate >= :from AND a.bookingDate <= :to "
+                + "AND (a.bookingDate > :from OR a.id > :after) ORDER BY a.bookingDate, a.id"),
+        @NamedQuery(name = ArchivedBooking.DELETE_BY_CUSTOMER_ID, query = "DELETE FROM ArchivedBooking a WHERE a.customerId = :customerId"),
+        @NamedQuery(name = ArchivedBooking.DELETE_BY_HOTEL_ID, query = "DELETE FROM ArchivedBooking a WHERE a.hotelId = :hotelId")
+})
+@Table(name = "booking_archive", indexes = {
+        @Index(name = "idx_booking_archive_customer_id_booking_date", columnList = "customer_id, booking_date"),
+        @Index(name = "idx_booking_archive_hotel_id", columnList = "hotel_id")
+})
+public class ArchivedBooking implements Serializable {
+    public static final String FIND_BOOKINGS_BEFORE = "ArchivedBooking.findBookingsBefore";
+    public static final String FIND_ITINERARY_BY_CUSTOMER_ID = "ArchivedBooking.findItineraryByCustomerId";
+    public static final String DELETE_BY_CUSTOMER_ID = "ArchivedBooking.deleteByCustomerId";
+    public static final String DELETE_BY_HOTEL_ID = "ArchivedBooking.deleteByHotelId";
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "booking_date", nullable = false)
+    private Date bookingDate;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "travel_agent_booking_id")
+    private Long travelAgentBookingId;
+
+    @Column(name = "flight_booking_id")
+    private Long flightBookingId;
+
+    @Column(name = "taxi_booking_id")
+    private Long taxiBookingId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "archived_on", nullable = false)
+    private Date archivedOn;
+
+    public ArchivedBooking() {
+    }
+
+    public ArchivedBooking(Long id, Date bookingDate, Long customerId, Long hotelId, Long travelAgentBookingId,
+                           Long flightBookingId, Long taxiBookingId) {
+        this.id = id;
+        this.bookingDate = bookingDate;
+        this.customerId = customerId;
+        this.hotelId = hotelId;
+        this.travelAgentBookingId = travelAgentBookingId;
+        this.flightBookingId = flightBookingId;
+        this.taxiBookingId = taxiBookingId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getBookingDate() {
+        return bookingDate;
+    }
+
+    public void setBookingDate(Date bookingDate) {
+        this.bookingDate = bookingDate;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public void setHotelId(Long hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    public Long getTravelAgentBookingId() {
+        return travelAgentBookingId;
+    }
+
+    public void setTravelAgentBookingId(Long travelAgentBookingId) {
+        this.travelAgentBookingId = travelAgentBookingId;
+    }
+
+    public Long getFlightBookingId() {
+        return flightBookingId;
+    }
+
+    public void setFlightBookingId(Long flightBookingId) {
+        this.flightBookingId = flightBookingId;
+    }
+
+    public Long getTaxiBookingId() {
+        return taxiBookingId;
+    }
+
+    public void setTaxiBookingId(Long taxiBookingId) {
+        this.taxiBookingId = taxiBookingId;
+    }
+
+    public Date getArchivedOn() {
+        return archivedOn;
+    }
+
+    public void setArchivedOn(Date archivedOn) {
+        this.archivedOn = archivedOn;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedBooking{" +
+                "id=" + id +
+                ", bookingDate=" + bookingDate +
+                ", customerId=" + customerId +
+                ", hotelId=" + hotelId +
+                '}';
+    }
+}
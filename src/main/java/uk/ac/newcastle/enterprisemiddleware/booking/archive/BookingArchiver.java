@@ -0,0 +1,59 @@
+package uk.ac.newcastle.enterprisemiddleware.booking.archive;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.logging.Logger;
+
+/**
+ * <p>Background job moving the bookings dated more than <code>booking.archive.horizon-days</code> ago, and the travel
+ * agent bookings made with them, to the {@link ArchivedBooking} table.</p>
+ *
+ * <p>Bookings are moved oldest first, in batches of <code>booking.archive.batch-size</code>, each batch in a short
+ * transaction of its own, so the live tables only ever hold recent and upcoming stays.</p>
+ */
+@ApplicationScoped
+public class BookingArchiver {
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    ArchiveService archiveService;
+
+    @ConfigProperty(name = "booking.archive.horizon-days", defaultValue = "365")
+    int horizonDays;
+
+    @ConfigProperty(name = "booking.archive.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @Scheduled(every = "{booking.archive.every}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void run() {
+        archive();
+    }
+
+    /**
+     * <p>Archives the bookings past the horizon until none is left.</p>
+     *
+     * @return the number of bookings archived
+     */
+    int archive() {
+        Date before = java.sql.Date.valueOf(LocalDate.now().minusDays(horizonDays));
+        int total = 0;
+        int moved;
+        do {
+            moved = archiveService.archiveBatch(before, batchSize);
+            total += moved;
+        } while (moved == batchSize);
+
+        if (total > 0) {
+            log.info("BookingArchiver.archive() - " + total + " bookings dated before " + before + " archived");
+        }
+        return total;
+    }
+}
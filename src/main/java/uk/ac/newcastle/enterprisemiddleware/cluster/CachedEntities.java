@@ -0,0 +1,91 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import org.hibernate.SessionFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>Keeps the second-level caches of the instances of the application in step.</p>
+ *
+ * <p>Hibernate updates the cache of the instance making a change, but the other instances would serve the entity,
+ * and the cached queries, as they were until the entries expire. Once a transaction changing cached entities has
+ * committed, its changes are broadcast in a single message, and the other instances evict the entities and, once, their
+ * cached query results: the next read goes to the database.</p>
+ */
+@ApplicationScoped
+public class CachedEntities {
+
+    /**
+     * Key of the changes of the current transaction in the transaction synchronization registry
+     * */
+    private static final Object PENDING = new Object();
+
+    @Inject
+    EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @Inject
+    Cluster cluster;
+
+    void changed(Object entity) {
+        CachedEntityChanged change = new CachedEntityChanged(entity.getClass().getName(),
+                (Serializable) entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity));
+        if (transactions.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            cluster.broadcast(new CachedEntitiesChanged(Collections.singleton(change)));
+            return;
+        }
+        pending().add(change);
+    }
+
+    /**
+     * The first change of a transaction registers the broadcast of all of them
+     * */
+    @SuppressWarnings("unchecked")
+    private Set<CachedEntityChanged> pending() {
+        Set<CachedEntityChanged> changes = (Set<CachedEntityChanged>) transactions.getResource(PENDING);
+        if (changes != null) {
+            return changes;
+        }
+        Set<CachedEntityChanged> registered = new LinkedHashSet<>();
+        transactions.putResource(PENDING, registered);
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    cluster.broadcast(new CachedEntitiesChanged(registered));
+                }
+            }
+        });
+        return registered;
+    }
+
+    /**
+     * <p>Evicts the entities changed through another instance of the application, and the cached query results, which
+     * may include them.</p>
+     *
+     * @param changes the changes of a transaction
+     */
+    void onCachedEntitiesChanged(@Observes CachedEntitiesChanged changes) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (CachedEntityChanged change : changes.getChanges()) {
+            cache.evictEntityData(change.getEntityName(), change.getId());
+        }
+        cache.evictQueryRegions();
+    }
+}
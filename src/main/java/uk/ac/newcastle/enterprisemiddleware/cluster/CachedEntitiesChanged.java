@@ -0,0 +1,29 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>Sent to the other instances of the application once a transaction changing entities held in the second-level
+ * cache has committed, with all of its changes, see {@link CachedEntities}.</p>
+ */
+public class CachedEntitiesChanged implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<CachedEntityChanged> changes;
+
+    CachedEntitiesChanged(Collection<CachedEntityChanged> changes) {
+        this.changes = new ArrayList<>(changes);
+    }
+
+    public List<CachedEntityChanged> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedEntitiesChanged{changes=" + changes.size() + "}";
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * <p>A change to an entity held in the second-level cache, sent to the other instances of the application within a
+ * {@link CachedEntitiesChanged}.</p>
+ */
+public class CachedEntityChanged implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String entityName;
+    private final Serializable id;
+
+    CachedEntityChanged(String entityName, Serializable id) {
+        this.entityName = entityName;
+        this.id = id;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Serializable getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CachedEntityChanged)) {
+            return false;
+        }
+        CachedEntityChanged that = (CachedEntityChanged) o;
+        return entityName.equals(that.entityName) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityName, id);
+    }
+
+    @Override
+    public String toString() {
+        return "CachedEntityChanged{entityName=" + entityName + ", id=" + id + "}";
+    }
+}
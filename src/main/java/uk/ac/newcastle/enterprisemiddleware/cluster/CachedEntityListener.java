@@ -0,0 +1,21 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import javax.enterprise.inject.spi.CDI;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * <p>JPA entity listener of the @Cacheable entities, reporting their changes to {@link CachedEntities}.</p>
+ *
+ * <p>Entity listeners are created by Hibernate rather than by CDI, so the bean is looked up from the container.</p>
+ */
+public class CachedEntityListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        CDI.current().select(CachedEntities.class).get().changed(entity);
+    }
+}
@@ -0,0 +1,36 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import java.io.Serializable;
+
+/**
+ * <p>What the instances of the application (e.g. the pods of an OpenShift deployment) share: maps that every instance
+ * reads and writes, and events sent from one instance to the others.</p>
+ *
+ * <p>{@link LocalCluster} is a cluster of one instance, keeping the maps in memory. {@link InfinispanCluster} runs an
+ * embedded Infinispan node that finds the other instances with JGroups. The app.cluster.mode property chooses between
+ * them, see {@link ClusterProducer}.</p>
+ */
+public interface Cluster {
+
+    /**
+     * @param name name of the map, the same on every instance
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     * @return the map of that name
+     */
+    <K extends Serializable, V extends Serializable> SharedMap<K, V> map(String name);
+
+    /**
+     * <p>Sends an event to the other instances, where it is fired as a CDI event, e.g. so that they drop their copy
+     * of data that has just changed. The event is sent asynchronously, and is not received by instances joining
+     * later: they start without copies to drop.</p>
+     *
+     * @param event the event, of a class of this application
+     */
+    void broadcast(Serializable event);
+
+    /**
+     * <p>Leaves the cluster.</p>
+     */
+    void close();
+}
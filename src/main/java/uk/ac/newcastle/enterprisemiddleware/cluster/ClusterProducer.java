@@ -0,0 +1,73 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * <p>Produces the {@link Cluster} chosen by app.cluster.mode: "local" (the default) for a single instance, or
+ * "infinispan" when several instances of the application run side by side.</p>
+ */
+@ApplicationScoped
+public class ClusterProducer {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    Event<Object> events;
+
+    @ConfigProperty(name = "app.cluster.mode", defaultValue = "local")
+    String mode;
+
+    @ConfigProperty(name = "app.cluster.name", defaultValue = "middleware")
+    String name;
+
+    @ConfigProperty(name = "app.cluster.jgroups-config", defaultValue = "default-configs/default-jgroups-kubernetes.xml")
+    String jgroupsConfiguration;
+
+    @ConfigProperty(name = "app.cluster.dns-query")
+    Optional<String> dnsQuery;
+
+    private volatile LocalCluster local;
+
+    @Produces
+    @ApplicationScoped
+    Cluster cluster() {
+        if ("infinispan".equals(mode)) {
+            // Read by the DNS_PING protocol of the kubernetes stack: the headless service of the pods
+            dnsQuery.ifPresent(query -> System.setProperty("jgroups.dns.query", query));
+            return new InfinispanCluster(name, jgroupsConfiguration, events::fire);
+        }
+        log.info("ClusterProducer.cluster() - Running as a single instance");
+        local = new LocalCluster();
+        return local;
+    }
+
+    void close(@Disposes Cluster cluster) {
+        cluster.close();
+    }
+
+    /**
+     * <p>Removes the expired entries of the maps of a local cluster. Infinispan expires its own.</p>
+     */
+    @Scheduled(every = "1s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void expire() {
+        LocalCluster cluster = local;
+        if (cluster != null) {
+            int expired = cluster.expire(System.currentTimeMillis());
+            if (expired > 0) {
+                log.fine("ClusterProducer.expire() - " + expired + " entries expired");
+            }
+        }
+    }
+}
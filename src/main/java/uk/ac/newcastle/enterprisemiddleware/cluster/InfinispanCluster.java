@@ -0,0 +1,151 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.JavaSerializationMarshaller;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.function.SerializableFunction;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>A cluster of the instances running an embedded Infinispan node, found by JGroups (DNS_PING on OpenShift, with
+ * the default-jgroups-kubernetes.xml stack).</p>
+ *
+ * <p>Each map is a distributed cache: an entry is kept by two instances, so it survives the loss of one, and
+ * {@link SharedMap#compute} runs the function on the instance owning the key, under its lock. The cost of a map
+ * operation does not grow with the number of instances. Events are sent to the other instances with the cluster
+ * executor, and handed to the receiver of each instance there.</p>
+ *
+ * <p>Keys, values, functions and events are sent with Java serialization, restricted to the classes of this
+ * application and of the JDK.</p>
+ */
+public class InfinispanCluster implements Cluster {
+    private static final Logger log = Logger.getLogger(InfinispanCluster.class.getName());
+
+    /**
+     * Receiver of the events of every instance running in this JVM (more than one in tests)
+     * */
+    private static final Map<Address, Consumer<Object>> RECEIVERS = new ConcurrentHashMap<>();
+
+    private final DefaultCacheManager manager;
+    private final Configuration mapConfiguration;
+    private final Map<String, SharedMap<?, ?>> maps = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Starts the node and joins the cluster.</p>
+     *
+     * @param clusterName name of the cluster, the same on every instance
+     * @param jgroupsConfiguration resource or file of the JGroups stack
+     * @param receiver fires the events received from the other instances
+     */
+    public InfinispanCluster(String clusterName, String jgroupsConfiguration, Consumer<Object> receiver) {
+        GlobalConfigurationBuilder global = GlobalConfigurationBuilder.defaultClusteredBuilder();
+        global.classLoader(InfinispanCluster.class.getClassLoader());
+        global.transport().clusterName(clusterName).addProperty("configurationFile", jgroupsConfiguration);
+        global.serialization().marshaller(new JavaSerializationMarshaller())
+                .allowList().addRegexps("uk\\.ac\\.newcastle\\.enterprisemiddleware\\..*", "java\\..*");
+
+        mapConfiguration = new ConfigurationBuilder()
+                .clustering().cacheMode(CacheMode.DIST_SYNC).hash().numOwners(2)
+                .expiration().wakeUpInterval(1, TimeUnit.SECONDS)
+                .build();
+
+        manager = new DefaultCacheManager(global.build());
+        RECEIVERS.put(manager.getAddress(), receiver);
+        log.info("InfinispanCluster - Joined " + clusterName + " as " + manager.getAddress() + ", members: "
+                + manager.getMembers());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K extends Serializable, V extends Serializable> SharedMap<K, V> map(String name) {
+        return (SharedMap<K, V>) maps.computeIfAbsent(name, key -> {
+            manager.defineConfiguration(name, mapConfiguration);
+            return new InfinispanMap<>(manager.<K, V>getCache(name));
+        });
+    }
+
+    @Override
+    public void broadcast(Serializable event) {
+        Address self = manager.getAddress();
+        manager.executor()
+                .filterTargets(address -> !address.equals(self))
+                .submitConsumer(new Delivery(event), (address, result, error) -> {
+                    if (error != null) {
+                        log.log(Level.WARNING, "InfinispanCluster.broadcast() - " + event + " not delivered to "
+                                + address, error);
+                    }
+                });
+    }
+
+    @Override
+    public void close() {
+        RECEIVERS.remove(manager.getAddress());
+        manager.stop();
+    }
+
+    /**
+     * Runs on the receiving instance
+     * */
+    private static final class Delivery implements SerializableFunction<EmbeddedCacheManager, Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Serializable event;
+
+        Delivery(Serializable event) {
+            this.event = event;
+        }
+
+        @Override
+        public Void apply(EmbeddedCacheManager manager) {
+            Consumer<Object> receiver = RECEIVERS.get(manager.getAddress());
+            if (receiver != null) {
+                receiver.accept(event);
+            }
+            return null;
+        }
+    }
+
+    private static final class InfinispanMap<K, V> implements SharedMap<K, V> {
+        private final Cache<K, V> cache;
+
+        InfinispanMap(Cache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public V get(K key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void put(K key, V value, long lifespanMillis) {
+            // The previous value would be fetched from its owner only to be thrown away
+            cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
+                    .put(key, value, lifespanMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public V remove(K key) {
+            return cache.remove(key);
+        }
+
+        @Override
+        public V compute(K key, Remapping<K, V> remapping, long lifespanMillis) {
+            return cache.compute(key, remapping, lifespanMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import uk.ac.newcastle.enterprisemiddleware.util.TimingWheel;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A cluster of one instance: the maps are concurrent maps in memory, and there is nobody to broadcast to.</p>
+ *
+ * <p>An entry is treated as gone as soon as its lifespan is over. It is removed from memory by {@link #expire(long)},
+ * which advances a {@link TimingWheel} with a one second tick and is called by a scheduled job.</p>
+ */
+public class LocalCluster implements Cluster {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final Map<String, LocalMap<?, ?>> maps = new ConcurrentHashMap<>();
+    private final TimingWheel<Runnable> wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K extends Serializable, V extends Serializable> SharedMap<K, V> map(String name) {
+        return (SharedMap<K, V>) maps.computeIfAbsent(name, key -> new LocalMap<K, V>());
+    }
+
+    @Override
+    public void broadcast(Serializable event) {
+    }
+
+    @Override
+    public void close() {
+        maps.clear();
+    }
+
+    /**
+     * <p>Removes the entries whose lifespan has ended since the previous call.</p>
+     *
+     * @param now current time, in milliseconds
+     * @return the number of entries removed
+     */
+    int expire(long now) {
+        List<Runnable> expired = wheel.advance(now);
+        for (Runnable expiry : expired) {
+            expiry.run();
+        }
+        return expired.size();
+    }
+
+    private final class LocalMap<K, V> implements SharedMap<K, V> {
+        private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public V get(K key) {
+            return live(entries.get(key), System.currentTimeMillis());
+        }
+
+        @Override
+        public void put(K key, V value, long lifespanMillis) {
+            Entry<V> entry = new Entry<>(value, System.currentTimeMillis() + lifespanMillis);
+            entries.put(key, entry);
+            schedule(key, entry);
+        }
+
+        @Override
+        public V remove(K key) {
+            return live(entries.remove(key), System.currentTimeMillis());
+        }
+
+        @Override
+        public V compute(K key, Remapping<K, V> remapping, long lifespanMillis) {
+            long now = System.currentTimeMillis();
+            Entry<V> entry = entries.compute(key, (k, current) -> {
+                V value = remapping.apply(k, live(current, now));
+                return value == null ? null : new Entry<>(value, now + lifespanMillis);
+            });
+            if (entry == null) {
+                return null;
+            }
+            schedule(key, entry);
+            return entry.value;
+        }
+
+        private void schedule(K key, Entry<V> entry) {
+            // The entry is only removed if it has not been replaced in the meantime
+            wheel.schedule(() -> entries.remove(key, entry), entry.expiresAt);
+        }
+    }
+
+    private static <V> V live(Entry<V> entry, long now) {
+        return entry == null || entry.expiresAt <= now ? null : entry.value;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
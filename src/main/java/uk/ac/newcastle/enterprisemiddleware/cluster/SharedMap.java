@@ -0,0 +1,55 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import java.io.Serializable;
+import java.util.function.BiFunction;
+
+/**
+ * <p>A map shared by the instances of the application, see {@link Cluster}.</p>
+ *
+ * <p>Every entry has a lifespan, after which it is gone. Values are copied between instances: a value read from the
+ * map must not be changed, a changed copy is written back instead.</p>
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public interface SharedMap<K, V> {
+
+    /**
+     * @param key the key
+     * @return the value of the key, or null
+     */
+    V get(K key);
+
+    /**
+     * @param key the key
+     * @param value the new value of the key
+     * @param lifespanMillis how long the entry lasts
+     */
+    void put(K key, V value, long lifespanMillis);
+
+    /**
+     * @param key the key
+     * @return the value the key had, or null
+     */
+    V remove(K key);
+
+    /**
+     * <p>Replaces the value of a key with the result of a function of its current value, atomically across all the
+     * instances. The function may be run on another instance: it must not refer to anything but its arguments and
+     * the values it captures.</p>
+     *
+     * @param key the key
+     * @param remapping function of the key and its current value (or null) returning its new value (or null, to
+     * remove the key)
+     * @param lifespanMillis how long the new entry lasts
+     * @return the new value
+     */
+    V compute(K key, Remapping<K, V> remapping, long lifespanMillis);
+
+    /**
+     * <p>A function computing the new value of a key, sent to the instance owning the key.</p>
+     */
+    @FunctionalInterface
+    interface Remapping<K, V> extends BiFunction<K, V, V>, Serializable {
+    }
+}
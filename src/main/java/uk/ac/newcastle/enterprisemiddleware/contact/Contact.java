@@ -1,10 +1,20 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexListener;
+import uk.ac.newcastle.enterprisemiddleware.search.Searchable;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
+
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.Serializable;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Objects;
 
 /**
@@ -21,23 +31,38 @@ import java.util.Objects;
  * form of query in JPA though is it more error prone due to the syntax being in a String.  This makes it harder to debug.
  */
 @Entity
+@DynamicUpdate
+@EntityListeners(SearchIndexListener.class)
 @NamedQueries({
         @NamedQuery(name = Contact.FIND_ALL, query = "SELECT c FROM Contact c ORDER BY c.lastName ASC, c.firstName ASC"),
-        @NamedQuery(name = Contact.FIND_BY_EMAIL, query = "SELECT c FROM Contact c WHERE c.email = :email")
+        @NamedQuery(name = Contact.FIND_BY_EMAIL, query = "SELECT c FROM Contact c WHERE c.email = :email"),
+        @NamedQuery(name = Contact.FIND_ID_BY_EMAIL, query = "SELECT c.id FROM Contact c WHERE c.email = :email"),
+        @NamedQuery(name = Contact.FIND_ALL_BY_IDS, query = "SELECT c FROM Contact c WHERE c.id IN :ids")
 })
 @XmlRootElement
-@Table(name = "contact", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
-public class Contact implements Serializable {
+@Table(name = "contact", uniqueConstraints = @UniqueConstraint(columnNames = "email"), indexes = {
+        @Index(name = "idx_contact_last_name_key_first_name_key", columnList = "last_name_key, first_name_key"),
+        @Index(name = "idx_contact_first_name_key", columnList = "first_name_key")
+})
+public class Contact implements Serializable, Searchable {
     /** Default value included to remove warning. Remove or modify at will. **/
     private static final long serialVersionUID = 1L;
 
     public static final String FIND_ALL = "Contact.findAll";
+    public static final String FIND_ALL_BY_IDS = "Contact.findAllByIds";
     public static final String FIND_BY_EMAIL = "Contact.findByEmail";
+    public static final String FIND_ID_BY_EMAIL = "Contact.findIdByEmail";
 
     @Id // Primary Key
-    @GeneratedValue(strategy = GenerationType.TABLE) // How ID is initialised - for automatic use GenerationType.AUTO
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contact_seq")
+    @GenericGenerator(name = "contact_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "contact_seq"))
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Size(min = 1, max = 25)
     @Pattern(regexp = "[A-Za-z-']+", message = "Please use a name without numbers or specials")
@@ -69,6 +94,19 @@ public class Contact implements Serializable {
     @Column(name = "state")
     private String state;
 
+    /*
+     * Lower-cased copies of the names, kept in sync by the setters (so detached copies being merged carry them too)
+     * and on every write. Searches compare against these indexed columns, so case-insensitive and prefix matches do
+     * not need lower() on the table side.
+     */
+    @JsonIgnore
+    @Column(name = "first_name_key", length = 25)
+    private String firstNameKey;
+
+    @JsonIgnore
+    @Column(name = "last_name_key", length = 25)
+    private String lastNameKey;
+
     public Long getId() {
         return id;
     }
@@ -77,12 +115,21 @@ public class Contact implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
 
     public void setFirstName(String firstName) {
         this.firstName = firstName;
+        this.firstNameKey = searchKey(firstName);
     }
 
     public String getLastName() {
@@ -91,6 +138,7 @@ public class Contact implements Serializable {
 
     public void setLastName(String lastName) {
         this.lastName = lastName;
+        this.lastNameKey = searchKey(lastName);
     }
 
     public String getEmail() {
@@ -125,6 +173,26 @@ public class Contact implements Serializable {
         return this.state;
     }
 
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        firstNameKey = searchKey(firstName);
+        lastNameKey = searchKey(lastName);
+    }
+
+    /**
+     * @param name a first or last name, as entered
+     * @return the form of the name stored in the search key columns
+     */
+    static String searchKey(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String searchText() {
+        return firstName + " " + lastName;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
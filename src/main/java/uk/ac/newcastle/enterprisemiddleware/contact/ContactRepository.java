@@ -1,15 +1,24 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.validation.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -26,6 +35,8 @@ import java.util.logging.Logger;
 @RequestScoped
 public class ContactRepository {
 
+    private static final char LIKE_ESCAPE = '\\';
+
     @Inject
     @Named("logger")
     Logger log;
@@ -33,13 +44,17 @@ public class ContactRepository {
     @Inject
     EntityManager em;
 
+    @Inject
+    ReadRouting routing;
+
     /**
      * <p>Returns a List of all persisted {@link Contact} objects, sorted alphabetically by last name.</p>
      *
      * @return List of Contact objects
      */
+    @ReadOnly
     List<Contact> findAllOrderedByName() {
-        TypedQuery<Contact> query = em.createNamedQuery(Contact.FIND_ALL, Contact.class);
+        TypedQuery<Contact> query = routing.entityManager().createNamedQuery(Contact.FIND_ALL, Contact.class);
         return query.getResultList();
     }
 
@@ -49,53 +64,109 @@ public class ContactRepository {
      * @param id The id field of the Contact to be returned
      * @return The Contact with the specified id
      */
+    @ReadOnly
     Contact findById(Long id) {
-        return em.find(Contact.class, id);
+        return routing.entityManager().find(Contact.class, id);
     }
 
     /**
      * <p>Returns a single Contact object, specified by a String email.</p>
      *
-     * <p>If there is more than one Contact with the specified email, only the first encountered will be returned.<p/>
+     * <p>If there is more than one Contact with the specified email, only the first encountered will be returned. An
+     * unknown email is an ordinary outcome, returned as an empty Optional rather than thrown.<p/>
      *
      * @param email The email field of the Contact to be returned
-     * @return The first Contact with the specified email
+     * @return The first Contact with the specified email, if any
      */
-    Contact findByEmail(String email) {
-        TypedQuery<Contact> query = em.createNamedQuery(Contact.FIND_BY_EMAIL, Contact.class).setParameter("email", email);
-        return query.getSingleResult();
+    @ReadOnly
+    Optional<Contact> findByEmail(String email) {
+        TypedQuery<Contact> query = routing.entityManager().createNamedQuery(Contact.FIND_BY_EMAIL, Contact.class).setParameter("email", email);
+        return query.setMaxResults(1).getResultList().stream().findFirst();
     }
 
     /**
-     * <p>Returns a list of Contact objects, specified by a String firstName.<p/>
+     * <p>Returns the id of the Contact using the given email, if any, e.g. to check that an email address is unique.
+     * Only the id is read, from the unique index on the email address, and no Contact is loaded.</p>
      *
-     * @param firstName The firstName field of the Contacts to be returned
-     * @return The Contacts with the specified firstName
+     * @param email The email address to look up
+     * @return The id of the Contact with the specified email
      */
-    List<Contact> findAllByFirstName(String firstName) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Contact> criteria = cb.createQuery(Contact.class);
-        Root<Contact> contact = criteria.from(Contact.class);
-        // Swap criteria statements if you would like to try out type-safe criteria queries, a new feature in JPA 2.0.
-        // criteria.select(contact).where(cb.equal(contact.get(Contact_.firstName), firstName));
-        criteria.select(contact).where(cb.equal(contact.get("firstName"), firstName));
-        return em.createQuery(criteria).getResultList();
+    Optional<Long> findIdByEmail(String email) {
+        TypedQuery<Long> query = em.createNamedQuery(Contact.FIND_ID_BY_EMAIL, Long.class).setParameter("email", email);
+        return query.setMaxResults(1).getResultList().stream().findFirst();
+    }
+
+    /**
+     * <p>Returns the Contact objects with the given ids, in no particular order.</p>
+     *
+     * @param ids The ids of the Contacts to be returned
+     * @return The Contacts found
+     */
+    @ReadOnly
+    List<Contact> findAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return routing.entityManager().createNamedQuery(Contact.FIND_ALL_BY_IDS, Contact.class).setParameter("ids", ids).getResultList();
     }
 
     /**
-     * <p>Returns a single Contact object, specified by a String lastName.<p/>
+     * <p>Returns the Contact objects matching all the criteria given in a {@link ContactSearch}, all of them or one
+     * page of them.</p>
      *
-     * @param lastName The lastName field of the Contacts to be returned
-     * @return The Contacts with the specified lastName
+     * <p>Names are compared with the lower-cased search key columns of {@link Contact}, which are indexed, so the
+     * cost of a search grows with the number of matching Contacts rather than with the size of the table.</p>
+     *
+     * @param search The criteria the Contacts must match, and the page to return
+     * @return The matching Contacts, sorted by last name then first name
      */
-    List<Contact> findAllByLastName(String lastName) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+    @ReadOnly
+    List<Contact> search(ContactSearch search) {
+        CriteriaBuilder cb = routing.entityManager().getCriteriaBuilder();
         CriteriaQuery<Contact> criteria = cb.createQuery(Contact.class);
         Root<Contact> contact = criteria.from(Contact.class);
-        // Swap criteria statements if you would like to try out type-safe criteria queries, a new feature in JPA 2.0.
-       //  criteria.select(contact).where(cb.equal(contact.get(Contact_.lastName), lastName));
-        criteria.select(contact).where(cb.equal(contact.get("lastName"), lastName));
-        return em.createQuery(criteria).getResultList();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (search.getFirstName() != null) {
+            predicates.add(matches(cb, contact.get("firstNameKey"), search.getFirstName(), search.isPrefix()));
+        }
+        if (search.getLastName() != null) {
+            predicates.add(matches(cb, contact.get("lastNameKey"), search.getLastName(), search.isPrefix()));
+        }
+
+        criteria.select(contact)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(contact.get("lastNameKey")), cb.asc(contact.get("firstNameKey")), cb.asc(contact.get("id")));
+
+        TypedQuery<Contact> query = routing.entityManager().createQuery(criteria);
+        if (search.isPaged()) {
+            query.setFirstResult(search.getPage() * search.getSize()).setMaxResults(search.getSize());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Exact or prefix match of a name against one of the search key columns. A prefix is matched with LIKE, its
+     * wildcards escaped. H2, and PostgreSQL through the varchar_pattern_ops indexes of the key columns (see the
+     * PostgreSQL migrations), turn it into an index range whatever the collation of the database.
+     * */
+    private static Predicate matches(CriteriaBuilder cb, Path<String> key, String name, boolean prefix) {
+        String value = Contact.searchKey(name);
+        if (!prefix) {
+            return cb.equal(key, value);
+        }
+        return cb.like(key, escapeLike(value) + "%", LIKE_ESCAPE);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
     }
 
     /**
@@ -122,23 +193,42 @@ public class ContactRepository {
     /**
      * <p>Updates an existing Contact object in the application database with the provided Contact object.</p>
      *
-     * <p>{@link javax.persistence.EntityManager#merge(Object) merge(Object)} creates a new instance of your entity,
-     * copies the state from the supplied entity, and makes the new copy managed. The instance you pass in will not be
-     * managed (any changes you make will not be part of the transaction - unless you call merge again).</p>
+     * <p>The state of the provided Contact is copied field by field onto the managed instance, so that only the
+     * fields that really change are marked dirty, and only their columns are written (see @DynamicUpdate on
+     * {@link Contact}). {@link javax.persistence.EntityManager#merge(Object) merge(Object)} would mark every field set
+     * on the provided instance as dirty. It is still used when the Contact can't be found.</p>
      *
-     * <p>merge(Object) however must have an object with the @Id already generated.</p>
+     * <p>The change is flushed straight away, so that a concurrent update of the same Contact (detected through its
+     * @Version) is reported here rather than at commit.</p>
      *
-     * @param contact The Contact object to be merged with an existing Contact
-     * @return The Contact that has been merged
+     * @param contact The Contact object holding the new state of an existing Contact
+     * @return The managed Contact that has been updated, with its new version
      * @throws ConstraintViolationException, ValidationException, Exception
+     * @throws OptimisticLockException If the Contact has been changed since the version of the provided Contact
      */
     Contact update(Contact contact) throws Exception {
         log.info("ContactRepository.update() - Updating " + contact.getFirstName() + " " + contact.getLastName());
 
-        // Either update the contact or add it if it can't be found.
-        em.merge(contact);
+        Contact managed = em.find(Contact.class, contact.getId());
+        if (managed == null) {
+            // Add it if it can't be found.
+            return em.merge(contact);
+        }
+
+        if (contact.getVersion() != null && !contact.getVersion().equals(managed.getVersion())) {
+            throw new OptimisticLockException("Contact " + contact.getId() + " is at version " + managed.getVersion()
+                    + ", not " + contact.getVersion(), null, managed);
+        }
+
+        managed.setFirstName(contact.getFirstName());
+        managed.setLastName(contact.getLastName());
+        managed.setEmail(contact.getEmail());
+        managed.setPhoneNumber(contact.getPhoneNumber());
+        managed.setBirthDate(contact.getBirthDate());
+        managed.setState(contact.getState());
+        em.flush();
 
-        return contact;
+        return managed;
     }
 
     /**
@@ -7,16 +7,21 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.jboss.resteasy.reactive.Cache;
 import uk.ac.newcastle.enterprisemiddleware.area.InvalidAreaCodeException;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.persistence.NoResultException;
+import javax.persistence.OptimisticLockException;
 import javax.transaction.Transactional;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.List;
@@ -53,31 +58,48 @@ public class ContactRestService {
     ContactService service;
 
     /**
-     * <p>Return all the Contacts.  They are sorted alphabetically by name.</p>
+     * <p>Return the Contacts.  They are sorted alphabetically by name.</p>
      *
-     * <p>The url may optionally include query parameters specifying a Contact's name</p>
+     * <p>The url may optionally include query parameters specifying a Contact's name. Names are matched ignoring case,
+     * and as prefixes when <code>prefix=true</code>. Both names are searched in a single query.</p>
      *
-     * <p>Examples: <pre>GET api/contacts?firstname=John</pre>, <pre>GET api/contacts?firstname=John&lastname=Smith</pre></p>
+     * <p>Examples: <pre>GET api/contacts?firstname=John</pre>, <pre>GET api/contacts?firstname=John&lastname=Smith</pre>,
+     * <pre>GET api/contacts?lastname=Sm&prefix=true&page=1&size=20</pre></p>
+     *
+     * <p>All the matching Contacts are returned unless <code>page</code> or <code>size</code> is given, in which case
+     * they are returned one page at a time (<code>size</code> defaults to 100, and may be at most 500).</p>
+     *
+     * <p>With the <code>search</code> query parameter, Contacts are found by free text instead, tolerating typos,
+     * prefixes and spelling variants, best matches first: <pre>GET api/contacts?search=jon+smyth</pre></p>
      *
      * @return A Response containing a list of Contacts
      */
     @GET
     @Operation(summary = "Fetch all Contacts", description = "Returns a JSON array of all stored Contact objects.", hidden = true)
-    public Response retrieveAllContacts(@QueryParam("firstname") String firstname, @QueryParam("lastname") String lastname) {
-        //Create an empty collection to contain the intersection of Contacts to be returned
-        List<Contact> contacts;
-
-        if(firstname == null && lastname == null) {
-            contacts = service.findAllOrderedByName();
-        } else if(lastname == null) {
-            contacts = service.findAllByFirstName(firstname);
-        } else if(firstname == null) {
-            contacts = service.findAllByLastName(lastname);
-        } else {
-            contacts = service.findAllByFirstName(firstname);
-            contacts.retainAll(service.findAllByLastName(lastname));
+    public Response retrieveAllContacts(@QueryParam("firstname") String firstname,
+                                        @QueryParam("lastname") String lastname,
+                                        @QueryParam("prefix") boolean prefix,
+                                        @QueryParam("search") String search,
+                                        @QueryParam("page") Integer page,
+                                        @QueryParam("size") Integer size) {
+        if ((page != null && page < 0) || (size != null && (size < 1 || size > ContactSearch.MAX_PAGE_SIZE))) {
+            throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
         }
 
+        ContactSearch criteria = new ContactSearch();
+        criteria.setFirstName(firstname);
+        criteria.setLastName(lastname);
+        criteria.setPrefix(prefix);
+        criteria.setPage(page);
+        criteria.setSize(size);
+
+        if (search != null) {
+            int offset = criteria.getPage() * criteria.getSize();
+            return Response.ok(service.search(search, offset, criteria.getSize())).build();
+        }
+
+        List<Contact> contacts = service.search(criteria);
+
         return Response.ok(contacts).build();
     }
 
@@ -108,13 +130,9 @@ public class ContactRestService {
             @PathParam("email")
             String email) {
 
-        Contact contact;
-        try {
-            contact = service.findByEmail(email);
-        } catch (NoResultException e) {
-            // Verify that the contact exists. Return 404, if not present.
-            throw new RestServiceException("No Contact with the email " + email + " was found!", Response.Status.NOT_FOUND);
-        }
+        // Verify that the contact exists. Return 404, if not present.
+        Contact contact = service.findByEmail(email).orElseThrow(() ->
+                new RestServiceException("No Contact with the email " + email + " was found!", Response.Status.NOT_FOUND));
         return Response.ok(contact).build();
     }
 
@@ -140,7 +158,8 @@ public class ContactRestService {
             @Parameter(description = "Id of Contact to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
+            long id,
+            @Context Request request) {
 
         Contact contact = service.findById(id);
         if (contact == null) {
@@ -149,7 +168,12 @@ public class ContactRestService {
         }
         log.info("findById " + id + ": found Contact = " + contact);
 
-        return Response.ok(contact).build();
+        EntityTag tag = EntityTags.of(contact.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(contact).tag(tag).build();
     }
 
     /**
@@ -225,6 +249,7 @@ public class ContactRestService {
      * @param contact The Contact object, constructed automatically from JSON input, to be <i>updated</i> via
      * {@link ContactService#update(Contact)}
      * @param id The long parameter value provided as the id of the Contact to be updated
+     * @param ifMatch Optional ETag of the Contact, as returned by a previous GET
      * @return A Response indicating the outcome of the create operation
      */
     @PUT
@@ -234,7 +259,8 @@ public class ContactRestService {
             @APIResponse(responseCode = "200", description = "Contact updated successfully"),
             @APIResponse(responseCode = "400", description = "Invalid Contact supplied in request body"),
             @APIResponse(responseCode = "404", description = "Contact with id not found"),
-            @APIResponse(responseCode = "409", description = "Contact details supplied in request body conflict with another existing Contact"),
+            @APIResponse(responseCode = "409", description = "Contact details supplied in request body conflict with another existing Contact, or with a concurrent update"),
+            @APIResponse(responseCode = "412", description = "Contact modified since the ETag given in If-Match"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
     @Transactional
@@ -244,12 +270,77 @@ public class ContactRestService {
             @PathParam("id")
             long id,
             @Parameter(description = "JSON representation of Contact object to be updated in the database", required = true)
-            Contact contact) {
+            Contact contact,
+            @Parameter(description = "ETag of the Contact as last read; the update is refused if it has changed since")
+            @HeaderParam(HttpHeaders.IF_MATCH)
+            String ifMatch,
+            @Context Request request) {
 
         if (contact == null || contact.getId() == null) {
             throw new RestServiceException("Invalid Contact supplied in request body", Response.Status.BAD_REQUEST);
         }
 
+        Contact current = findForUpdate(id, contact, request);
+        if (ifMatch != null || contact.getVersion() == null) {
+            // Checked above, or not checked at all by the client: update the current version. Otherwise the version
+            // supplied in the body is checked against the current one when merging.
+            contact.setVersion(current.getVersion());
+        }
+
+        return update(contact);
+    }
+
+    /**
+     * <p>Updates only the fields given in the request body of the contact with the ID provided. Fields that are absent
+     * or null are left unchanged, and only the changed columns are written.</p>
+     *
+     * <p>Will return a JAX-RS response with either 200 (ok), or with a map of fields, and related errors.</p>
+     *
+     * @param changes The fields to change, constructed automatically from JSON input
+     * @param id The long parameter value provided as the id of the Contact to be updated
+     * @param ifMatch Optional ETag of the Contact, as returned by a previous GET
+     * @return A Response indicating the outcome of the update operation
+     */
+    @PATCH
+    @Path("/{id:[0-9]+}")
+    @Operation(description = "Update some fields of a Contact in the database", hidden = true)
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Contact updated successfully"),
+            @APIResponse(responseCode = "400", description = "Invalid Contact fields supplied in request body"),
+            @APIResponse(responseCode = "404", description = "Contact with id not found"),
+            @APIResponse(responseCode = "409", description = "Contact details supplied in request body conflict with another existing Contact, or with a concurrent update"),
+            @APIResponse(responseCode = "412", description = "Contact modified since the ETag given in If-Match"),
+            @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
+    })
+    @Transactional
+    public Response patchContact(
+            @Parameter(description=  "Id of Contact to be updated", required = true)
+            @Schema(minimum = "0")
+            @PathParam("id")
+            long id,
+            @Parameter(description = "JSON object holding the Contact fields to be changed", required = true)
+            Contact changes,
+            @Parameter(description = "ETag of the Contact as last read; the update is refused if it has changed since")
+            @HeaderParam(HttpHeaders.IF_MATCH)
+            String ifMatch,
+            @Context Request request) {
+
+        if (changes == null) {
+            throw new RestServiceException("Invalid Contact supplied in request body", Response.Status.BAD_REQUEST);
+        }
+
+        Contact current = findForUpdate(id, changes, request);
+        if (ifMatch != null) {
+            changes.setVersion(current.getVersion());
+        }
+
+        return update(service.withChanges(current, changes));
+    }
+
+    /**
+     * Loads the Contact about to be updated, checking the id of the request body and the If-Match precondition
+     * */
+    private Contact findForUpdate(long id, Contact contact, Request request) {
         if (contact.getId() != null && contact.getId() != id) {
             // The client attempted to update the read-only Id. This is not permitted.
             Map<String, String> responseObj = new HashMap<>();
@@ -258,20 +349,29 @@ public class ContactRestService {
                     responseObj, Response.Status.CONFLICT);
         }
 
-        if (service.findById(contact.getId()) == null) {
+        Contact current = service.findById(id);
+        if (current == null) {
             // Verify that the contact exists. Return 404, if not present.
             throw new RestServiceException("No Contact with the id " + id + " was found!", Response.Status.NOT_FOUND);
         }
 
-        Response.ResponseBuilder builder;
+        if (request.evaluatePreconditions(EntityTags.of(current.getVersion())) != null) {
+            // The Contact has changed since the client read it (If-Match).
+            throw new RestServiceException("The Contact has been modified since it was last read",
+                    Response.Status.PRECONDITION_FAILED);
+        }
+        return current;
+    }
+
+    /**
+     * Applies an update, mapping the failures to the matching error responses
+     * */
+    private Response update(Contact contact) {
+        Contact updated;
 
         try {
             // Apply the changes the Contact.
-            service.update(contact);
-
-            // Create an OK Response and pass the contact back in case it is needed.
-            builder = Response.ok(contact);
-
+            updated = service.update(contact);
 
         } catch (ConstraintViolationException ce) {
             //Handle bean validation issues
@@ -291,13 +391,20 @@ public class ContactRestService {
             Map<String, String> responseObj = new HashMap<>();
             responseObj.put("area_code", "The telephone area code provided is not recognised, please provide another");
             throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, e);
+        } catch (OptimisticLockException e) {
+            // Another update of the Contact got in first.
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("version", "The Contact has been modified since it was last read, please reload it");
+            throw new RestServiceException("Contact details supplied in request body conflict with another update",
+                    responseObj, Response.Status.CONFLICT, e);
         } catch (Exception e) {
             // Handle generic exceptions
             throw new RestServiceException(e);
         }
 
-        log.info("updateContact completed. Contact = " + contact);
-        return builder.build();
+        log.info("updateContact completed. Contact = " + updated);
+        // Create an OK Response and pass the contact back in case it is needed.
+        return Response.ok(updated).tag(EntityTags.of(updated.getVersion())).build();
     }
 
     /**
@@ -0,0 +1,84 @@
+package uk.ac.newcastle.enterprisemiddleware.contact;
+
+/**
+ * <p>Criteria for {@link ContactRepository#search(ContactSearch)}.</p>
+ *
+ * <p>Criteria left null are not part of the query, so any combination of first and last name can be searched in a
+ * single query. Names are matched case-insensitively, either exactly or as a prefix, and the results are sorted by last
+ * name then first name. They are returned one page at a time if a page or a size is set, all at once otherwise.</p>
+ *
+ * @see ContactRepository
+ */
+public class ContactSearch {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private String firstName;
+
+    private String lastName;
+
+    private boolean prefix;
+
+    private Integer page;
+
+    private Integer size;
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public boolean isPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(boolean prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * @return true if only one page of the results is wanted
+     */
+    public boolean isPaged() {
+        return page != null || size != null;
+    }
+
+    public int getPage() {
+        return page == null ? 0 : page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size == null ? DEFAULT_PAGE_SIZE : size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "{ firstName = " + firstName
+                + ", lastName = " + lastName
+                + ", prefix = " + prefix
+                + ", page = " + page
+                + ", size = " + size + " }";
+    }
+}
@@ -5,6 +5,7 @@ import org.eclipse.microprofile.rest.client.inject.RestClient;
 import uk.ac.newcastle.enterprisemiddleware.area.Area;
 import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
 import uk.ac.newcastle.enterprisemiddleware.area.InvalidAreaCodeException;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexes;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
@@ -13,6 +14,7 @@ import javax.validation.ConstraintViolationException;
 import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.core.Response;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -42,6 +44,9 @@ public class ContactService {
     @Inject
     ContactRepository crud;
 
+    @Inject
+    SearchIndexes searchIndexes;
+
     //Removed temporarily due to non-existing AreaService
     @RestClient
     AreaService areaService;
@@ -71,30 +76,35 @@ public class ContactService {
      * <p>If there is more than one Contact with the specified email, only the first encountered will be returned.<p/>
      *
      * @param email The email field of the Contact to be returned
-     * @return The first Contact with the specified email
+     * @return The first Contact with the specified email, if any
      */
-    Contact findByEmail(String email) {
+    Optional<Contact> findByEmail(String email) {
         return crud.findByEmail(email);
     }
 
     /**
-     * <p>Returns a single Contact object, specified by a String firstName.<p/>
+     * <p>Returns the Contact objects matching all the criteria given in a {@link ContactSearch}, all of them or one
+     * page of them.<p/>
      *
-     * @param firstName The firstName field of the Contact to be returned
-     * @return The first Contact with the specified firstName
+     * @param search The criteria the Contacts must match, and the page to return
+     * @return The matching Contacts, sorted by last name then first name
      */
-    List<Contact> findAllByFirstName(String firstName) {
-        return crud.findAllByFirstName(firstName);
+    List<Contact> search(ContactSearch search) {
+        return crud.search(search);
     }
 
     /**
-     * <p>Returns a single Contact object, specified by a String lastName.<p/>
+     * <p>Returns the Contact objects best matching a free text query, tolerating typos, prefixes and spelling
+     * variants.<p/>
      *
-     * @param lastName The lastName field of the Contacts to be returned
-     * @return The Contacts with the specified lastName
+     * @param query The text to search for
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of Contacts to return
+     * @return List of Contact objects, best matches first
      */
-    List<Contact> findAllByLastName(String lastName) {
-        return crud.findAllByLastName(lastName);
+    List<Contact> search(String query, int offset, int limit) {
+        List<Long> ids = searchIndexes.search(Contact.class, query, offset, limit);
+        return SearchIndexes.inOrder(ids, crud.findAllByIds(ids));
     }
 
     /**
@@ -134,27 +144,36 @@ public class ContactService {
     /**
      * <p>Updates an existing Contact object in the application database with the provided Contact object.<p/>
      *
-     * <p>Validates the data in the provided Contact object using a ContactValidator object.<p/>
+     * <p>Validates the data in the provided Contact object using a ContactValidator object. The email uniqueness query
+     * and the AreaService lookup are skipped when the email address, respectively the phone number, are unchanged.<p/>
      *
      * @param contact The Contact object to be passed as an update to the application database
      * @return The Contact object that has been successfully updated in the application database
      * @throws ConstraintViolationException, ValidationException, Exception
+     * @throws javax.persistence.OptimisticLockException If the version of the Contact is not the stored one
      */
     Contact update(Contact contact) throws Exception {
         log.info("ContactService.update() - Updating " + contact.getFirstName() + " " + contact.getLastName());
 
+        Contact stored = crud.findById(contact.getId());
+
         // Check to make sure the data fits with the parameters in the Contact model and passes validation.
-        validator.validateContact(contact);
+        validator.validateContact(contact, stored);
 
-        try {
-            //Removed temporarily due to non-existing AreaService
-            Area area = areaService.getAreaById(Integer.parseInt(contact.getPhoneNumber().substring(1, 4)));
-            contact.setState(area.getState());
-        } catch (ClientErrorException e) {
-            if (e.getResponse().getStatusInfo() == Response.Status.NOT_FOUND) {
-                throw new InvalidAreaCodeException("The area code provided does not exist", e);
-            } else {
-                throw e;
+        if (stored != null && stored.getPhoneNumber().equals(contact.getPhoneNumber())) {
+            // Same phone number, same area code: the state is already known.
+            contact.setState(stored.getState());
+        } else {
+            try {
+                //Removed temporarily due to non-existing AreaService
+                Area area = areaService.getAreaById(Integer.parseInt(contact.getPhoneNumber().substring(1, 4)));
+                contact.setState(area.getState());
+            } catch (ClientErrorException e) {
+                if (e.getResponse().getStatusInfo() == Response.Status.NOT_FOUND) {
+                    throw new InvalidAreaCodeException("The area code provided does not exist", e);
+                } else {
+                    throw e;
+                }
             }
         }
 
@@ -162,6 +181,27 @@ public class ContactService {
         return crud.update(contact);
     }
 
+    /**
+     * <p>Returns a detached copy of a stored Contact, with the non-null fields of a partial Contact applied, ready to
+     * be passed to {@link #update(Contact)}.<p/>
+     *
+     * @param stored The Contact as currently stored
+     * @param changes The fields to change; null fields are left as stored
+     * @return The Contact to update
+     */
+    Contact withChanges(Contact stored, Contact changes) {
+        Contact contact = new Contact();
+        contact.setId(stored.getId());
+        contact.setVersion(changes.getVersion() != null ? changes.getVersion() : stored.getVersion());
+        contact.setFirstName(changes.getFirstName() != null ? changes.getFirstName() : stored.getFirstName());
+        contact.setLastName(changes.getLastName() != null ? changes.getLastName() : stored.getLastName());
+        contact.setEmail(changes.getEmail() != null ? changes.getEmail() : stored.getEmail());
+        contact.setPhoneNumber(changes.getPhoneNumber() != null ? changes.getPhoneNumber() : stored.getPhoneNumber());
+        contact.setBirthDate(changes.getBirthDate() != null ? changes.getBirthDate() : stored.getBirthDate());
+        contact.setState(stored.getState());
+        return contact;
+    }
+
     /**
      * <p>Deletes the provided Contact object from the application database if found there.<p/>
      *
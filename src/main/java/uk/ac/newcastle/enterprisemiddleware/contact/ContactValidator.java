@@ -1,14 +1,12 @@
 package uk.ac.newcastle.enterprisemiddleware.contact;
 
+import uk.ac.newcastle.enterprisemiddleware.util.BeanValidation;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.persistence.NoResultException;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * <p>This class provides methods to check Contact objects against arbitrary requirements.</p>
@@ -40,15 +38,25 @@ public class ContactValidator {
      * @throws ValidationException If contact with the same email already exists
      */
     void validateContact(Contact contact) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-        Set<ConstraintViolation<Contact>> violations = validator.validate(contact);
+        validateContact(contact, null);
+    }
 
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
-        }
+    /**
+     * <p>Validates a change to a stored Contact. The uniqueness of the email address is only checked (with a query)
+     * when the email address is being changed.</p>
+     *
+     * @param contact The Contact object to be validated
+     * @param stored The Contact as currently stored, or null for a new Contact
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     * @throws ValidationException If contact with the same email already exists
+     */
+    void validateContact(Contact contact, Contact stored) throws ConstraintViolationException, ValidationException {
+        // Create a bean validator and check for issues.
+        BeanValidation.validate(validator, contact);
 
-        // Check the uniqueness of the email address
-        if (emailAlreadyExists(contact.getEmail(), contact.getId())) {
+        // Check the uniqueness of the email address, unless it is unchanged
+        boolean emailChanged = stored == null || !stored.getEmail().equals(contact.getEmail());
+        if (emailChanged && emailAlreadyExists(contact.getEmail(), contact.getId())) {
             throw new UniqueEmailException("Unique Email Violation");
         }
     }
@@ -65,25 +73,8 @@ public class ContactValidator {
      * @return boolean which represents whether the email was found, and if so if it belongs to the user with id
      */
     boolean emailAlreadyExists(String email, Long id) {
-        Contact contact = null;
-        Contact contactWithID = null;
-        try {
-            contact = crud.findByEmail(email);
-        } catch (NoResultException e) {
-            // ignore
-        }
-
-        if (contact != null && id != null) {
-            try {
-                contactWithID = crud.findById(id);
-                if (contactWithID != null && contactWithID.getEmail().equals(email)) {
-                    contact = null;
-                }
-            } catch (NoResultException e) {
-                // ignore
-            }
-        }
-        return contact != null;
+        // Only the id of the owner is read: an unused email address is an empty result, not an exception
+        return crud.findIdByEmail(email).filter(owner -> !owner.equals(id)).isPresent();
     }
 }
 
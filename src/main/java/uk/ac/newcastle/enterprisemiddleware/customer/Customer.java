@@ -1,7 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.cluster.CachedEntityListener;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexListener;
+import uk.ac.newcastle.enterprisemiddleware.search.Searchable;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -18,20 +25,37 @@ import java.util.Set;
 */
 
 @Entity
+@EntityListeners({SearchIndexListener.class, CachedEntityListener.class})
+@Cacheable
 @NamedQueries({
         @NamedQuery(name = Customer.FIND_ALL, query = "SELECT c FROM Customer c ORDER BY c.lastName ASC, c.firstName ASC"),
-        @NamedQuery(name = Customer.FIND_BY_EMAIL, query = "SELECT c FROM Customer c WHERE c.email = :email")
+        @NamedQuery(name = Customer.FIND_BY_EMAIL, query = "SELECT c FROM Customer c WHERE c.email = :email"),
+        @NamedQuery(name = Customer.FIND_ID_BY_EMAIL, query = "SELECT c.id FROM Customer c WHERE c.email = :email"),
+        @NamedQuery(name = Customer.FIND_ALL_BY_IDS, query = "SELECT c FROM Customer c WHERE c.id IN :ids"),
+        @NamedQuery(name = Customer.FIND_EMAILS_IN, query = "SELECT c.email FROM Customer c WHERE c.email IN :emails"),
+        @NamedQuery(name = Customer.FIND_ROWS_AFTER_ID, query = "SELECT c.id, c.firstName, c.lastName, c.email, c.phoneNumber FROM Customer c WHERE c.id > :after ORDER BY c.id")
 })
-@Table(name = "customer", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
-public class Customer implements Serializable {
+@Table(name = "customer", uniqueConstraints = @UniqueConstraint(columnNames = "email"),
+        indexes = @Index(name = "idx_customer_last_name_first_name", columnList = "last_name, first_name"))
+public class Customer implements Serializable, Searchable {
     public static final String FIND_ALL = "Customer.findAll";
+    public static final String FIND_ALL_BY_IDS = "Customer.findAllByIds";
     public static final String FIND_BY_EMAIL = "Customer.findByEmail";
+    public static final String FIND_ID_BY_EMAIL = "Customer.findIdByEmail";
+    public static final String FIND_EMAILS_IN = "Customer.findEmailsIn";
+    public static final String FIND_ROWS_AFTER_ID = "Customer.findRowsAfterId";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @GenericGenerator(name = "customer_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "customer_seq"))
     @Column(name = "id", nullable = false)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Size(min = 1, max = 25)
     @Pattern(regexp = "[A-Za-z-']+", message = "Please use a name without numbers or specials")
@@ -55,7 +79,7 @@ public class Customer implements Serializable {
     private String phoneNumber;
 
     @JsonIgnore
-    @OneToMany(mappedBy = "customer", cascade = {CascadeType.MERGE, CascadeType.REMOVE})
+    @OneToMany(mappedBy = "customer")
     private Set<Booking> bookings = new HashSet<>();
 
     public Long getId() {
@@ -66,6 +90,14 @@ public class Customer implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -114,6 +146,11 @@ public class Customer implements Serializable {
         this.phoneNumber = customer.phoneNumber;
     }
 
+    @Override
+    public String searchText() {
+        return firstName + " " + lastName;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
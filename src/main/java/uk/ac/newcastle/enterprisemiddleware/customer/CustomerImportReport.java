@@ -0,0 +1,94 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The outcome of a bulk import of customers: totals, and the result of every row of the file.</p>
+ */
+public class CustomerImportReport {
+
+    /**
+     * What became of a row of the file
+     */
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private final List<Row> rows = new ArrayList<>();
+
+    void add(Row row) {
+        rows.add(row);
+        switch (row.getStatus()) {
+            case CREATED:
+                created++;
+                break;
+            case DUPLICATE:
+                duplicates++;
+                break;
+            default:
+                invalid++;
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    /**
+     * <p>The result of a row: the id of the new customer when it was created, the reasons when it was rejected.</p>
+     */
+    public static class Row {
+        private final int line;
+        private final String email;
+        private final Status status;
+        private final Long id;
+        private final Map<String, String> reasons;
+
+        Row(int line, String email, Status status, Long id, Map<String, String> reasons) {
+            this.line = line;
+            this.email = email;
+            this.status = status;
+            this.id = id;
+            this.reasons = reasons;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Map<String, String> getReasons() {
+            return reasons;
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.transaction.Transactional;
 import javax.validation.ConstraintViolationException;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -20,6 +33,15 @@ import java.util.logging.Logger;
  * */
 @RequestScoped
 public class CustomerRepository {
+    private static final String INSERT_IF_ABSENT_POSTGRESQL = "INSERT INTO customer (id, version, first_name, last_name,"
+            + " email, phone_number) VALUES (?, 0, ?, ?, ?, ?) ON CONFLICT (email) DO NOTHING";
+    private static final String INSERT_IF_ABSENT_H2 = "MERGE INTO customer c USING (VALUES (CAST(? AS BIGINT),"
+            + " CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255))))"
+            + " n (id, first_name, last_name, email, phone_number) ON c.email = n.email WHEN NOT MATCHED THEN"
+            + " INSERT (id, version, first_name, last_name, email, phone_number)"
+            + " VALUES (n.id, 0, n.first_name, n.last_name, n.email, n.phone_number)";
+    private static final String UNIQUE_VIOLATION = "23505";
+
     @Inject
     @Named("logger")
     Logger log;
@@ -27,28 +49,56 @@ public class CustomerRepository {
     @Inject
     EntityManager em;
 
+    @Inject
+    ReadRouting routing;
+
     /**
      * <p>Returns a List of all persisted {@link Customer} objects, sorted alphabetically by last name.</p>
      *
      * @return List of Customer objects
      */
+    @ReadOnly
     List<Customer> findAllOrderedByName() {
-        TypedQuery<Customer> query = em.createNamedQuery(Customer.FIND_ALL, Customer.class);
+        TypedQuery<Customer> query = routing.entityManager().createNamedQuery(Customer.FIND_ALL, Customer.class);
         return query.getResultList();
     }
 
     /**
      * <p>Returns a list of Customer objects, specified by a String name.<p/>
      *
-     * @param name The name field of the Customers to be returned
+     * <p>A name made of several words is matched as first name followed by last name, a single word is matched
+     * against the last name. Both use the (last_name, first_name) index.</p>
+     *
+     * @param name The name of the Customers to be returned
      * @return The Customers with the specified name
      */
+    @ReadOnly
     List<Customer> findAllByName(String name) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaBuilder cb = routing.entityManager().getCriteriaBuilder();
         CriteriaQuery<Customer> criteria = cb.createQuery(Customer.class);
         Root<Customer> customer = criteria.from(Customer.class);
-        criteria.select(customer).where(cb.equal(customer.get("name"), name));
-        return em.createQuery(criteria).getResultList();
+        String[] names = name.trim().split("\\s+", 2);
+        if (names.length == 2) {
+            criteria.select(customer).where(cb.equal(customer.get("lastName"), names[1]),
+                    cb.equal(customer.get("firstName"), names[0]));
+        } else {
+            criteria.select(customer).where(cb.equal(customer.get("lastName"), names[0]));
+        }
+        return routing.entityManager().createQuery(criteria).getResultList();
+    }
+
+    /**
+     * <p>Returns the Customer objects with the given ids, in no particular order.</p>
+     *
+     * @param ids The ids of the Customers to be returned
+     * @return The Customers found
+     */
+    @ReadOnly
+    List<Customer> findAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return routing.entityManager().createNamedQuery(Customer.FIND_ALL_BY_IDS, Customer.class).setParameter("ids", ids).getResultList();
     }
 
     /**
@@ -57,29 +107,38 @@ public class CustomerRepository {
      * @param id The id of the Customer to be returned
      * @return The Customer with the specified id
      */
+    @ReadOnly
     Customer findById(Long id) {
-        return em.find(Customer.class, id);
+        return routing.entityManager().find(Customer.class, id);
     }
 
     /**
      * <p>Returns a Customer object, specified by a String email.</p>
      *
-     * <p>If there is more than one Customer with the specified email, only the first encountered will be returned.<p/>
+     * <p>If there is more than one Customer with the specified email, only the first encountered will be returned. An
+     * unknown email is an ordinary outcome, returned as an empty Optional rather than thrown.<p/>
      *
      * @param email The email field of the Customer to be returned
-     * @return The first Customer with the specified email
+     * @return The first Customer with the specified email, if any
      */
-    Customer findByEmail(String email) {
-        Customer result = null;
-        try {
-            TypedQuery<Customer> query = em.createNamedQuery(Customer.FIND_BY_EMAIL, Customer.class).setParameter("email", email);
-            result = query.getSingleResult();
-        } catch (Exception e) {
-            log.info("FIND_BY_EMAIL: No Results found!");
-        }
+    @ReadOnly
+    Optional<Customer> findByEmail(String email) {
+        TypedQuery<Customer> query = routing.entityManager().createNamedQuery(Customer.FIND_BY_EMAIL, Customer.class).setParameter("email", email);
+        return query.setMaxResults(1).getResultList().stream().findFirst();
+    }
 
-        return result;
+    /**
+     * <p>Returns the id of the Customer using the given email, if any, e.g. to check that an email address is unique.
+     * Only the id is read, from the unique index on the email address, and no Customer is loaded.</p>
+     *
+     * @param email The email address to look up
+     * @return The id of the Customer with the specified email
+     */
+    Optional<Long> findIdByEmail(String email) {
+        TypedQuery<Long> query = em.createNamedQuery(Customer.FIND_ID_BY_EMAIL, Long.class).setParameter("email", email);
+        return query.setMaxResults(1).getResultList().stream().findFirst();
     }
+
     /**
      * <p>Persists the Customer object to the application database using the EntityManager.</
      *
@@ -96,6 +155,134 @@ public class CustomerRepository {
         return customer;
     }
 
+    /**
+     * <p>Inserts a customer as part of the current transaction unless its email address is already used, with the
+     * upsert of the database: INSERT ... ON CONFLICT DO NOTHING on PostgreSQL, MERGE ... WHEN NOT MATCHED on H2. An
+     * insert of the same email address by a concurrent transaction is waited for, and once it has committed nothing is
+     * inserted; the current transaction carries on either way.</p>
+     *
+     * <p>H2 reports the insert of a concurrent transaction as a unique constraint violation of the statement alone,
+     * which leaves the transaction usable, so it is taken as nothing inserted. The statement runs on the JDBC
+     * connection of the EntityManager, so the customer does not become managed and no entity listener is called.</p>
+     *
+     * @param customer The Customer object to be inserted, with valid fields
+     * @return true if the customer was inserted, false if its email address was already used
+     */
+    boolean insertIfAbsent(Customer customer) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        Serializable id = session.getEntityPersister(null, customer).getIdentifierGenerator().generate(session, customer);
+        boolean postgresql = session.getJdbcServices().getDialect() instanceof PostgreSQL81Dialect;
+        boolean inserted = session.doReturningWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(postgresql ? INSERT_IF_ABSENT_POSTGRESQL
+                    : INSERT_IF_ABSENT_H2)) {
+                insert.setLong(1, (Long) id);
+                insert.setString(2, customer.getFirstName());
+                insert.setString(3, customer.getLastName());
+                insert.setString(4, customer.getEmail());
+                insert.setString(5, customer.getPhoneNumber());
+                return insert.executeUpdate() == 1;
+            } catch (SQLException e) {
+                if (postgresql || !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                return false;
+            }
+        });
+        log.info("CustomerRepository.insertIfAbsent() - " + (inserted ? "Created " : "Email already used ")
+                + customer.getEmail());
+        return inserted;
+    }
+
+    /**
+     * <p>Returns the Customer with the given email address from the primary database, e.g. right after
+     * {@link #insertIfAbsent(Customer)} in the same transaction.</p>
+     *
+     * @param email The email address of the Customer to be returned
+     * @return The Customer with the specified email, if any
+     */
+    Optional<Customer> findByEmailForWrite(String email) {
+        TypedQuery<Customer> query = em.createNamedQuery(Customer.FIND_BY_EMAIL, Customer.class).setParameter("email", email);
+        return query.setMaxResults(1).getResultList().stream().findFirst();
+    }
+
+    /**
+     * <p>Inserts a customer in a transaction of its own, unless its email address is already used. The unique
+     * constraint on the email address decides between concurrent inserts.</p>
+     *
+     * @param customer The Customer object to be persisted
+     * @return The Customer object that has been persisted, or null if the email address is already used
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    Customer createIfAbsent(Customer customer) {
+        try {
+            em.persist(customer);
+            em.flush();
+            log.info("CustomerRepository.createIfAbsent() - Created " + customer);
+            return customer;
+        } catch (PersistenceException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            log.info("CustomerRepository.createIfAbsent() - Email already used " + customer.getEmail());
+            return null;
+        }
+    }
+
+    /**
+     * The fields are validated before the insert, so the only constraint left to violate is the unique email address
+     * */
+    private static boolean isConstraintViolation(PersistenceException e) {
+        return e.getCause() instanceof org.hibernate.exception.ConstraintViolationException;
+    }
+
+    /**
+     * <p>Returns which of the given email addresses are already used, with one query.</p>
+     *
+     * @param emails The email addresses to look up
+     * @return The email addresses used by a Customer
+     */
+    List<String> findEmailsIn(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return em.createNamedQuery(Customer.FIND_EMAILS_IN, String.class).setParameter("emails", emails).getResultList();
+    }
+
+    /**
+     * <p>Returns the fields of the Customers following the given id, in id order, as a page of rows: (id, first name,
+     * last name, email, phone number). The rows are not managed entities, so reading page after page keeps nothing in
+     * the persistence context.</p>
+     *
+     * @param after The id of the last Customer of the previous page, or 0
+     * @param limit The maximum number of rows to return
+     * @return The rows
+     */
+    @ReadOnly
+    List<Object[]> findRowsAfterId(long after, int limit) {
+        return routing.entityManager().createNamedQuery(Customer.FIND_ROWS_AFTER_ID, Object[].class)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * <p>Inserts the given customers in a transaction of their own. With ids from a pooled sequence the inserts are
+     * sent in JDBC batches.</p>
+     *
+     * <p>The whole transaction is rolled back if one of the email addresses has been taken in the meantime.</p>
+     *
+     * @param customers The Customer objects to be persisted, with unique and unused email addresses
+     * @throws PersistenceException if an email address is already used
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    void createAll(List<Customer> customers) {
+        for (Customer customer : customers) {
+            em.persist(customer);
+        }
+        em.flush();
+        log.info("CustomerRepository.createAll() - Created " + customers.size() + " customers");
+    }
+
     /**
      * <p>Deletes the provided Customer object from the application database if found there</p>
      *
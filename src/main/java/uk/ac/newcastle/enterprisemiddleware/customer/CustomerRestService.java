@@ -1,11 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
+import io.smallrye.mutiny.Multi;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.jboss.resteasy.reactive.Cache;
+import uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryService;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 
 import javax.inject.Inject;
@@ -14,8 +17,19 @@ import javax.transaction.Transactional;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,9 +53,22 @@ public class CustomerRestService {
     @Named("logger")
     Logger log;
 
+    static final String TEXT_CSV = "text/csv";
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int MAX_ITINERARY_PAGE = 100;
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
     @Inject
     CustomerService service;
 
+    @Inject
+    ItineraryService itineraryService;
+
+    @Inject
+    CustomerTransferService transferService;
+
     /**
      * <p>Return all the Customer. They are sorted alphabetically by name.</p>
      *
@@ -49,11 +76,26 @@ public class CustomerRestService {
      *
      * <p>Examples: <pre>GET api/customer?name=Jason</pre></p>
      *
+     * <p>With the <code>search</code> query parameter, Customers are found by free text instead, tolerating typos, prefixes
+     * and spelling variants, best matches first: <pre>GET api/customer?search=jasn+smyth&page=1&size=10</pre>.
+     * The matches are returned one page at a time, as the Contacts are (<code>size</code> defaults to 20, and may be at
+     * most 500).</p>
+     *
      * @return A Response containing a list of Customer
      */
     @GET
     @Operation(summary = "Fetch all Customer", description = "Returns a JSON array of all stored Customer objects.")
-    public Response retrieveAllCustomer(@QueryParam("name") String name) {
+    public Response retrieveAllCustomer(@QueryParam("name") String name,
+                                        @QueryParam("search") String search,
+                                        @QueryParam("page") @DefaultValue("0") int page,
+                                      @QueryParam("size") @DefaultValue("20") int size) {
+        if (search != null) {
+            if (page < 0 || size < 1 || size > 500) {
+                throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
+            }
+            return Response.ok(service.search(search, page * size, size)).build();
+        }
+
         //Create an empty collection to contain the intersection of Customer to be returned
         List<Customer> customers;
 
@@ -86,7 +128,8 @@ public class CustomerRestService {
             @Parameter(description = "Id of Customer to be fetched", example = "1")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
+            long id,
+            @Context Request request) {
 
         Customer customer = service.findById(id);
         if (customer == null) {
@@ -95,7 +138,74 @@ public class CustomerRestService {
         }
         log.info("findById " + id + ": found Customer = " + customer);
 
-        return Response.ok(customer).build();
+        EntityTag tag = EntityTags.of(customer.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(customer).tag(tag).build();
+    }
+
+    /**
+     * <p>Returns the itinerary of a Customer: its hotel bookings ordered by date, each with the flight and taxi booked
+     * with it through the travel agent.</p>
+     *
+     * <p>The itinerary is paged by date. When there are more stays, the response carries the <code>from</code> and
+     * <code>after</code> values of the next page as <code>nextFrom</code> and <code>nextAfter</code>.</p>
+     *
+     * <p>Past stays moved to the archive are only included with <code>includeArchived=true</code>.</p>
+     *
+     * <p>Examples: <pre>GET api/customers/1/itinerary?from=2031-01-01&to=2031-12-31&limit=20</pre></p>
+     *
+     * @param id The long parameter value provided as a Customer's id
+     * @param from The first date (yyyy-MM-dd), unbounded by default
+     * @param to The last date (yyyy-MM-dd), unbounded by default
+     * @param after The id of the last stay of the previous page
+     * @param limit The maximum number of stays of the page
+     * @param includeArchived Whether to include the stays moved to the archive
+     * @return A Response containing a page of the itinerary
+     */
+    @GET
+    @Path("/{id:[0-9]+}/itinerary")
+    @Operation(
+            summary = "Fetch the itinerary of a Customer",
+            description = "Returns a JSON page of the hotel bookings of the Customer, ordered by date, with the flights and taxis booked with them."
+    )
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description ="Customer found"),
+            @APIResponse(responseCode = "400", description = "Invalid dates or page size"),
+            @APIResponse(responseCode = "404", description = "Customer with id not found")
+    })
+    public Response retrieveCustomerItinerary(
+            @Parameter(description = "Id of Customer to be fetched", example = "1")
+            @Schema(minimum = "0", required = true)
+            @PathParam("id")
+            long id,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("after") @DefaultValue("0") long after,
+            @QueryParam("limit") @DefaultValue("20") int limit,
+            @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived) {
+
+        if (limit < 1 || limit > MAX_ITINERARY_PAGE || after < 0) {
+            throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
+        }
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = from == null ? EARLIEST_DATE : LocalDate.parse(from);
+            last = to == null ? LATEST_DATE : LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            throw new RestServiceException("Bad Request", Collections.singletonMap("date", "Please use dates formatted as yyyy-MM-dd"),
+                    Response.Status.BAD_REQUEST, e);
+        }
+
+        if (service.findById(id) == null) {
+            // Verify that the customer exists. Return 404, if not present.
+            throw new RestServiceException("No Customer with the id " + id + " was found!", Response.Status.NOT_FOUND);
+        }
+
+        return Response.ok(itineraryService.find(id, first, last, after, limit, includeArchived)).build();
     }
 
     @GET
@@ -114,11 +224,9 @@ public class CustomerRestService {
             @PathParam("email")
             String email) {
 
-        Customer customer = service.findByEmail(email);
-        if (customer == null) {
-            // Verify that the customer exists. Return 404, if not present.
-            throw new RestServiceException("No Customer with the email " + email + " was found!", Response.Status.NOT_FOUND);
-        }
+        // Verify that the customer exists. Return 404, if not present.
+        Customer customer = service.findByEmail(email).orElseThrow(() ->
+                new RestServiceException("No Customer with the email " + email + " was found!", Response.Status.NOT_FOUND));
         return Response.ok(customer).build();
     }
 
@@ -187,6 +295,88 @@ public class CustomerRestService {
         return builder.build();
     }
 
+    /**
+     * <p>Creates customers in bulk from a CSV file, with a header line naming the <code>firstName</code>,
+     * <code>lastName</code>, <code>email</code> and <code>phoneNumber</code> columns.</p>
+     *
+     * <p>Rows are validated like single customers. Rows with an email address already used (or used earlier in the
+     * file) are skipped. The response reports the outcome of every row.</p>
+     *
+     * @param body The CSV file
+     * @return A Response containing a {@link CustomerImportReport}
+     */
+    @POST
+    @Path("/import")
+    @Consumes(TEXT_CSV)
+    @Operation(description = "Add Customers to the database from a CSV file")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "File imported, see the result of every row"),
+            @APIResponse(responseCode = "400", description = "The file has no header line, or lacks a column")
+    })
+    public Response importCustomersCsv(InputStream body) {
+        try {
+            return Response.ok(transferService.importCsv(reader(body))).build();
+        } catch (IllegalArgumentException e) {
+            throw new RestServiceException(e.getMessage(), Response.Status.BAD_REQUEST);
+        } catch (IOException e) {
+            throw new RestServiceException(e);
+        }
+    }
+
+    /**
+     * <p>Creates customers in bulk from an NDJSON file: one JSON Customer object per line.</p>
+     *
+     * <p>Rows are validated like single customers. Rows with an email address already used (or used earlier in the
+     * file) are skipped. The response reports the outcome of every row.</p>
+     *
+     * @param body The NDJSON file
+     * @return A Response containing a {@link CustomerImportReport}
+     */
+    @POST
+    @Path("/import")
+    @Consumes(APPLICATION_NDJSON)
+    @Operation(description = "Add Customers to the database from an NDJSON file")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "File imported, see the result of every row")
+    })
+    public Response importCustomersNdjson(InputStream body) {
+        try {
+            return Response.ok(transferService.importNdjson(reader(body))).build();
+        } catch (IOException e) {
+            throw new RestServiceException(e);
+        }
+    }
+
+    /**
+     * <p>Returns all the Customers as a CSV file, written page by page as they are read.</p>
+     *
+     * @return The CSV file, streamed
+     */
+    @GET
+    @Path("/export")
+    @Produces(TEXT_CSV)
+    @Operation(summary = "Export all Customers as CSV")
+    public Multi<String> exportCustomersCsv() {
+        return transferService.exportCsv();
+    }
+
+    /**
+     * <p>Returns all the Customers as an NDJSON file, written page by page as they are read.</p>
+     *
+     * @return The NDJSON file, streamed
+     */
+    @GET
+    @Path("/export")
+    @Produces(APPLICATION_NDJSON)
+    @Operation(summary = "Export all Customers as NDJSON")
+    public Multi<String> exportCustomersNdjson() {
+        return transferService.exportNdjson();
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
     /**
      * <p>Deletes a customer using the ID provided. If the ID is not present then nothing can be deleted.</p>
      *
@@ -1,10 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingCascade;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexes;
+
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.validation.ConstraintViolationException;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -23,6 +27,12 @@ public class CustomerService {
     @Inject
     CustomerValidator validator;
 
+    @Inject
+    SearchIndexes searchIndexes;
+
+    @Inject
+    BookingCascade bookings;
+
     /**
      * <p>Returns a List of all persisted {@link Customer} objects, sorted alphabetically by name.<p/>
      *
@@ -42,6 +52,20 @@ public class CustomerService {
     }
 
 
+    /**
+     * <p>Returns the Customer objects best matching a free text query, tolerating typos, prefixes and spelling
+     * variants.<p/>
+     *
+     * @param query The text to search for
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of Customers to return
+     * @return List of Customer objects, best matches first
+     */
+    List<Customer> search(String query, int offset, int limit) {
+        List<Long> ids = searchIndexes.search(Customer.class, query, offset, limit);
+        return SearchIndexes.inOrder(ids, crud.findAllByIds(ids));
+    }
+
     /**
      * <p>Returns a single Customer object, specified by a Long id.<p/>
      *
@@ -56,12 +80,45 @@ public class CustomerService {
      * <p>Returns a single Customer object, specified by a email.<p/>
      *
      * @param email The email field of the Customer to be returned
-     * @return The Customer with the specified id
+     * @return The Customer with the specified email, if any
      */
-    public Customer findByEmail(String email) {
+    public Optional<Customer> findByEmail(String email) {
         return crud.findByEmail(email);
     }
 
+    /**
+     * <p>Returns the Customer with the email address of the given details, creating it from the details if there is
+     * none, e.g. for a guest booking.</p>
+     *
+     * <p>A new Customer is inserted in the caller's transaction, so it is rolled back with it, e.g. when the booking
+     * it is created for fails. The insert is the upsert of the database (see
+     * {@link CustomerRepository#insertIfAbsent(Customer)}), so concurrent requests with the same new email address
+     * all get the Customer inserted by the first of them.</p>
+     *
+     * @param details The details of the Customer; its email address is the key
+     * @return The existing or new Customer
+     * @throws ConstraintViolationException if the details of a new Customer are not valid
+     */
+    public Customer upsertByEmail(Customer details) {
+        Optional<Customer> existing = crud.findByEmail(details.getEmail());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        Customer customer = new Customer();
+        customer.setCustomerDetails(details);
+        validator.validateFields(customer);
+
+        boolean inserted = crud.insertIfAbsent(customer);
+        Customer upserted = crud.findByEmailForWrite(customer.getEmail()).orElseThrow(
+                () -> new IllegalStateException("No customer with the email " + customer.getEmail() + " after insert"));
+        if (inserted) {
+            // The insert bypasses the entity listeners
+            searchIndexes.updated(upserted);
+        }
+        return upserted;
+    }
+
     /**
      * <p>Writes the provided Customer object to the application database.<p/>
      *
@@ -82,7 +139,8 @@ public class CustomerService {
     }
 
     /**
-     * <p>Deletes the provided Customer object from the application database if found there.<p/>
+     * <p>Deletes the provided Customer object from the application database if found there, with its bookings and
+     * travel agent bookings, deleted in bulk by {@link BookingCascade}.<p/>
      *
      * @param customer The Customer object to be removed from the application database
      * @return The Customer object that has been successfully removed from the application database; or null
@@ -94,6 +152,7 @@ public class CustomerService {
         Customer deletedCustomer = null;
 
         if (customer.getId() != null) {
+            bookings.deleteForCustomer(customer.getId());
             deletedCustomer = crud.delete(customer);
         } else {
             log.info("delete() - No ID was found so can't Delete.");
@@ -0,0 +1,378 @@
+package uk.ac.newcastle.enterprisemiddleware.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * <p>Service Class for moving customers in and out of the application in bulk, as CSV or as NDJSON (one JSON object
+ * per line).</p>
+ *
+ * <p>An import reads the file line by line and writes the valid rows in batches of
+ * <code>customer.import.batch-size</code>: the email addresses of a batch are looked up with one query, and the new
+ * customers are inserted in one transaction, in JDBC batches. A batch that loses an email address to a concurrent
+ * request is retried row by row. Every row gets a result in the {@link CustomerImportReport}.</p>
+ *
+ * <p>An export reads the customers in id order, <code>customer.export.page-size</code> at a time, as rows rather than
+ * managed entities, and reads the next page only once the client has taken the previous one.</p>
+ */
+@Dependent
+public class CustomerTransferService {
+    static final List<String> CSV_COLUMNS = List.of("firstName", "lastName", "email", "phoneNumber");
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    CustomerRepository crud;
+
+    @Inject
+    CustomerValidator validator;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @ConfigProperty(name = "customer.import.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "customer.export.page-size", defaultValue = "500")
+    int pageSize;
+
+    /**
+     * <p>Imports customers from CSV. The first line names the columns: <code>firstName</code>,
+     * <code>lastName</code>, <code>email</code> and <code>phoneNumber</code>, in any order; other columns are ignored.
+     * Fields may be quoted, but may not span lines.</p>
+     *
+     * @param reader the CSV file
+     * @return the result of every row
+     * @throws IllegalArgumentException if the file has no header line or it lacks a column
+     * @throws IOException if the file cannot be read
+     */
+    public CustomerImportReport importCsv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("The file has no header line");
+        }
+        List<String> names = splitCsv(header);
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = indexOfIgnoreCase(names, CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("The header line has no " + CSV_COLUMNS.get(i) + " column");
+            }
+        }
+
+        return importLines(reader, 2, line -> {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != names.size()) {
+                throw new IllegalArgumentException("Expected " + names.size() + " fields, found " + fields.size());
+            }
+            Customer customer = new Customer();
+            customer.setFirstName(fields.get(columns[0]));
+            customer.setLastName(fields.get(columns[1]));
+            customer.setEmail(fields.get(columns[2]));
+            customer.setPhoneNumber(fields.get(columns[3]));
+            return customer;
+        });
+    }
+
+    /**
+     * <p>Imports customers from NDJSON: one JSON object per line, with the fields of a {@link Customer}. An id is
+     * ignored.</p>
+     *
+     * @param reader the NDJSON file
+     * @return the result of every row
+     * @throws IOException if the file cannot be read
+     */
+    public CustomerImportReport importNdjson(BufferedReader reader) throws IOException {
+        return importLines(reader, 1, line -> {
+            Customer parsed;
+            try {
+                parsed = mapper.readValue(line, Customer.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Not a JSON customer: " + e.getOriginalMessage());
+            }
+            if (parsed == null) {
+                throw new IllegalArgumentException("Not a JSON customer");
+            }
+            Customer customer = new Customer();
+            customer.setCustomerDetails(parsed);
+            return customer;
+        });
+    }
+
+    /**
+     * <p>Returns all the customers as CSV, with a header line: <code>id</code> followed by the columns read by
+     * {@link #importCsv(BufferedReader)}. Each item is a page of lines.</p>
+     *
+     * @return the CSV file, page by page
+     */
+    public Multi<String> exportCsv() {
+        return Multi.createBy().concatenating().streams(
+                Multi.createFrom().item("id," + String.join(",", CSV_COLUMNS) + "\n"),
+                export(row -> {
+                    StringBuilder line = new StringBuilder();
+                    for (int i = 0; i < row.length; i++) {
+                        if (i > 0) {
+                            line.append(',');
+                        }
+                        line.append(quoteCsv(String.valueOf(row[i])));
+                    }
+                    return line.toString();
+                }).map(page -> page + "\n"));
+    }
+
+    /**
+     * <p>Returns all the customers as NDJSON, in the JSON form of a {@link Customer}. Each item is a page of
+     * lines, without the newline that ends the page: it is written by RESTEasy Reactive after each item of an
+     * <code>application/x-ndjson</code> stream.</p>
+     *
+     * @return the NDJSON file, page by page
+     */
+    public Multi<String> exportNdjson() {
+        return export(row -> {
+            Customer customer = new Customer();
+            customer.setId((Long) row[0]);
+            customer.setFirstName((String) row[1]);
+            customer.setLastName((String) row[2]);
+            customer.setEmail((String) row[3]);
+            customer.setPhoneNumber((String) row[4]);
+            try {
+                return mapper.writeValueAsString(customer);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Formats the customers page by page, one line per customer, reading the pages on worker threads, the next one
+     * only once the previous one has been requested by the client
+     * */
+    private Multi<String> export(Function<Object[], String> format) {
+        return Multi.createBy().repeating()
+                .uni(() -> new long[1], after -> Uni.createFrom().item(() -> {
+                    List<Object[]> rows = page(after[0]);
+                    if (!rows.isEmpty()) {
+                        after[0] = (Long) rows.get(rows.size() - 1)[0];
+                    }
+                    return rows;
+                }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+                .whilst(rows -> rows.size() == pageSize)
+                .filter(rows -> !rows.isEmpty())
+                .map(rows -> {
+                    StringJoiner page = new StringJoiner("\n");
+                    for (Object[] row : rows) {
+                        page.add(format.apply(row));
+                    }
+                    return page.toString();
+                });
+    }
+
+    /**
+     * @param after id of the last customer of the previous page, or 0
+     * @return the next page of customer rows
+     */
+    @ActivateRequestContext
+    List<Object[]> page(long after) {
+        return crud.findRowsAfterId(after, pageSize);
+    }
+
+    private CustomerImportReport importLines(BufferedReader reader, int firstLine, LineParser parser) throws IOException {
+        CustomerImportReport report = new CustomerImportReport();
+        Set<String> seen = new HashSet<>();
+        List<Pending> batch = new ArrayList<>(batchSize);
+
+        int number = firstLine;
+        for (String line = reader.readLine(); line != null; line = reader.readLine(), number++) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Customer customer;
+            try {
+                customer = parser.parse(line);
+                validator.validateFields(customer);
+            } catch (IllegalArgumentException e) {
+                report.add(new CustomerImportReport.Row(number, null, CustomerImportReport.Status.INVALID, null,
+                        Collections.singletonMap("row", e.getMessage())));
+                continue;
+            } catch (ConstraintViolationException e) {
+                report.add(invalid(number, e));
+                continue;
+            }
+
+            if (!seen.add(customer.getEmail())) {
+                report.add(duplicate(number, customer.getEmail()));
+                continue;
+            }
+            batch.add(new Pending(number, customer));
+            if (batch.size() == batchSize) {
+                write(batch, report);
+                batch.clear();
+            }
+        }
+        write(batch, report);
+
+        report.getRows().sort(Comparator.comparingInt(CustomerImportReport.Row::getLine));
+        log.info("CustomerTransferService.import() - " + report.getCreated() + " created, " + report.getDuplicates()
+                + " duplicates, " + report.getInvalid() + " invalid");
+        return report;
+    }
+
+    /**
+     * Writes the customers of a batch whose email addresses are not used yet
+     * */
+    private void write(List<Pending> batch, CustomerImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> emails = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            emails.add(pending.customer.getEmail());
+        }
+        Set<String> used = new HashSet<>(crud.findEmailsIn(emails));
+
+        List<Pending> fresh = new ArrayList<>(batch.size());
+        List<Customer> customers = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (used.contains(pending.customer.getEmail())) {
+                report.add(duplicate(pending.line, pending.customer.getEmail()));
+            } else {
+                fresh.add(pending);
+                customers.add(pending.customer);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        try {
+            crud.createAll(customers);
+            for (Pending pending : fresh) {
+                report.add(created(pending.line, pending.customer));
+            }
+        } catch (PersistenceException e) {
+            // An email address was taken since the lookup: the batch was rolled back, insert its rows one by one
+            log.info("CustomerTransferService.write() - Batch rolled back, retrying row by row: " + e.getMessage());
+            for (Pending pending : fresh) {
+                Customer customer = new Customer();
+                customer.setCustomerDetails(pending.customer);
+                Customer createdCustomer = crud.createIfAbsent(customer);
+                report.add(createdCustomer == null ? duplicate(pending.line, customer.getEmail())
+                        : created(pending.line, createdCustomer));
+            }
+        }
+    }
+
+    private static CustomerImportReport.Row created(int line, Customer customer) {
+        return new CustomerImportReport.Row(line, customer.getEmail(), CustomerImportReport.Status.CREATED,
+                customer.getId(), null);
+    }
+
+    private static CustomerImportReport.Row duplicate(int line, String email) {
+        return new CustomerImportReport.Row(line, email, CustomerImportReport.Status.DUPLICATE, null,
+                Collections.singletonMap("email", "That email is already used, please use a unique email"));
+    }
+
+    private static CustomerImportReport.Row invalid(int line, ConstraintViolationException e) {
+        Map<String, String> reasons = new HashMap<>();
+        String email = null;
+        for (ConstraintViolation<?> violation : e.getConstraintViolations()) {
+            reasons.put(violation.getPropertyPath().toString(), violation.getMessage());
+            if (violation.getRootBean() instanceof Customer) {
+                email = ((Customer) violation.getRootBean()).getEmail();
+            }
+        }
+        return new CustomerImportReport.Row(line, email, CustomerImportReport.Status.INVALID, null, reasons);
+    }
+
+    private static int indexOfIgnoreCase(List<String> names, String name) {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits a CSV line into its fields, unquoting the quoted ones
+     * */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String quoteCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private interface LineParser {
+        Customer parse(String line);
+    }
+
+    private static final class Pending {
+        private final int line;
+        private final Customer customer;
+
+        Pending(int line, Customer customer) {
+            this.line = line;
+            this.customer = customer;
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package uk.ac.newcastle.enterprisemiddleware.customer;
 
+import uk.ac.newcastle.enterprisemiddleware.util.BeanValidation;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.persistence.NoResultException;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * <p> This class is responsible for validation and checks based on requirements. </p>
@@ -36,12 +34,7 @@ public class CustomerValidator {
      * @throws ValidationException If customer with the same email already exists
      */
     void validateCustomer(Customer customer) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-        Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
-
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
-        }
+        validateFields(customer);
 
         // Check the uniqueness of the email address
         if (emailAlreadyExists(customer.getEmail(), customer.getId())) {
@@ -49,6 +42,18 @@ public class CustomerValidator {
         }
     }
 
+    /**
+     * <p>Validates the fields of the given Customer object, without checking the uniqueness of its email address, e.g.
+     * when the caller has just looked the email address up.</p>
+     *
+     * @param customer The Customer object to be validated
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     */
+    void validateFields(Customer customer) throws ConstraintViolationException {
+        // Create a bean validator and check for issues.
+        BeanValidation.validate(validator, customer);
+    }
+
     /**
      * <p>Checks if a customer with the same email address is already registered.</p>
      *
@@ -60,24 +65,7 @@ public class CustomerValidator {
      * @return boolean which represents whether the email was found, and if so if it belongs to the user with id
      */
     boolean emailAlreadyExists(String email, Long id) {
-        Customer customer = null;
-        Customer customerWithID;
-        try {
-            customer = crud.findByEmail(email);
-        } catch (NoResultException e) {
-            // ignore
-        }
-
-        if (customer != null && id != null) {
-            try {
-                customerWithID = crud.findById(id);
-                if (customerWithID != null && customerWithID.getEmail().equals(email)) {
-                    customer = null;
-                }
-            } catch (NoResultException e) {
-                // ignore
-            }
-        }
-        return customer != null;
+        // Only the id of the owner is read: an unused email address is an empty result, not an exception
+        return crud.findIdByEmail(email).filter(owner -> !owner.equals(id)).isPresent();
     }
 }
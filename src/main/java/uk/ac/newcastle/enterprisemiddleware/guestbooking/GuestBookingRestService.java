@@ -5,13 +5,13 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import uk.ac.newcastle.enterprisemiddleware.booking.*;
+import uk.ac.newcastle.enterprisemiddleware.customer.UniqueEmailException;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.transaction.SystemException;
-import javax.transaction.UserTransaction;
+import javax.transaction.Transactional;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.Consumes;
@@ -36,13 +36,13 @@ public class GuestBookingRestService {
     @Inject
     GuestBookingService service;
 
-    @Inject
-    UserTransaction userTransaction;
-
     /**
      * <p>Creates a guest booking in a single transaction using the customer and hotel service.
      * Failure at any point will rollback the transaction</p>
      *
+     * <p>The transaction is the one of this request: every error below is rethrown as a {@link RestServiceException},
+     * which rolls it back.</p>
+     *
      * @param guestBooking GuestBooking object, constructed automatically from JSON input, to be <i>created</i> via
      * {@link GuestBookingService#create(GuestBooking)}
      * @return A Response indicating the outcome of the create operation
@@ -55,10 +55,10 @@ public class GuestBookingRestService {
             @APIResponse(responseCode = "409", description = "Booking supplied in request body conflicts with an existing Booking"),
             @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
     })
-//    @Transactional -> commented to use manual queries
+    @Transactional
     public Response createBooking(
             @Parameter(description = "JSON representation of Booking object to be added to the database", required = true)
-            GuestBooking guestBooking) throws SystemException {
+            GuestBooking guestBooking) {
 
         if (guestBooking == null) {
             throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
@@ -88,6 +88,11 @@ public class GuestBookingRestService {
             Map<String, String> responseObj = new HashMap<>();
             responseObj.put("booking", "booking is already registered, please register on another date or hotel");
             throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
+        } catch (UniqueEmailException e) {
+            // Handle the unique constraint violation
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("email", "That email is already used, please use a unique email");
+            throw new RestServiceException("Bad Request", responseObj, Response.Status.CONFLICT, e);
         } catch (CustomerNotFoundException e) {
             // Handle the unique constraint violation
             Map<String, String> responseObj = new HashMap<>();
@@ -99,8 +104,6 @@ public class GuestBookingRestService {
             responseObj.put("hotel", "Hotel not found!");
             throw new RestServiceException("Bad Request", responseObj, Response.Status.BAD_REQUEST, e);
         } catch (Exception e) {
-            e.printStackTrace();
-            userTransaction.rollback();
             // Handle generic exceptions
             throw new RestServiceException(e);
         }
@@ -12,7 +12,6 @@ import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.transaction.UserTransaction;
 import javax.validation.ConstraintViolationException;
 import java.util.logging.Logger;
 
@@ -39,12 +38,13 @@ public class GuestBookingService {
     @Inject
     BookingService bookingService;
 
-    @Inject
-    UserTransaction userTransaction;
-
     /**
-     * <p> Creates a guest booking in a single transaction using the customer and hotel service.
-     *  Failure at any point will rollback the transaction</p>
+     * <p> Creates a guest booking using the customer and hotel service, within the transaction of the caller (see
+     *  {@link GuestBookingRestService#createBooking(GuestBooking)}). Failure at any point will rollback the
+     *  transaction, including the creation of a new customer (see {@link CustomerService#upsertByEmail(Customer)}).</p>
+     *
+     * <p>The customer is looked up once, by email, and the hotel comes from the cache, so booking a known customer
+     * takes one query, one update of the room counter and one insert.</p>
      *
      * <p>Validates the data in the provided Customer object using a {@link CustomerValidator} object.<p/>
      *
@@ -57,46 +57,21 @@ public class GuestBookingService {
 
         // Check to make sure the data fits with the parameters in the Customer model and passes validation.
         validator.validateGuestBooking(guestBooking);
-        Booking booking;
-
-        try {
-            userTransaction.begin();
-            // 1. if customer exists, fetch from DB
-            // else create a new customer
-            Customer customer = customerService.findByEmail(guestBooking.getCustomer().getEmail());
-            if (customer == null) {
-                log.info("Customer does not exits.. Creating a new Customer");
-                customer = new Customer();
-                customer.setCustomerDetails(guestBooking.getCustomer());
-                customer = customerService.create(customer);
-            }
-            log.info("Customer Details Fetched/Created:  " + customer);
-
-            // 2. find hotel
-            Hotel hotel = hotelService.findById(guestBooking.getHotelId());
-            if (hotel == null) {
-                // hotel not found handled while creating a booking
-                log.severe("Hotel not found for id: " + guestBooking.getHotelId());
-                throw new HotelNotFoundException("Hotel does not exist!");
-            }
-            log.info("Hotel details: " + hotel);
 
-            // 3. Create a booking
-            booking = new Booking();
-            booking.setId(null);
-            booking.setCustomer(customer);
-            booking.setHotel(hotel);
-            booking.setBookingDate(guestBooking.getBookingDate());
-            bookingService.create(booking);
-            userTransaction.commit();
+        // 1. fetch the customer by email, creating it if there is none
+        Customer customer = customerService.upsertByEmail(guestBooking.getCustomer());
+        log.info("Customer Details Fetched/Created:  " + customer);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            userTransaction.rollback();
-            throw e;
+        // 2. find hotel (cached)
+        Hotel hotel = hotelService.findById(guestBooking.getHotelId());
+        if (hotel == null) {
+            // hotel not found handled while creating a booking
+            log.severe("Hotel not found for id: " + guestBooking.getHotelId());
+            throw new HotelNotFoundException("Hotel does not exist!");
         }
+        log.info("Hotel details: " + hotel);
 
-        // Write the customer to the database.
-        return booking;
+        // 3. Create a booking of the customer and hotel just read
+        return bookingService.createFor(customer, hotel, guestBooking.getBookingDate());
     }
 }
@@ -0,0 +1,44 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * <p>Reports the saturation of the connection pool, and takes the instance out of the load balancer while too many
+ * threads are waiting for a connection: new requests would only queue behind them.</p>
+ *
+ * <p>Whether the database answers at all is checked by the datasource check of Quarkus itself.</p>
+ */
+@Readiness
+@ApplicationScoped
+public class DatasourcePoolHealthCheck implements HealthCheck {
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "app.health.datasource.max-awaiting", defaultValue = "16")
+    long maxAwaiting;
+
+    @Override
+    public HealthCheckResponse call() {
+        AgroalDataSourceMetrics metrics = dataSource.getMetrics();
+        int maxSize = dataSource.getConfiguration().connectionPoolConfiguration().maxSize();
+        long active = metrics.activeCount();
+        long awaiting = metrics.awaitingCount();
+        return HealthCheckResponse.named("datasource-pool")
+                .status(awaiting <= maxAwaiting)
+                .withData("active", active)
+                .withData("max-size", maxSize)
+                .withData("awaiting", awaiting)
+                .withData("max-awaiting", maxAwaiting)
+                .withData("max-used", metrics.maxUsedCount())
+                .build();
+    }
+}
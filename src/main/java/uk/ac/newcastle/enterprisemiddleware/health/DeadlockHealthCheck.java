@@ -0,0 +1,31 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Liveness;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * <p>Reports the instance as dead when threads are deadlocked, so that it is restarted: they would never release
+ * their connections and locks.</p>
+ *
+ * <p>Liveness does not depend on the database or the remote services, whose outage a restart would not fix.</p>
+ */
+@Liveness
+@ApplicationScoped
+public class DeadlockHealthCheck implements HealthCheck {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Override
+    public HealthCheckResponse call() {
+        long[] deadlocked = threads.findDeadlockedThreads();
+        return HealthCheckResponse.named("deadlocks")
+                .status(deadlocked == null)
+                .withData("deadlocked-threads", deadlocked == null ? 0 : deadlocked.length)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import org.jboss.resteasy.reactive.ClientWebApplicationException;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Times the calls of the {@link RemoteCall} REST clients, and refuses them while the circuit of the service is
+ * open.</p>
+ *
+ * <p>A refused call fails as if the remote service had answered 503 Service Unavailable, which the callers already
+ * handle. A 4xx answer counts as a success: the remote service is up, the request was wrong.</p>
+ */
+@RemoteCall
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_AFTER)
+public class RemoteCallInterceptor {
+    private static final Map<Class<?>, String> SERVICES = new ConcurrentHashMap<>();
+
+    @Inject
+    RemoteCalls remoteCalls;
+
+    @AroundInvoke
+    Object measure(InvocationContext context) throws Exception {
+        String service = SERVICES.computeIfAbsent(context.getMethod().getDeclaringClass(),
+                RemoteCallInterceptor::service);
+        RemoteCallStats stats = remoteCalls.stats(service);
+        if (!stats.allow(System.currentTimeMillis())) {
+            throw new ClientWebApplicationException("Circuit of " + service + " is open",
+                    Response.Status.SERVICE_UNAVAILABLE);
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = context.proceed();
+            failed = false;
+            return result;
+        } catch (WebApplicationException e) {
+            failed = e.getResponse() == null || e.getResponse().getStatus() >= 500;
+            throw e;
+        } finally {
+            stats.record(System.currentTimeMillis(), (System.nanoTime() - start) / 1_000_000, failed);
+        }
+    }
+
+    /**
+     * The configKey of the client interface, which the generated implementation invoked here implements
+     * */
+    private static String service(Class<?> client) {
+        List<Class<?>> candidates = new ArrayList<>();
+        candidates.add(client);
+        candidates.addAll(Arrays.asList(client.getInterfaces()));
+        for (Class<?> candidate : candidates) {
+            RegisterRestClient registration = candidate.getAnnotation(RegisterRestClient.class);
+            if (registration != null) {
+                return registration.configKey().isEmpty() ? candidate.getSimpleName() : registration.configKey();
+            }
+        }
+        return client.getSimpleName();
+    }
+}
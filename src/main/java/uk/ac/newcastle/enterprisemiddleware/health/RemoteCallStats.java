@@ -0,0 +1,134 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import java.util.Arrays;
+
+/**
+ * <p>Latency and circuit of the calls to one remote service.</p>
+ *
+ * <p>The latencies of the last calls are kept in a ring buffer, with the time of each call; percentiles are computed
+ * over the calls of the last window only, so that a slow period is forgotten once it is over.</p>
+ *
+ * <p>The circuit opens after a number of consecutive failures. While it is open the calls are refused without reaching
+ * the remote service. Once it has been open for the configured time it is half open: a single trial call goes
+ * through, which closes the circuit if it succeeds and opens it again if it fails.</p>
+ */
+public class RemoteCallStats {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long windowMillis;
+
+    private final long[] times;
+    private final long[] latencies;
+    private int next;
+    private int size;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param capacity number of calls kept
+     * @param windowMillis age of the oldest call taken into account by the percentiles
+     * @param failureThreshold number of consecutive failures opening the circuit
+     * @param openMillis time the circuit stays open before a trial call
+     */
+    public RemoteCallStats(int capacity, long windowMillis, int failureThreshold, long openMillis) {
+        this.times = new long[capacity];
+        this.latencies = new long[capacity];
+        this.windowMillis = windowMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @param now current time, in milliseconds
+     * @return true if a call may be made, false if the circuit refuses it
+     */
+    public synchronized boolean allow(long now) {
+        switch (state(now)) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param now time the call ended, in milliseconds
+     * @param latencyMillis duration of the call
+     * @param failed true if the remote service failed or did not answer
+     */
+    public synchronized void record(long now, long latencyMillis, boolean failed) {
+        times[next] = now;
+        latencies[next] = latencyMillis;
+        next = (next + 1) % times.length;
+        size = Math.min(size + 1, times.length);
+
+        trialInFlight = false;
+        if (!failed) {
+            consecutiveFailures = 0;
+            state = State.CLOSED;
+        } else if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+    }
+
+    /**
+     * @param now current time, in milliseconds
+     * @return the state of the circuit
+     */
+    public synchronized State state(long now) {
+        if (state == State.OPEN && now - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * @param now current time, in milliseconds
+     * @return the number of calls made in the last window
+     */
+    public synchronized int calls(long now) {
+        int calls = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - times[i] < windowMillis) {
+                calls++;
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * @param now current time, in milliseconds
+     * @param percentile between 0 and 100, e.g. 99
+     * @return the latency under which that percentage of the calls of the last window ended, or 0 without calls
+     */
+    public synchronized long percentileMillis(long now, double percentile) {
+        long[] recent = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - times[i] < windowMillis) {
+                recent[count++] = latencies[i];
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(recent, 0, count);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return recent[Math.max(rank, 1) - 1];
+    }
+}
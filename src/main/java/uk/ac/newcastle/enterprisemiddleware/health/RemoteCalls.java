@@ -0,0 +1,45 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Holds the {@link RemoteCallStats} of each remote service, named after the configKey of its REST client.</p>
+ */
+@ApplicationScoped
+public class RemoteCalls {
+
+    @ConfigProperty(name = "app.remote.latency.capacity", defaultValue = "1024")
+    int capacity;
+
+    @ConfigProperty(name = "app.remote.latency.window-seconds", defaultValue = "60")
+    int windowSeconds;
+
+    @ConfigProperty(name = "app.remote.circuit.failure-threshold", defaultValue = "5")
+    int failureThreshold;
+
+    @ConfigProperty(name = "app.remote.circuit.open-seconds", defaultValue = "30")
+    int openSeconds;
+
+    private final Map<String, RemoteCallStats> services = new ConcurrentHashMap<>();
+
+    /**
+     * @param service name of the remote service
+     * @return its stats, created on first use
+     */
+    public RemoteCallStats stats(String service) {
+        return services.computeIfAbsent(service, key -> new RemoteCallStats(capacity, windowSeconds * 1000L,
+                failureThreshold, openSeconds * 1000L));
+    }
+
+    /**
+     * @return the stats of every remote service called so far, by name
+     */
+    public Map<String, RemoteCallStats> all() {
+        return Collections.unmodifiableMap(services);
+    }
+}
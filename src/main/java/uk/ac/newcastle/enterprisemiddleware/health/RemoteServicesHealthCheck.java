@@ -0,0 +1,57 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Map;
+
+/**
+ * <p>Reports the circuit state and the recent p99 latency of each remote service called by this instance.</p>
+ *
+ * <p>The check is up by default: a remote service that is down or slow is down or slow for every instance, and taking
+ * them all out of the load balancer would also take down the requests that do not need it. The state and latency are
+ * only reported as data. With app.health.remote.readiness-enabled, the instance is not ready while a circuit is open, or
+ * while the p99 of a service over enough calls exceeds the threshold. An open circuit becomes half open after
+ * app.remote.circuit.open-seconds, and old calls leave the latency window, so an instance taken out of the load balancer
+ * comes back without needing traffic.</p>
+ */
+@Readiness
+@ApplicationScoped
+public class RemoteServicesHealthCheck implements HealthCheck {
+
+    @Inject
+    RemoteCalls remoteCalls;
+
+    @ConfigProperty(name = "app.health.remote.readiness-enabled", defaultValue = "false")
+    boolean readinessEnabled;
+
+    @ConfigProperty(name = "app.health.remote.max-p99-millis", defaultValue = "2000")
+    long maxP99Millis;
+
+    @ConfigProperty(name = "app.health.remote.min-calls", defaultValue = "20")
+    int minCalls;
+
+    @Override
+    public HealthCheckResponse call() {
+        long now = System.currentTimeMillis();
+        boolean up = true;
+        HealthCheckResponseBuilder response = HealthCheckResponse.named("remote-services");
+        for (Map.Entry<String, RemoteCallStats> service : remoteCalls.all().entrySet()) {
+            RemoteCallStats stats = service.getValue();
+            RemoteCallStats.State state = stats.state(now);
+            int calls = stats.calls(now);
+            long p99 = stats.percentileMillis(now, 99);
+
+            up &= state != RemoteCallStats.State.OPEN && (calls < minCalls || p99 <= maxP99Millis);
+            response.withData(service.getKey() + ".circuit", state.name())
+                    .withData(service.getKey() + ".calls", calls)
+                    .withData(service.getKey() + ".p99-millis", p99);
+        }
+        return response.status(up || !readinessEnabled).build();
+    }
+}
@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexes;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * <p>Keeps a new instance out of the load balancer until its {@link SearchIndexes} have been built.</p>
+ */
+@Readiness
+@ApplicationScoped
+public class SearchIndexHealthCheck implements HealthCheck {
+
+    @Inject
+    SearchIndexes searchIndexes;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("search-index").status(searchIndexes.isLoaded()).build();
+    }
+}
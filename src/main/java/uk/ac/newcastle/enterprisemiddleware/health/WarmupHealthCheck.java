@@ -0,0 +1,25 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+import uk.ac.newcastle.enterprisemiddleware.util.Warmup;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * <p>Keeps a new instance out of the load balancer until its {@link Warmup} has run.</p>
+ */
+@Readiness
+@ApplicationScoped
+public class WarmupHealthCheck implements HealthCheck {
+
+    @Inject
+    Warmup warmup;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("warmup").status(warmup.isDone()).build();
+    }
+}
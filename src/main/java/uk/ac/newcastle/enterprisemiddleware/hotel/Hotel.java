@@ -1,9 +1,17 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.cluster.CachedEntityListener;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexListener;
+import uk.ac.newcastle.enterprisemiddleware.search.Searchable;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
@@ -13,20 +21,35 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, CachedEntityListener.class})
+@Cacheable
 @NamedQueries({
         @NamedQuery(name = Hotel.FIND_ALL, query = "SELECT c FROM Hotel c ORDER BY c.name ASC"),
-       @NamedQuery(name = Hotel.FIND_BY_PHONE_NUM, query = "SELECT c FROM Hotel c WHERE c.phoneNumber = :phoneNumber")
+       @NamedQuery(name = Hotel.FIND_BY_PHONE_NUM, query = "SELECT c FROM Hotel c WHERE c.phoneNumber = :phoneNumber"),
+        @NamedQuery(name = Hotel.FIND_ID_BY_PHONE_NUM, query = "SELECT c.id FROM Hotel c WHERE c.phoneNumber = :phoneNumber"),
+        @NamedQuery(name = Hotel.FIND_ALL_BY_IDS, query = "SELECT c FROM Hotel c WHERE c.id IN :ids"),
+        @NamedQuery(name = Hotel.FIND_ALL_BY_PHONE_NUMS, query = "SELECT c FROM Hotel c WHERE c.phoneNumber IN :phoneNumbers")
 })
-@Table(name = "hotel", uniqueConstraints = @UniqueConstraint(columnNames = "phone_number"))
-public class Hotel implements Serializable {
+@Table(name = "hotel", uniqueConstraints = @UniqueConstraint(columnNames = "phone_number"),
+        indexes = @Index(name = "idx_hotel_name", columnList = "name"))
+public class Hotel implements Serializable, Searchable {
     public static final String FIND_ALL = "Hotel.findAll";
+    public static final String FIND_ALL_BY_IDS = "Hotel.findAllByIds";
     public static final String FIND_BY_PHONE_NUM = "Hotel.findByPhoneNum";
+    public static final String FIND_ID_BY_PHONE_NUM = "Hotel.findIdByPhoneNum";
+    public static final String FIND_ALL_BY_PHONE_NUMS = "Hotel.findAllByPhoneNums";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotel_seq")
+    @GenericGenerator(name = "hotel_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hotel_seq"))
     @Column(name = "id", nullable = false)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Size(min = 1, max = 50)
     @Pattern(regexp = "[A-Za-z-']+", message = "Please use a name without numbers or specials")
@@ -43,8 +66,14 @@ public class Hotel implements Serializable {
     @Column(name = "post_code")
     private String postCode;
 
+    /** Number of rooms, i.e. of bookings the hotel can take for a date */
+    @NotNull
+    @Min(1)
+    @Column(name = "capacity", nullable = false)
+    private Integer capacity = 1;
+
     @JsonIgnore
-    @OneToMany(mappedBy = "hotel", cascade = {CascadeType.MERGE, CascadeType.REMOVE})
+    @OneToMany(mappedBy = "hotel")
     private Set<Booking> bookings = new HashSet<>();
 
     public Long getId() {
@@ -55,6 +84,14 @@ public class Hotel implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -79,6 +116,14 @@ public class Hotel implements Serializable {
         this.postCode = postCode;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
     public Set<Booking> getBookings() {
         return bookings;
     }
@@ -87,6 +132,11 @@ public class Hotel implements Serializable {
         this.bookings = bookings;
     }
 
+    @Override
+    public String searchText() {
+        return name;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -109,6 +159,7 @@ public class Hotel implements Serializable {
         return "{ id = " + getId()
                 + ", name = " + getName()
                 + ", postCode = " + getPostCode()
-                + ", phoneNumber = " + getPhoneNumber() + " }";
+                + ", phoneNumber = " + getPhoneNumber()
+                + ", capacity = " + getCapacity() + " }";
     }
 }
@@ -1,5 +1,10 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
+import org.hibernate.jpa.QueryHints;
+
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -9,7 +14,10 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 import javax.validation.ConstraintViolationException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -28,13 +36,18 @@ public class HotelRepository {
     @Inject
     EntityManager em;
 
+    @Inject
+    ReadRouting routing;
+
     /**
      * <p>Returns a List of all persisted {@link Hotel} objects, sorted alphabetically by last name.</p>
      *
      * @return List of Hotel objects
      */
+    @ReadOnly
     List<Hotel> findAllOrderedByName() {
-        TypedQuery<Hotel> query = em.createNamedQuery(Hotel.FIND_ALL, Hotel.class);
+        TypedQuery<Hotel> query = routing.entityManager().createNamedQuery(Hotel.FIND_ALL, Hotel.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true);
         return query.getResultList();
     }
 
@@ -44,12 +57,27 @@ public class HotelRepository {
      * @param name The name field of the Hotels to be returned
      * @return The Hotels with the specified name
      */
+    @ReadOnly
     List<Hotel> findAllByName(String name) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaBuilder cb = routing.entityManager().getCriteriaBuilder();
         CriteriaQuery<Hotel> criteria = cb.createQuery(Hotel.class);
         Root<Hotel> hotel = criteria.from(Hotel.class);
         criteria.select(hotel).where(cb.equal(hotel.get("name"), name));
-        return em.createQuery(criteria).getResultList();
+        return routing.entityManager().createQuery(criteria).setHint(QueryHints.HINT_CACHEABLE, true).getResultList();
+    }
+
+    /**
+     * <p>Returns the Hotel objects with the given ids, in no particular order.</p>
+     *
+     * @param ids The ids of the Hotels to be returned
+     * @return The Hotels found
+     */
+    @ReadOnly
+    List<Hotel> findAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return routing.entityManager().createNamedQuery(Hotel.FIND_ALL_BY_IDS, Hotel.class).setParameter("ids", ids).getResultList();
     }
 
     /**
@@ -58,21 +86,50 @@ public class HotelRepository {
      * @param id The id of the Hotel to be returned
      * @return The Hotel with the specified id
      */
+    @ReadOnly
     Hotel findById(Long id) {
-        return em.find(Hotel.class, id);
+        return routing.entityManager().find(Hotel.class, id);
     }
 
     /**
      * <p>Returns a Hotel object, specified by a String phone number.</p>
      *
-     * <p>If there is more than one Hotel with the specified phone number, only the first encountered will be returned.<p/>
+     * <p>If there is more than one Hotel with the specified phone number, only the first encountered will be returned.
+     * An unknown phone number is an ordinary outcome, returned as an empty Optional rather than thrown.<p/>
      *
      * @param phoneNumber The  field of the Hotel to be returned
-     * @return The first Hotel with the specified phone number
+     * @return The first Hotel with the specified phone number, if any
      */
-    Hotel findByPhoneNumber(String phoneNumber) {
+    Optional<Hotel> findByPhoneNumber(String phoneNumber) {
         TypedQuery<Hotel> query = em.createNamedQuery(Hotel.FIND_BY_PHONE_NUM, Hotel.class).setParameter("phoneNumber", phoneNumber);
-        return query.getSingleResult();
+        return query.setMaxResults(1).getResultList().stream().findFirst();
+    }
+
+    /**
+     * <p>Returns the id of the Hotel using the given phone number, if any, e.g. to check that a phone number is unique.
+     * Only the id is read, from the unique index on the phone number, and no Hotel is loaded.</p>
+     *
+     * @param phoneNumber The phone number to look up
+     * @return The id of the Hotel with the specified phone number
+     */
+    Optional<Long> findIdByPhoneNumber(String phoneNumber) {
+        TypedQuery<Long> query = em.createNamedQuery(Hotel.FIND_ID_BY_PHONE_NUM, Long.class).setParameter("phoneNumber", phoneNumber);
+        return query.setMaxResults(1).getResultList().stream().findFirst();
+    }
+
+    /**
+     * <p>Returns the Hotel objects with the given phone numbers, with one query.</p>
+     *
+     * @param phoneNumbers The phone numbers of the Hotels to be returned
+     * @return The Hotels found, in no particular order
+     */
+    List<Hotel> findAllByPhoneNumbers(Collection<String> phoneNumbers) {
+        if (phoneNumbers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return em.createNamedQuery(Hotel.FIND_ALL_BY_PHONE_NUMS, Hotel.class)
+                .setParameter("phoneNumbers", phoneNumbers)
+                .getResultList();
     }
 
     /**
@@ -91,6 +148,19 @@ public class HotelRepository {
         return hotel;
     }
 
+    /**
+     * <p>Persists the new Hotel objects, and sends them with the changes to the managed ones to the database at once,
+     * in JDBC batches.</p>
+     *
+     * @param hotels The new Hotel objects
+     */
+    void createAllAndFlush(List<Hotel> hotels) {
+        for (Hotel hotel : hotels) {
+            em.persist(hotel);
+        }
+        em.flush();
+    }
+
     /**
      * <p>Deletes the provided Hotel object from the application database if found there</p>
      *
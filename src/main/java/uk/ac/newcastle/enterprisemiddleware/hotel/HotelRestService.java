@@ -6,16 +6,26 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.jboss.resteasy.reactive.Cache;
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingService;
+import uk.ac.newcastle.enterprisemiddleware.util.EntityTags;
 import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,9 +49,15 @@ public class HotelRestService {
     @Named("logger")
     Logger log;
 
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final int MAX_UPSERT = 5000;
+
     @Inject
     HotelService service;
 
+    @Inject
+    BookingService bookingService;
+
     /**
      * <p>Return all the Hotel. They are sorted alphabetically by name.</p>
      *
@@ -49,11 +65,26 @@ public class HotelRestService {
      *
      * <p>Examples: <pre>GET api/hotel?name=TheInn</pre></p>
      *
+     * <p>With the <code>search</code> query parameter, Hotels are found by free text instead, tolerating typos, prefixes
+     * and spelling variants, best matches first: <pre>GET api/hotel?search=grand+in&page=1&size=10</pre>.
+     * The matches are returned one page at a time, as the Contacts are (<code>size</code> defaults to 20, and may be at
+     * most 500).</p>
+     *
      * @return A Response containing a list of Hotels
      */
     @GET
     @Operation(summary = "Fetch all Hotels", description = "Returns a JSON array of all stored Hotels objects.")
-    public Response retrieveAllHotels(@QueryParam("name") String name) {
+    public Response retrieveAllHotels(@QueryParam("name") String name,
+                                      @QueryParam("search") String search,
+                                      @QueryParam("page") @DefaultValue("0") int page,
+                                      @QueryParam("size") @DefaultValue("20") int size) {
+        if (search != null) {
+            if (page < 0 || size < 1 || size > 500) {
+                throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
+            }
+            return Response.ok(service.search(search, page * size, size)).build();
+        }
+
         //Create an empty collection to contain the intersection of Hotels to be returned
         List<Hotel> hotels;
 
@@ -86,7 +117,8 @@ public class HotelRestService {
             @Parameter(description = "Id of Hotel to be fetched")
             @Schema(minimum = "0", required = true)
             @PathParam("id")
-            long id) {
+            long id,
+            @Context Request request) {
 
         Hotel hotel = service.findById(id);
         if (hotel == null) {
@@ -95,7 +127,64 @@ public class HotelRestService {
         }
         log.info("findById " + id + ": found Hotel = " + hotel);
 
-        return Response.ok(hotel).build();
+        EntityTag tag = EntityTags.of(hotel.getVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(hotel).tag(tag).build();
+    }
+
+    /**
+     * <p>Returns the availability of a Hotel for every date of a range: its rooms, and how many of them are booked,
+     * held or still available.</p>
+     *
+     * <p>Examples: <pre>GET api/hotels/1/availability?from=2031-01-01&to=2031-01-31</pre></p>
+     *
+     * @param id The long parameter value provided as a Hotel's id
+     * @param from The first date of the range (yyyy-MM-dd), today by default
+     * @param to The last date of the range (yyyy-MM-dd), 30 days after the first by default
+     * @return A Response containing one availability per date
+     */
+    @GET
+    @Path("/{id:[0-9]+}/availability")
+    @Operation(
+            summary = "Fetch the availability of a Hotel",
+            description = "Returns a JSON array with the rooms of the Hotel booked, held and available for every date of the range."
+    )
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description ="Hotel found"),
+            @APIResponse(responseCode = "400", description = "Invalid date range, or longer than " + MAX_AVAILABILITY_DAYS + " days"),
+            @APIResponse(responseCode = "404", description = "Hotel with id not found")
+    })
+    public Response retrieveHotelAvailability(
+            @Parameter(description = "Id of Hotel to be fetched")
+            @Schema(minimum = "0", required = true)
+            @PathParam("id")
+            long id,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to) {
+
+        Hotel hotel = service.findById(id);
+        if (hotel == null) {
+            // Verify that the hotel exists. Return 404, if not present.
+            throw new RestServiceException("No Hotel with the id " + id + " was found!", Response.Status.NOT_FOUND);
+        }
+
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = from == null ? LocalDate.now() : LocalDate.parse(from);
+            last = to == null ? first.plusDays(30) : LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            throw new RestServiceException("Bad Request", Collections.singletonMap("date", "Please use dates formatted as yyyy-MM-dd"),
+                    Response.Status.BAD_REQUEST, e);
+        }
+        if (last.isBefore(first) || ChronoUnit.DAYS.between(first, last) >= MAX_AVAILABILITY_DAYS) {
+            throw new RestServiceException("Bad Request", Response.Status.BAD_REQUEST);
+        }
+
+        return Response.ok(bookingService.availability(hotel, first, last)).build();
     }
 
     /**
@@ -160,6 +249,45 @@ public class HotelRestService {
         return builder.build();
     }
 
+    /**
+     * <p>Creates or updates many hotels at once, matched on their phone numbers, e.g. to load the catalogue of a hotel
+     * chain. The whole load is one transaction.</p>
+     *
+     * <p>Hotels that are not valid, or repeat a phone number of the request, are skipped. The response reports the
+     * outcome of every hotel of the request.</p>
+     *
+     * @param hotels JSON array of Hotel objects, to be <i>created or updated</i> via
+     * {@link HotelService#upsertAll(List)}
+     * @return A Response containing a {@link HotelUpsertReport}
+     */
+    @PUT
+    @Operation(description = "Create or update Hotels in bulk, matched on their phone numbers")
+    @APIResponses(value = {
+            @APIResponse(responseCode = "200", description = "Hotels loaded, see the result of every hotel"),
+            @APIResponse(responseCode = "400", description = "No hotels, or too many hotels, supplied in request body"),
+            @APIResponse(responseCode = "409", description = "A phone number was taken by another request during the load"),
+            @APIResponse(responseCode = "500", description = "An unexpected error occurred whilst processing the request")
+    })
+    @Transactional
+    public Response upsertHotels(
+            @Parameter(description = "JSON array of Hotel objects to be created or updated", required = true)
+            List<Hotel> hotels) {
+
+        if (hotels == null || hotels.isEmpty() || hotels.size() > MAX_UPSERT) {
+            throw new RestServiceException("Between 1 and " + MAX_UPSERT + " hotels are expected",
+                    Response.Status.BAD_REQUEST);
+        }
+
+        try {
+            return Response.ok(service.upsertAll(hotels)).build();
+        } catch (PersistenceException e) {
+            // A hotel with one of the phone numbers was created since they were looked up
+            Map<String, String> responseObj = new HashMap<>();
+            responseObj.put("phoneNumber", "A phone number was taken by another request, please retry");
+            throw new RestServiceException("Conflict", responseObj, Response.Status.CONFLICT, e);
+        }
+    }
+
     /**
      * <p>Deletes a hotel using the ID provided. If the ID is not present then nothing can be deleted.</p>
      *
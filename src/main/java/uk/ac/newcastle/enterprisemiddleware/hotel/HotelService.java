@@ -1,10 +1,20 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingCascade;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexes;
+
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Logger;
 
 /**
@@ -23,6 +33,12 @@ public class HotelService {
     @Inject
     HotelValidator validator;
 
+    @Inject
+    SearchIndexes searchIndexes;
+
+    @Inject
+    BookingCascade bookings;
+
     /**
      * <p>Returns a List of all persisted {@link Hotel} objects, sorted alphabetically by name.<p/>
      *
@@ -41,6 +57,20 @@ public class HotelService {
         return crud.findAllByName(name);
     }
 
+    /**
+     * <p>Returns the Hotel objects best matching a free text query, tolerating typos, prefixes and spelling
+     * variants.<p/>
+     *
+     * @param query The text to search for
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of Hotels to return
+     * @return List of Hotel objects, best matches first
+     */
+    List<Hotel> search(String query, int offset, int limit) {
+        List<Long> ids = searchIndexes.search(Hotel.class, query, offset, limit);
+        return SearchIndexes.inOrder(ids, crud.findAllByIds(ids));
+    }
+
     /**
      * <p>Returns a single Hotel object, specified by a Long id.<p/>
      *
@@ -71,7 +101,90 @@ public class HotelService {
     }
 
     /**
-     * <p>Deletes the provided Hotel object from the application database if found there.<p/>
+     * <p>Creates or updates many hotels at once, matched on their phone numbers, e.g. to load the catalogue of a
+     * hotel chain.<p/>
+     *
+     * <p>The phone numbers are looked up with one query. The hotels found get the name, post code and capacity of the
+     * request, and the others are created, all written with one flush, in JDBC batches. Hotels that are not valid,
+     * or repeat a phone number of the request, are skipped. Being a single transaction, the load invalidates the
+     * cached hotel queries once, when it commits.<p/>
+     *
+     * @param hotels The Hotel objects to create or update; their ids are ignored
+     * @return The result of every Hotel of the request
+     */
+    HotelUpsertReport upsertAll(List<Hotel> hotels) {
+        log.info("HotelService.upsertAll() - Loading " + hotels.size() + " hotels");
+        HotelUpsertReport.Row[] rows = new HotelUpsertReport.Row[hotels.size()];
+
+        Map<String, Integer> indexes = new LinkedHashMap<>();
+        for (int i = 0; i < hotels.size(); i++) {
+            Hotel hotel = hotels.get(i);
+            if (hotel == null) {
+                rows[i] = new HotelUpsertReport.Row(i, null, HotelUpsertReport.Status.INVALID, null,
+                        Collections.singletonMap("hotel", "A hotel is required"));
+                continue;
+            }
+            try {
+                validator.validateFields(hotel);
+            } catch (ConstraintViolationException e) {
+                Map<String, String> reasons = new HashMap<>();
+                for (ConstraintViolation<?> violation : e.getConstraintViolations()) {
+                    reasons.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                rows[i] = new HotelUpsertReport.Row(i, hotel.getPhoneNumber(), HotelUpsertReport.Status.INVALID, null,
+                        reasons);
+                continue;
+            }
+            if (indexes.putIfAbsent(hotel.getPhoneNumber(), i) != null) {
+                rows[i] = new HotelUpsertReport.Row(i, hotel.getPhoneNumber(), HotelUpsertReport.Status.DUPLICATE,
+                        null, Collections.singletonMap("phoneNumber", "That phone number is already used in the request"));
+            }
+        }
+
+        Map<String, Hotel> stored = new HashMap<>();
+        for (Hotel hotel : crud.findAllByPhoneNumbers(indexes.keySet())) {
+            stored.put(hotel.getPhoneNumber(), hotel);
+        }
+
+        List<Hotel> created = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+            Hotel hotel = hotels.get(entry.getValue());
+            Hotel existing = stored.get(entry.getKey());
+            if (existing == null) {
+                hotel.setId(null);
+                hotel.setVersion(null);
+                created.add(hotel);
+            } else if (Objects.equals(existing.getName(), hotel.getName())
+                    && Objects.equals(existing.getPostCode(), hotel.getPostCode())
+                    && Objects.equals(existing.getCapacity(), hotel.getCapacity())) {
+                rows[entry.getValue()] = new HotelUpsertReport.Row(entry.getValue(), entry.getKey(),
+                        HotelUpsertReport.Status.UNCHANGED, existing.getId(), null);
+            } else {
+                existing.setName(hotel.getName());
+                existing.setPostCode(hotel.getPostCode());
+                existing.setCapacity(hotel.getCapacity());
+                rows[entry.getValue()] = new HotelUpsertReport.Row(entry.getValue(), entry.getKey(),
+                        HotelUpsertReport.Status.UPDATED, existing.getId(), null);
+            }
+        }
+
+        crud.createAllAndFlush(created);
+        for (Hotel hotel : created) {
+            int index = indexes.get(hotel.getPhoneNumber());
+            rows[index] = new HotelUpsertReport.Row(index, hotel.getPhoneNumber(), HotelUpsertReport.Status.CREATED,
+                    hotel.getId(), null);
+        }
+
+        HotelUpsertReport report = new HotelUpsertReport();
+        for (HotelUpsertReport.Row row : rows) {
+            report.add(row);
+        }
+        return report;
+    }
+
+    /**
+     * <p>Deletes the provided Hotel object from the application database if found there, with its bookings, the
+     * travel agent bookings made with them and its room inventory, deleted in bulk by {@link BookingCascade}.<p/>
      *
      * @param hotel The Hotel object to be removed from the application database
      * @return The Hotel object that has been successfully removed from the application database; or null
@@ -83,6 +196,7 @@ public class HotelService {
         Hotel deletedHotel = null;
 
         if (hotel.getId() != null) {
+            bookings.deleteForHotel(hotel.getId());
             deletedHotel = crud.delete(hotel);
         } else {
             log.info("delete() - No ID was found so can't Delete.");
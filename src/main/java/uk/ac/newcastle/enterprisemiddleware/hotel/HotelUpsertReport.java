@@ -0,0 +1,113 @@
+package uk.ac.newcastle.enterprisemiddleware.hotel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The outcome of a bulk load of hotels: totals, and the result of every hotel of the request, in request
+ * order.</p>
+ */
+public class HotelUpsertReport {
+
+    /**
+     * What became of a hotel of the request
+     */
+    public enum Status {
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private int created;
+    private int updated;
+    private int unchanged;
+    private int duplicates;
+    private int invalid;
+    private final List<Row> rows = new ArrayList<>();
+
+    void add(Row row) {
+        rows.add(row);
+        switch (row.getStatus()) {
+            case CREATED:
+                created++;
+                break;
+            case UPDATED:
+                updated++;
+                break;
+            case UNCHANGED:
+                unchanged++;
+                break;
+            case DUPLICATE:
+                duplicates++;
+                break;
+            default:
+                invalid++;
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    /**
+     * <p>The result of a hotel of the request: the id of the stored hotel, or the reasons it was rejected.</p>
+     */
+    public static class Row {
+        private final int index;
+        private final String phoneNumber;
+        private final Status status;
+        private final Long id;
+        private final Map<String, String> reasons;
+
+        Row(int index, String phoneNumber, Status status, Long id, Map<String, String> reasons) {
+            this.index = index;
+            this.phoneNumber = phoneNumber;
+            this.status = status;
+            this.id = id;
+            this.reasons = reasons;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getPhoneNumber() {
+            return phoneNumber;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Map<String, String> getReasons() {
+            return reasons;
+        }
+    }
+}
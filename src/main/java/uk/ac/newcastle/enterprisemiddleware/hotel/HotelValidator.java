@@ -1,14 +1,12 @@
 package uk.ac.newcastle.enterprisemiddleware.hotel;
 
+import uk.ac.newcastle.enterprisemiddleware.util.BeanValidation;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.persistence.NoResultException;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * <p> This class is responsible for validation and checks based on requirements. </p>
@@ -36,12 +34,7 @@ public class HotelValidator {
      * @throws ValidationException If hotel with the same phoneNumber already exists
      */
     void validateHotel(Hotel hotel) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-        Set<ConstraintViolation<Hotel>> violations = validator.validate(hotel);
-
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
-        }
+        validateFields(hotel);
 
         // Check the uniqueness of the phoneNumber
         if (phoneNumberAlreadyExists(hotel.getPhoneNumber(), hotel.getId())) {
@@ -49,6 +42,18 @@ public class HotelValidator {
         }
     }
 
+    /**
+     * <p>Validates the fields of the given Hotel object, without checking the uniqueness of its phone number, e.g. when
+     * the phone numbers of many hotels are looked up at once.</p>
+     *
+     * @param hotel The Hotel object to be validated
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     */
+    void validateFields(Hotel hotel) throws ConstraintViolationException {
+        // Create a bean validator and check for issues.
+        BeanValidation.validate(validator, hotel);
+    }
+
     /**
      * <p>Checks if a hotel with the same phone number is already registered.</p>
      *
@@ -60,24 +65,7 @@ public class HotelValidator {
      * @return boolean which represents whether the phoneNumber was found, and if so if it belongs to the user with id
      */
     boolean phoneNumberAlreadyExists(String phoneNumber, Long id) {
-        Hotel hotel = null;
-        Hotel hotelWithID;
-        try {
-            hotel = crud.findByPhoneNumber(phoneNumber);
-        } catch (NoResultException e) {
-            // ignore
-        }
-
-        if (hotel != null && id != null) {
-            try {
-                hotelWithID = crud.findById(id);
-                if (hotelWithID != null && hotelWithID.getPhoneNumber().equals(phoneNumber)) {
-                    hotel = null;
-                }
-            } catch (NoResultException e) {
-                // ignore
-            }
-        }
-        return hotel != null;
+        // Only the id of the owner is read: an unused phone number is an empty result, not an exception
+        return crud.findIdByPhoneNumber(phoneNumber).filter(owner -> !owner.equals(id)).isPresent();
     }
 }
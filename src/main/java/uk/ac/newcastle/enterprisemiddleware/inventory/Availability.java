@@ -0,0 +1,66 @@
+package uk.ac.newcastle.enterprisemiddleware.inventory;
+
+import java.time.LocalDate;
+
+/**
+ * <p>Rooms of a hotel for a date: how many there are, how many are booked or held, and how many can still be
+ * booked.</p>
+ */
+public class Availability {
+    private LocalDate date;
+    private int capacity;
+    private int booked;
+    private int held;
+    private int available;
+
+    public Availability() {
+    }
+
+    public Availability(LocalDate date, int capacity, int booked, int held) {
+        this.date = date;
+        this.capacity = capacity;
+        this.booked = booked;
+        this.held = held;
+        this.available = Math.max(0, capacity - booked - held);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public void setBooked(int booked) {
+        this.booked = booked;
+    }
+
+    public int getHeld() {
+        return held;
+    }
+
+    public void setHeld(int held) {
+        this.held = held;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.ac.newcastle.enterprisemiddleware.inventory;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+
+/**
+ * <p>Sent to the other instances of the application once a change to the room inventory has committed, so that they
+ * drop the availability they have cached for it.</p>
+ */
+public class AvailabilityChanged implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Long hotelId;
+    private final YearMonth month;
+
+    /**
+     * @param hotelId id of the hotel, or null for all the hotels
+     * @param month the month that changed, or null for all the months
+     */
+    AvailabilityChanged(Long hotelId, YearMonth month) {
+        this.hotelId = hotelId;
+        this.month = month;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityChanged{hotelId=" + hotelId + ", month=" + month + "}";
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.newcastle.enterprisemiddleware.inventory;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * <p>Number of rooms of a hotel booked for a date.</p>
+ *
+ * <p>The counter is the single place where bookings of the same hotel and date meet: a booking takes a room with a
+ * conditional UPDATE that only succeeds while the counter is below the capacity of the hotel, so no booking has to
+ * look for the others first. Rows are created when a date is first booked.</p>
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = HotelInventory.TAKE_ROOM, query = "UPDATE HotelInventory i SET i.booked = i.booked + 1 WHERE i.id.hotelId = :hotelId AND i.id.stayDate = :stayDate AND i.booked < :limit"),
+        @NamedQuery(name = HotelInventory.RELEASE_ROOM, query = "UPDATE HotelInventory i SET i.booked = CASE WHEN i.booked > :rooms THEN (i.booked - :rooms) ELSE 0 END WHERE i.id.hotelId = :hotelId AND i.id.stayDate = :stayDate"),
+        @NamedQuery(name = HotelInventory.FIND_BY_HOTEL_BETWEEN, query = "SELECT i FROM HotelInventory i WHERE i.id.hotelId = :hotelId AND i.id.stayDate >= :from AND i.id.stayDate <= :to"),
+        @NamedQuery(name = HotelInventory.DELETE_BY_HOTEL, query = "DELETE FROM HotelInventory i WHERE i.id.hotelId = :hotelId"),
+        @NamedQuery(name = HotelInventory.COUNT_BOOKINGS, query = "SELECT COUNT(b) FROM Booking b WHERE b.hotel.id = :hotelId AND b.bookingDate = :stayDate")
+})
+@Table(name = "hotel_inventory")
+public class HotelInventory implements Serializable {
+    public static final String TAKE_ROOM = "HotelInventory.takeRoom";
+    public static final String RELEASE_ROOM = "HotelInventory.releaseRoom";
+    public static final String FIND_BY_HOTEL_BETWEEN = "HotelInventory.findByHotelBetween";
+    public static final String DELETE_BY_HOTEL = "HotelInventory.deleteByHotel";
+    public static final String COUNT_BOOKINGS = "HotelInventory.countBookings";
+
+    @EmbeddedId
+    private HotelInventoryId id;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;
+
+    public HotelInventoryId getId() {
+        return id;
+    }
+
+    public void setId(HotelInventoryId id) {
+        this.id = id;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public void setBooked(int booked) {
+        this.booked = booked;
+    }
+
+    @Override
+    public String toString() {
+        return "{ hotelId = " + id.getHotelId() + ", stayDate = " + id.getStayDate() + ", booked = " + booked + " }";
+    }
+}
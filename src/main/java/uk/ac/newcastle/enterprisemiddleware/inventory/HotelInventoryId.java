@@ -0,0 +1,52 @@
+package uk.ac.newcastle.enterprisemiddleware.inventory;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * <p>Primary key of a {@link HotelInventory} row: a hotel and a date.</p>
+ */
+@Embeddable
+public class HotelInventoryId implements Serializable {
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "stay_date", nullable = false)
+    private Date stayDate;
+
+    public HotelInventoryId() {
+    }
+
+    public HotelInventoryId(Long hotelId, Date stayDate) {
+        this.hotelId = hotelId;
+        this.stayDate = stayDate;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public Date getStayDate() {
+        return stayDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HotelInventoryId)) return false;
+        HotelInventoryId that = (HotelInventoryId) o;
+        return hotelId.equals(that.hotelId) && stayDate.getTime() == that.stayDate.getTime();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hotelId, stayDate.getTime());
+    }
+}
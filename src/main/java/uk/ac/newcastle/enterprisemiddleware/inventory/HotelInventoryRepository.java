@@ -0,0 +1,124 @@
+package uk.ac.newcastle.enterprisemiddleware.inventory;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * This is a repository class that connects the inventory service to the {@link HotelInventory} rows
+ *
+ * @see HotelInventory
+ * */
+@RequestScoped
+public class HotelInventoryRepository {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    EntityManager em;
+
+    /**
+     * <p>Increments the number of rooms booked for a hotel and date, if it is below the limit.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param stayDate date of the stay
+     * @param limit number of rooms that may be booked at most
+     * @return 1 if a room was taken, 0 if the limit is reached or the row does not exist
+     */
+    int takeRoom(Long hotelId, Date stayDate, int limit) {
+        return em.createNamedQuery(HotelInventory.TAKE_ROOM)
+                .setParameter("hotelId", hotelId)
+                .setParameter("stayDate", stayDate)
+                .setParameter("limit", limit)
+                .executeUpdate();
+    }
+
+    /**
+     * <p>Decrements the number of rooms booked for a hotel and date, down to 0 at most.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param stayDate date of the stay
+     * @param rooms number of rooms to release
+     * @return 1 if the rooms were released, 0 if the date has no inventory row
+     */
+    int releaseRooms(Long hotelId, Date stayDate, int rooms) {
+        return em.createNamedQuery(HotelInventory.RELEASE_ROOM)
+                .setParameter("hotelId", hotelId)
+                .setParameter("stayDate", stayDate)
+                .setParameter("rooms", rooms)
+                .executeUpdate();
+    }
+
+    /**
+     * @param hotelId id of the hotel
+     * @param from first date, inclusive
+     * @param to last date, inclusive
+     * @return the rows of the dates of the range that have been booked at least once, in no particular order
+     */
+    List<HotelInventory> findByHotelBetween(Long hotelId, Date from, Date to) {
+        return em.createNamedQuery(HotelInventory.FIND_BY_HOTEL_BETWEEN, HotelInventory.class)
+                .setParameter("hotelId", hotelId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    /**
+     * @param hotelId id of the hotel
+     * @param stayDate date of the stay
+     * @return true if the row of the hotel and date exists
+     */
+    boolean exists(Long hotelId, Date stayDate) {
+        return em.find(HotelInventory.class, new HotelInventoryId(hotelId, stayDate)) != null;
+    }
+
+    /**
+     * <p>Creates the row of a hotel and date, counting the bookings already made, in a transaction of its own so that
+     * concurrent bookings see it at once. When two requests create the same row, the primary key rejects the second
+     * one, which is then left to the first.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param stayDate date of the stay
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    void createIfAbsent(Long hotelId, Date stayDate) {
+        HotelInventoryId id = new HotelInventoryId(hotelId, stayDate);
+        if (em.find(HotelInventory.class, id) != null) {
+            return;
+        }
+
+        Long booked = em.createNamedQuery(HotelInventory.COUNT_BOOKINGS, Long.class)
+                .setParameter("hotelId", hotelId)
+                .setParameter("stayDate", stayDate)
+                .getSingleResult();
+
+        HotelInventory inventory = new HotelInventory();
+        inventory.setId(id);
+        inventory.setBooked(booked.intValue());
+        try {
+            em.persist(inventory);
+            em.flush();
+            log.info("HotelInventoryRepository.createIfAbsent() - Created " + inventory);
+        } catch (PersistenceException e) {
+            log.info("HotelInventoryRepository.createIfAbsent() - Created concurrently " + inventory);
+        }
+    }
+
+    /**
+     * @param hotelId id of the hotel whose rows are removed
+     * @return the number of rows removed
+     */
+    int deleteByHotel(Long hotelId) {
+        return em.createNamedQuery(HotelInventory.DELETE_BY_HOTEL)
+                .setParameter("hotelId", hotelId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,208 @@
+package uk.ac.newcastle.enterprisemiddleware.inventory;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import uk.ac.newcastle.enterprisemiddleware.cluster.Cluster;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <p>Service Class for the room inventory of the hotels.</p>
+ *
+ * <p>Bookings take and release rooms on the {@link HotelInventory} counters. Availability is read from a per hotel
+ * and month aggregate of the counters, kept in the "hotel-availability" cache and invalidated once a change to the
+ * month has committed. The change is also broadcast to the other instances of the application, which invalidate their
+ * own cache.</p>
+ */
+@Dependent
+public class InventoryService {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    HotelInventoryRepository crud;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @Inject
+    Cluster cluster;
+
+    @Inject
+    @CacheName("hotel-availability")
+    Cache availabilityCache;
+
+    /**
+     * <p>Takes a room of a hotel for a date, as part of the current transaction.</p>
+     *
+     * @param hotel the hotel
+     * @param stayDate the date of the stay
+     * @param unavailable rooms that cannot be taken although they are not booked, e.g. held for other requests
+     * @return true if a room was taken, false if the hotel is full for that date
+     */
+    public boolean takeRoom(Hotel hotel, Date stayDate, int unavailable) {
+        int limit = hotel.getCapacity() - unavailable;
+        if (limit <= 0) {
+            return false;
+        }
+
+        if (crud.takeRoom(hotel.getId(), stayDate, limit) == 0) {
+            // Either the hotel is full, or this is the first booking of the date.
+            if (crud.exists(hotel.getId(), stayDate)) {
+                return false;
+            }
+            crud.createIfAbsent(hotel.getId(), stayDate);
+            if (crud.takeRoom(hotel.getId(), stayDate, limit) == 0) {
+                return false;
+            }
+        }
+
+        invalidateAfterCommit(hotel.getId(), stayDate);
+        return true;
+    }
+
+    /**
+     * <p>Releases a room of a hotel for a date, e.g. when a booking is deleted.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param stayDate the date of the stay
+     */
+    public void releaseRoom(Long hotelId, Date stayDate) {
+        releaseRooms(hotelId, stayDate, 1);
+    }
+
+    /**
+     * <p>Releases rooms of a hotel for a date, e.g. when the bookings of a customer are deleted.</p>
+     *
+     * <p>The counter never goes below 0. A date without an inventory row has nothing to release, which should not
+     * happen for a date that was booked, so it is logged.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param stayDate the date of the stay
+     * @param rooms number of rooms to release
+     */
+    public void releaseRooms(Long hotelId, Date stayDate, int rooms) {
+        if (crud.releaseRooms(hotelId, stayDate, rooms) == 0) {
+            log.warning("InventoryService.releaseRooms() - No inventory of hotel " + hotelId + " on " + stayDate
+                    + " to release " + rooms + " room(s) from");
+        }
+        invalidateAfterCommit(hotelId, stayDate);
+    }
+
+    /**
+     * <p>Removes the inventory of a hotel, before the hotel itself is deleted.</p>
+     *
+     * @param hotelId id of the hotel
+     */
+    public void deleteHotel(Long hotelId) {
+        crud.deleteByHotel(hotelId);
+        changedAfterCommit(new AvailabilityChanged(null, null));
+    }
+
+    /**
+     * @param hotelId id of the hotel
+     * @param date the date of the stay
+     * @return the number of rooms booked for that date, possibly a few seconds stale
+     */
+    public int booked(Long hotelId, LocalDate date) {
+        return bookedInMonth(hotelId, YearMonth.from(date)).getOrDefault(date, 0);
+    }
+
+    /**
+     * @param hotelId id of the hotel
+     * @param date the date of the stay
+     * @return the number of rooms booked for that date, possibly a few seconds stale
+     */
+    public int booked(Long hotelId, Date date) {
+        return booked(hotelId, toLocalDate(date));
+    }
+
+    /**
+     * @param date a booking date
+     * @return the same day, in the time zone booking dates are stored in
+     */
+    public static LocalDate toLocalDate(Date date) {
+        return date instanceof java.sql.Date ? ((java.sql.Date) date).toLocalDate()
+                : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * Booked rooms of every booked date of a month, loaded with one query and cached
+     * */
+    private Map<LocalDate, Integer> bookedInMonth(Long hotelId, YearMonth month) {
+        return availabilityCache.get(new CompositeCacheKey(hotelId, month), key -> {
+            Map<LocalDate, Integer> booked = new HashMap<>();
+            for (HotelInventory inventory : crud.findByHotelBetween(hotelId, java.sql.Date.valueOf(month.atDay(1)),
+                    java.sql.Date.valueOf(month.atEndOfMonth()))) {
+                booked.put(toLocalDate(inventory.getId().getStayDate()), inventory.getBooked());
+            }
+            return Collections.unmodifiableMap(booked);
+        }).await().indefinitely();
+    }
+
+    private void invalidateAfterCommit(Long hotelId, Date stayDate) {
+        changedAfterCommit(new AvailabilityChanged(hotelId, YearMonth.from(toLocalDate(stayDate))));
+    }
+
+    private void changedAfterCommit(AvailabilityChanged change) {
+        afterCommit(() -> {
+            invalidate(change);
+            cluster.broadcast(change);
+        });
+    }
+
+    /**
+     * <p>Drops the availability cached for a change made through another instance of the application.</p>
+     *
+     * @param change the change
+     */
+    void onAvailabilityChanged(@Observes AvailabilityChanged change) {
+        invalidate(change);
+    }
+
+    private void invalidate(AvailabilityChanged change) {
+        if (change.getHotelId() == null) {
+            availabilityCache.invalidateAll().await().indefinitely();
+        } else {
+            availabilityCache.invalidate(new CompositeCacheKey(change.getHotelId(), change.getMonth()))
+                    .await().indefinitely();
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (transactions.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            change.run();
+            return;
+        }
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    change.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.newcastle.enterprisemiddleware.itinerary;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * <p>A page of a customer's itinerary, ordered by date.</p>
+ *
+ * <p>When there are more stays in the requested range, <code>nextFrom</code> and <code>nextAfter</code> are the
+ * <code>from</code> and <code>after</code> query parameters of the next page; they are null on the last page.</p>
+ */
+public class Itinerary {
+    private Long customerId;
+    private List<ItineraryEntry> entries;
+    private LocalDate nextFrom;
+    private Long nextAfter;
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public List<ItineraryEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<ItineraryEntry> entries) {
+        this.entries = entries;
+    }
+
+    public LocalDate getNextFrom() {
+        return nextFrom;
+    }
+
+    public void setNextFrom(LocalDate nextFrom) {
+        this.nextFrom = nextFrom;
+    }
+
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(Long nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.newcastle.enterprisemiddleware.itinerary;
+
+import java.util.Date;
+
+/**
+ * <p>One stay of a customer's itinerary, flattened: the hotel booking, and the flight and taxi booked with it when the
+ * stay was booked through the travel agent.</p>
+ *
+ * <p>The local columns are projected by the {@link ItineraryRepository} query. The flight and taxi details come from
+ * the remote services and are left empty when a remote service could not be reached in time.</p>
+ */
+public class ItineraryEntry {
+    private Long bookingId;
+    private Date bookingDate;
+    private Long hotelId;
+    private String hotelName;
+    private String hotelPostCode;
+    private Long travelAgentBookingId;
+    private Long flightBookingId;
+    private String flightNumber;
+    private String flightOrigin;
+    private String flightDestination;
+    private Long taxiBookingId;
+    private String taxiRegistrationNumber;
+
+    public ItineraryEntry() {
+    }
+
+    public ItineraryEntry(Long bookingId, Date bookingDate, Long hotelId, String hotelName, String hotelPostCode,
+                          Long travelAgentBookingId, Long flightBookingId, Long taxiBookingId) {
+        this.bookingId = bookingId;
+        this.bookingDate = bookingDate;
+        this.hotelId = hotelId;
+        this.hotelName = hotelName;
+        this.hotelPostCode = hotelPostCode;
+        this.travelAgentBookingId = travelAgentBookingId;
+        this.flightBookingId = flightBookingId;
+        this.taxiBookingId = taxiBookingId;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(Long bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public Date getBookingDate() {
+        return bookingDate;
+    }
+
+    public void setBookingDate(Date bookingDate) {
+        this.bookingDate = bookingDate;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public void setHotelId(Long hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    public String getHotelName() {
+        return hotelName;
+    }
+
+    public void setHotelName(String hotelName) {
+        this.hotelName = hotelName;
+    }
+
+    public String getHotelPostCode() {
+        return hotelPostCode;
+    }
+
+    public void setHotelPostCode(String hotelPostCode) {
+        this.hotelPostCode = hotelPostCode;
+    }
+
+    public Long getTravelAgentBookingId() {
+        return travelAgentBookingId;
+    }
+
+    public void setTravelAgentBookingId(Long travelAgentBookingId) {
+        this.travelAgentBookingId = travelAgentBookingId;
+    }
+
+    public Long getFlightBookingId() {
+        return flightBookingId;
+    }
+
+    public void setFlightBookingId(Long flightBookingId) {
+        this.flightBookingId = flightBookingId;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public void setFlightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+    }
+
+    public String getFlightOrigin() {
+        return flightOrigin;
+    }
+
+    public void setFlightOrigin(String flightOrigin) {
+        this.flightOrigin = flightOrigin;
+    }
+
+    public String getFlightDestination() {
+        return flightDestination;
+    }
+
+    public void setFlightDestination(String flightDestination) {
+        this.flightDestination = flightDestination;
+    }
+
+    public Long getTaxiBookingId() {
+        return taxiBookingId;
+    }
+
+    public void setTaxiBookingId(Long taxiBookingId) {
+        this.taxiBookingId = taxiBookingId;
+    }
+
+    public String getTaxiRegistrationNumber() {
+        return taxiRegistrationNumber;
+    }
+
+    public void setTaxiRegistrationNumber(String taxiRegistrationNumber) {
+        this.taxiRegistrationNumber = taxiRegistrationNumber;
+    }
+}
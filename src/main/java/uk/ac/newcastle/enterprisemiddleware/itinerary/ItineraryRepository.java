@@ -0,0 +1,44 @@
+package uk.ac.newcastle.enterprisemiddleware.itinerary;
+
+import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * <p>Reads the itinerary of a customer with a single query, projecting the columns of its hotel bookings and of the
+ * travel agent bookings made with them straight into {@link ItineraryEntry} objects.</p>
+ */
+@RequestScoped
+public class ItineraryRepository {
+
+    @Inject
+    ReadRouting routing;
+
+    /**
+     * <p>Returns the stays of a customer between two dates, ordered by date and booking id, starting after a given
+     * stay (keyset pagination).</p>
+     *
+     * @param customerId id of the customer
+     * @param from the first date, or the date of the last stay of the previous page
+     * @param to the last date
+     * @param after id of the last stay of the previous page, or 0 for the first page
+     * @param limit maximum number of stays
+     * @return List of ItineraryEntry objects
+     */
+    @ReadOnly
+    List<ItineraryEntry> findByCustomerId(Long customerId, LocalDate from, LocalDate to, long after, int limit) {
+        TypedQuery<ItineraryEntry> query = routing.entityManager().createNamedQuery(Booking.FIND_ITINERARY_BY_CUSTOMER_ID, ItineraryEntry.class)
+                .setParameter("customerId", customerId)
+                .setParameter("from", java.sql.Date.valueOf(from))
+                .setParameter("to", java.sql.Date.valueOf(to))
+                .setParameter("after", after)
+                .setMaxResults(limit);
+        return query.getResultList();
+    }
+}
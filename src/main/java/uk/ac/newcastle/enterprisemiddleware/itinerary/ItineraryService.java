@@ -0,0 +1,176 @@
+package uk.ac.newcastle.enterprisemiddleware.itinerary;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import uk.ac.newcastle.enterprisemiddleware.booking.archive.ArchiveService;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightBookingModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.TaxiBookingModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.FlightService;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.TaxiService;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * <p>Service Class for the itinerary of a customer: its hotel bookings, with the flights and taxis booked with them
+ * through the travel agent.</p>
+ *
+ * <p>The local part of a page is read with one query. The remote flight and taxi bookings of the page are then
+ * fetched all at once, each on a worker thread, through the "remote-bookings" cache, and the page waits for them for
+ * at most <code>itinerary.remote.timeout-millis</code>. A remote booking that fails or takes longer is left out of the
+ * entry (only its id is returned) and is not cached, so the next request tries again.</p>
+ *
+ * <p>Stays moved to the archive are only read when asked for. The archive is then paged with the same keyset, and the
+ * two pages are merged.</p>
+ */
+@Dependent
+public class ItineraryService {
+
+    private static final Comparator<ItineraryEntry> ORDER = Comparator
+            .comparing((ItineraryEntry entry) -> entry.getBookingDate().getTime())
+            .thenComparing(ItineraryEntry::getBookingId);
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    ItineraryRepository crud;
+
+    @Inject
+    ArchiveService archive;
+
+    @RestClient
+    FlightService flightService;
+
+    @RestClient
+    TaxiService taxiService;
+
+    @Inject
+    @CacheName("remote-bookings")
+    Cache remoteBookings;
+
+    @ConfigProperty(name = "itinerary.remote.timeout-millis", defaultValue = "2000")
+    long remoteTimeoutMillis;
+
+    /**
+     * <p>Returns a page of the itinerary of a customer.</p>
+     *
+     * @param customerId id of the customer
+     * @param from the first date of the page
+     * @param to the last date of the itinerary
+     * @param after id of the last stay of the previous page, when <code>from</code> is its date, or 0
+     * @param limit maximum number of stays of the page
+     * @param includeArchived whether to include the stays moved to the archive
+     * @return the page
+     */
+    public Itinerary find(Long customerId, LocalDate from, LocalDate to, long after, int limit, boolean includeArchived) {
+        List<ItineraryEntry> entries = crud.findByCustomerId(customerId, from, to, after, limit + 1);
+        if (includeArchived) {
+            entries = merge(entries, archive.findItineraryByCustomerId(customerId, java.sql.Date.valueOf(from),
+                    java.sql.Date.valueOf(to), after, limit + 1), limit + 1);
+        }
+
+        Itinerary itinerary = new Itinerary();
+        itinerary.setCustomerId(customerId);
+        if (entries.size() > limit) {
+            entries = entries.subList(0, limit);
+            ItineraryEntry last = entries.get(limit - 1);
+            itinerary.setNextFrom(new java.sql.Date(last.getBookingDate().getTime()).toLocalDate());
+            itinerary.setNextAfter(last.getBookingId());
+        }
+        itinerary.setEntries(entries);
+
+        enrich(entries);
+        return itinerary;
+    }
+
+    /**
+     * Merges two pages ordered by date and id into one, keeping the first entries
+     * */
+    private static List<ItineraryEntry> merge(List<ItineraryEntry> live, List<ItineraryEntry> archived, int limit) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<ItineraryEntry> merged = new ArrayList<>(Math.min(limit, live.size() + archived.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < live.size() || j < archived.size())) {
+            if (j == archived.size() || (i < live.size() && ORDER.compare(live.get(i), archived.get(j)) < 0)) {
+                merged.add(live.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Fills in the details of the remote bookings of the entries, fetched concurrently
+     * */
+    private void enrich(List<ItineraryEntry> entries) {
+        Map<Long, Uni<FlightBookingModel>> flights = new HashMap<>();
+        Map<Long, Uni<TaxiBookingModel>> taxis = new HashMap<>();
+        for (ItineraryEntry entry : entries) {
+            if (entry.getFlightBookingId() != null) {
+                flights.computeIfAbsent(entry.getFlightBookingId(),
+                        id -> remote("flight", id, () -> flightService.getBookingById(id)));
+            }
+            if (entry.getTaxiBookingId() != null) {
+                taxis.computeIfAbsent(entry.getTaxiBookingId(),
+                        id -> remote("taxi", id, () -> taxiService.getBookingById(id)));
+            }
+        }
+        if (flights.isEmpty() && taxis.isEmpty()) {
+            return;
+        }
+
+        List<Uni<?>> lookups = new ArrayList<>(flights.values());
+        lookups.addAll(taxis.values());
+        Uni.combine().all().unis(lookups).discardItems().await().indefinitely();
+
+        // The lookups have completed (and are memoized), so these only read their results
+        for (ItineraryEntry entry : entries) {
+            if (entry.getFlightBookingId() != null) {
+                FlightBookingModel flight = flights.get(entry.getFlightBookingId()).await().indefinitely();
+                if (flight != null && flight.getFlight() != null) {
+                    entry.setFlightNumber(flight.getFlight().getNumber());
+                    entry.setFlightOrigin(flight.getFlight().getOrigin());
+                    entry.setFlightDestination(flight.getFlight().getDestination());
+                }
+            }
+            if (entry.getTaxiBookingId() != null) {
+                TaxiBookingModel taxi = taxis.get(entry.getTaxiBookingId()).await().indefinitely();
+                if (taxi != null && taxi.getTaxi() != null) {
+                    entry.setTaxiRegistrationNumber(taxi.getTaxi().getRegistrationNumber());
+                }
+            }
+        }
+    }
+
+    private <T> Uni<T> remote(String service, Long id, Supplier<T> call) {
+        return Uni.createFrom().deferred(() -> remoteBookings.<CompositeCacheKey, T>get(new CompositeCacheKey(service, id), key -> call.get()))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .ifNoItem().after(Duration.ofMillis(remoteTimeoutMillis)).fail()
+                .onFailure().recoverWithItem(e -> {
+                    log.warning("ItineraryService - " + service + " booking " + id + " not available: " + e);
+                    return null;
+                })
+                .memoize().indefinitely();
+    }
+}
@@ -0,0 +1,321 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>In-memory inverted index of the search text of one entity type.</p>
+ *
+ * <p>Every query term is matched against the indexed terms in four ways, from the best to the weakest match:</p>
+ * <ul>
+ *     <li>exactly,</li>
+ *     <li>as a prefix (a sorted term dictionary makes this a range lookup),</li>
+ *     <li>within one typo - insertion, deletion, substitution or transposition of a character (the dictionary of terms
+ *     with one character deleted finds the candidates without scanning all the terms),</li>
+ *     <li>phonetically, with the American Soundex code of the term.</li>
+ * </ul>
+ *
+ * <p>A document matches a query when each query term matches one of its terms. Documents are ranked by the sum of the
+ * best match of each query term, then by id. All lookups are hash or tree lookups, so the cost of a query depends on
+ * the number of matches and not on the number of documents.</p>
+ *
+ * <p>The index is safe for concurrent use: queries share a read lock, changes take the write lock.</p>
+ */
+public class SearchIndex {
+    static final int EXACT = 8;
+    static final int PREFIX = 4;
+    static final int FUZZY = 2;
+    static final int PHONETIC = 1;
+
+    /** Shorter terms get too many fuzzy matches to be useful */
+    private static final int MIN_FUZZY_LENGTH = 4;
+    /** Bounds the work done for very short prefixes */
+    private static final int MAX_PREFIX_TERMS = 512;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    private final Map<String, Set<String>> phonetics = new HashMap<>();
+
+    /**
+     * <p>Adds a document, or replaces its text if it is already indexed.</p>
+     *
+     * @param id id of the entity
+     * @param text search text of the entity
+     */
+    public void put(Long id, String text) {
+        Set<String> terms = tokenize(text);
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            documents.put(id, terms);
+            for (String term : terms) {
+                addTerm(term, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id id of the entity to remove from the index
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * <p>Returns the ids of the documents matching all the terms of a query, best matches first.</p>
+     *
+     * @param query free text query
+     * @param offset number of matches to skip
+     * @param limit maximum number of ids to return
+     * @return the matching ids
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        Set<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<Long, Integer> matches = match(token);
+                if (scores == null) {
+                    scores = matches;
+                } else {
+                    scores.keySet().retainAll(matches.keySet());
+                    scores.replaceAll((id, score) -> score + matches.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size() && ids.size() < limit; i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * Best score of every document having a term that matches the token
+     * */
+    private Map<Long, Integer> match(String token) {
+        Map<Long, Integer> best = new HashMap<>();
+        score(best, postings.get(token), EXACT);
+
+        int expanded = 0;
+        for (Set<Long> ids : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+            if (++expanded > MAX_PREFIX_TERMS) {
+                break;
+            }
+            score(best, ids, PREFIX);
+        }
+
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            for (String term : fuzzyTerms(token)) {
+                score(best, postings.get(term), FUZZY);
+            }
+        }
+
+        String code = soundex(token);
+        if (code != null) {
+            for (String term : phonetics.getOrDefault(code, Collections.emptySet())) {
+                score(best, postings.get(term), PHONETIC);
+            }
+        }
+        return best;
+    }
+
+    private static void score(Map<Long, Integer> best, Set<Long> ids, int score) {
+        if (ids != null) {
+            for (Long id : ids) {
+                best.merge(id, score, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Indexed terms one typo away from the token. Two strings within one edit share either one of them, or a
+     * string obtained by deleting one character from each.
+     * */
+    private Set<String> fuzzyTerms(String token) {
+        Set<String> candidates = new HashSet<>(deletions.getOrDefault(token, Collections.emptySet()));
+        for (String deleted : deletionsOf(token)) {
+            if (postings.containsKey(deleted)) {
+                candidates.add(deleted);
+            }
+            candidates.addAll(deletions.getOrDefault(deleted, Collections.emptySet()));
+        }
+        candidates.removeIf(term -> term.equals(token) || distance(token, term) > 1);
+        return candidates;
+    }
+
+    private void addTerm(String term, Long id) {
+        Set<Long> ids = postings.get(term);
+        if (ids == null) {
+            ids = new HashSet<>();
+            postings.put(term, ids);
+            for (String deleted : deletionsOf(term)) {
+                deletions.computeIfAbsent(deleted, key -> new HashSet<>()).add(term);
+            }
+            String code = soundex(term);
+            if (code != null) {
+                phonetics.computeIfAbsent(code, key -> new HashSet<>()).add(term);
+            }
+        }
+        ids.add(id);
+    }
+
+    private void removeDocument(Long id) {
+        Set<String> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+                for (String deleted : deletionsOf(term)) {
+                    removeFrom(deletions, deleted, term);
+                }
+                String code = soundex(term);
+                if (code != null) {
+                    removeFrom(phonetics, code, term);
+                }
+            }
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<String>> map, String key, String term) {
+        Set<String> terms = map.get(key);
+        if (terms != null) {
+            terms.remove(term);
+            if (terms.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text != null) {
+            for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> deletionsOf(String term) {
+        Set<String> deleted = new HashSet<>();
+        if (term.length() >= MIN_FUZZY_LENGTH - 1) {
+            for (int i = 0; i < term.length(); i++) {
+                deleted.add(term.substring(0, i) + term.substring(i + 1));
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Optimal string alignment distance: Levenshtein distance counting a transposition of adjacent characters as
+     * a single edit
+     * */
+    static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    /**
+     * American Soundex code of a lower case term, or null when the term does not start with a latin letter
+     * */
+    static String soundex(String term) {
+        if (term.isEmpty() || term.charAt(0) < 'a' || term.charAt(0) > 'z') {
+            return null;
+        }
+        StringBuilder code = new StringBuilder().append(Character.toUpperCase(term.charAt(0)));
+        char previous = soundexDigit(term.charAt(0));
+        for (int i = 1; i < term.length() && code.length() < 4; i++) {
+            char c = term.charAt(i);
+            char digit = soundexDigit(c);
+            if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            // 'h' and 'w' do not separate letters with the same code, vowels do
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    private static char soundexDigit(char c) {
+        switch (c) {
+            case 'b': case 'f': case 'p': case 'v':
+                return '1';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+                return '2';
+            case 'd': case 't':
+                return '3';
+            case 'l':
+                return '4';
+            case 'm': case 'n':
+                return '5';
+            case 'r':
+                return '6';
+            default:
+                return '0';
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import java.io.Serializable;
+
+/**
+ * <p>A change to a {@link Searchable} entity, sent to the other instances of the application within a
+ * {@link SearchIndexesChanged}.</p>
+ */
+public class SearchIndexChanged implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String type;
+    private final Long id;
+    private final String text;
+
+    /**
+     * @param type class name of the entity
+     * @param id id of the entity
+     * @param text its new search text, or null if it was removed
+     */
+    SearchIndexChanged(String type, Long id, String text) {
+        this.type = type;
+        this.id = id;
+        this.text = text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchIndexChanged{type=" + type + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import javax.enterprise.inject.spi.CDI;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * <p>JPA entity listener keeping the {@link SearchIndexes} in step with the {@link Searchable} entities.</p>
+ *
+ * <p>Entity listeners are created by Hibernate rather than by CDI, so the indexes are looked up from the
+ * container.</p>
+ */
+public class SearchIndexListener {
+
+    @PostPersist
+    @PostUpdate
+    void updated(Object entity) {
+        indexes().updated((Searchable) entity);
+    }
+
+    @PostRemove
+    void removed(Object entity) {
+        indexes().removed((Searchable) entity);
+    }
+
+    private static SearchIndexes indexes() {
+        return CDI.current().select(SearchIndexes.class).get();
+    }
+}
@@ -0,0 +1,48 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.QueryHints;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Reads the search texts of the {@link Searchable} entities from the database, a batch at a time, for
+ * {@link SearchIndexes}.</p>
+ */
+@Dependent
+public class SearchIndexLoader {
+
+    @Inject
+    EntityManager em;
+
+    /**
+     * <p>Reads the search texts of the entities of a type following the given id, in id order, in a transaction of
+     * its own. The entities are read only and bypass the second-level cache, and are dropped with the transaction.</p>
+     *
+     * @param entityName the JPQL name of the Searchable entity
+     * @param after the id of the last entity of the previous batch, or 0
+     * @param limit the maximum number of entities to read
+     * @return the search texts by id, in id order
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    Map<Long, String> loadBatch(String entityName, long after, int limit) {
+        List<?> entities = em.createQuery("SELECT e FROM " + entityName + " e WHERE e.id > :after ORDER BY e.id")
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultList();
+        Map<Long, String> texts = new LinkedHashMap<>();
+        for (Object entity : entities) {
+            Searchable searchable = (Searchable) entity;
+            texts.put(searchable.getId(), searchable.searchText());
+        }
+        return texts;
+    }
+}
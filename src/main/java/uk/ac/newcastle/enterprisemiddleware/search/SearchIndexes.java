@@ -0,0 +1,273 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import io.quarkus.runtime.StartupEvent;
+import uk.ac.newcastle.enterprisemiddleware.cluster.Cluster;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * <p>Holds one {@link SearchIndex} per {@link Searchable} entity type.</p>
+ *
+ * <p>The indexes are built from the database in the background once the application has started, then follow the
+ * entity lifecycle events reported by the {@link SearchIndexListener}. Changes are applied once their transaction has
+ * committed, so rolled back writes never reach the index, and the changes of a transaction are then broadcast in a
+ * single message to the other instances of the application for their own indexes. Bulk JPQL updates and deletes
+ * bypass the lifecycle events, which is why search results are always loaded from the database by id.</p>
+ *
+ * <p>Until the indexes are built the instance is not ready (see {@link #isLoaded()}), and searches may miss
+ * entities.</p>
+ */
+@ApplicationScoped
+public class SearchIndexes {
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final long LOAD_RETRY_MILLIS = 5000;
+
+    /**
+     * Key of the changes of the current transaction in the transaction synchronization registry
+     * */
+    private static final Object PENDING = new Object();
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    SearchIndexLoader loader;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @Inject
+    Cluster cluster;
+
+    private final Map<String, SearchIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of the entities changed while the indexes are being built, by type: the texts read before the change must
+     * not overwrite it
+     * */
+    private final Map<String, Set<Long>> changedWhileLoading = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * <p>Starts building the index of every Searchable entity on a thread of its own, so that the start up does not
+     * wait for it.</p>
+     */
+    void onStart(@Observes StartupEvent event) {
+        List<EntityType<?>> searchable = new ArrayList<>();
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            if (Searchable.class.isAssignableFrom(entity.getJavaType())) {
+                searchable.add(entity);
+            }
+        }
+        Thread loading = new Thread(() -> load(searchable), "search-index-loader");
+        loading.setDaemon(true);
+        loading.start();
+    }
+
+    /**
+     * @return true once the index of every Searchable entity has been built
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * A failed build, e.g. while the database is unreachable, is started again after a pause
+     * */
+    private void load(List<EntityType<?>> searchable) {
+        long start = System.nanoTime();
+        while (!tryLoad(searchable)) {
+            try {
+                Thread.sleep(LOAD_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        synchronized (changedWhileLoading) {
+            changedWhileLoading.clear();
+            loaded = true;
+        }
+        log.info("SearchIndexes.load() - Built in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private boolean tryLoad(List<EntityType<?>> searchable) {
+        try {
+            for (EntityType<?> entity : searchable) {
+                SearchIndex index = index(entity.getJavaType());
+                load(entity.getName(), entity.getJavaType().getName(), index);
+                log.info("SearchIndexes.load() - Indexed " + index.size() + " " + entity.getName() + " entities");
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.severe("SearchIndexes.load() - Could not build the search indexes, retrying: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * The table is read LOAD_BATCH_SIZE rows at a time in id order, each batch in a short transaction of its own, so
+     * neither the memory used nor the length of a transaction grows with the size of the table
+     * */
+    private void load(String entityName, String type, SearchIndex index) {
+        long after = 0;
+        Map<Long, String> batch;
+        do {
+            batch = loader.loadBatch(entityName, after, LOAD_BATCH_SIZE);
+            synchronized (changedWhileLoading) {
+                Set<Long> changed = changedWhileLoading.getOrDefault(type, Collections.emptySet());
+                for (Map.Entry<Long, String> text : batch.entrySet()) {
+                    if (!changed.contains(text.getKey())) {
+                        index.put(text.getKey(), text.getValue());
+                    }
+                    after = text.getKey();
+                }
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+    }
+
+    /**
+     * <p>Returns the ids of the entities of a type matching a free text query, best matches first.</p>
+     *
+     * @param type the Searchable entity class
+     * @param query free text query, tolerant to typos, prefixes and spelling variants
+     * @param offset number of matches to skip
+     * @param limit maximum number of ids to return
+     * @return the matching ids
+     */
+    public List<Long> search(Class<? extends Searchable> type, String query, int offset, int limit) {
+        return index(type).search(query, offset, limit);
+    }
+
+    /**
+     * <p>Sorts entities loaded by id in the order of the ids returned by a search. Ids that could not be loaded
+     * (e.g. entities deleted since they were indexed) are skipped.</p>
+     *
+     * @param ids the ids returned by {@link #search(Class, String, int, int)}
+     * @param entities the entities loaded for these ids
+     * @return the entities in the order of the ids
+     */
+    public static <T extends Searchable> List<T> inOrder(List<Long> ids, List<T> entities) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : entities) {
+            byId.put(entity.getId(), entity);
+        }
+        List<T> ordered = new ArrayList<>(entities.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * <p>Indexes an entity once the current transaction has committed. Called by the {@link SearchIndexListener}, and
+     * directly for an entity written without the lifecycle events, e.g. by a native insert.</p>
+     *
+     * @param entity the entity inserted or updated
+     */
+    public void updated(Searchable entity) {
+        changedAfterCommit(new SearchIndexChanged(entity.getClass().getName(), entity.getId(), entity.searchText()));
+    }
+
+    void removed(Searchable entity) {
+        changedAfterCommit(new SearchIndexChanged(entity.getClass().getName(), entity.getId(), null));
+    }
+
+    /**
+     * <p>Applies the changes of a transaction committed through another instance of the application.</p>
+     *
+     * @param changes the changes
+     */
+    void onSearchIndexesChanged(@Observes SearchIndexesChanged changes) {
+        for (SearchIndexChanged change : changes.getChanges()) {
+            apply(change);
+        }
+    }
+
+    /**
+     * Outside of a transaction the change is applied and broadcast at once
+     * */
+    private void changedAfterCommit(SearchIndexChanged change) {
+        if (transactions.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            apply(change);
+            cluster.broadcast(new SearchIndexesChanged(Collections.singleton(change)));
+            return;
+        }
+        pending().put(change.getType() + "#" + change.getId(), change);
+    }
+
+    /**
+     * The first change of a transaction registers the application and the broadcast of all of them, once it has
+     * committed; a later change to the same entity replaces an earlier one
+     * */
+    @SuppressWarnings("unchecked")
+    private Map<String, SearchIndexChanged> pending() {
+        Map<String, SearchIndexChanged> changes = (Map<String, SearchIndexChanged>) transactions.getResource(PENDING);
+        if (changes != null) {
+            return changes;
+        }
+        Map<String, SearchIndexChanged> registered = new LinkedHashMap<>();
+        transactions.putResource(PENDING, registered);
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    for (SearchIndexChanged change : registered.values()) {
+                        apply(change);
+                    }
+                    cluster.broadcast(new SearchIndexesChanged(registered.values()));
+                }
+            }
+        });
+        return registered;
+    }
+
+    private void apply(SearchIndexChanged change) {
+        if (!loaded) {
+            synchronized (changedWhileLoading) {
+                if (!loaded) {
+                    changedWhileLoading.computeIfAbsent(change.getType(), key -> new HashSet<>()).add(change.getId());
+                    applyToIndex(change);
+                    return;
+                }
+            }
+        }
+        applyToIndex(change);
+    }
+
+    private void applyToIndex(SearchIndexChanged change) {
+        SearchIndex index = indexes.computeIfAbsent(change.getType(), key -> new SearchIndex());
+        if (change.getText() == null) {
+            index.remove(change.getId());
+        } else {
+            index.put(change.getId(), change.getText());
+        }
+    }
+
+    private SearchIndex index(Class<?> type) {
+        return indexes.computeIfAbsent(type.getName(), key -> new SearchIndex());
+    }
+}
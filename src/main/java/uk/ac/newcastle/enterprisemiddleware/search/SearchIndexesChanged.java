@@ -0,0 +1,29 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>Sent to the other instances of the application once a transaction changing {@link Searchable} entities has
+ * committed, with all of its changes, so that they apply them to their own {@link SearchIndexes}.</p>
+ */
+public class SearchIndexesChanged implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<SearchIndexChanged> changes;
+
+    SearchIndexesChanged(Collection<SearchIndexChanged> changes) {
+        this.changes = new ArrayList<>(changes);
+    }
+
+    public List<SearchIndexChanged> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchIndexesChanged{changes=" + changes.size() + "}";
+    }
+}
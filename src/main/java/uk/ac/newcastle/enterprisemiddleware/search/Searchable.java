@@ -0,0 +1,19 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+/**
+ * <p>Implemented by the entities that are kept in a {@link SearchIndex}.</p>
+ *
+ * <p>Entities implementing it must also be annotated with <code>@EntityListeners(SearchIndexListener.class)</code>, so
+ * that the index follows their changes.</p>
+ *
+ * @see SearchIndexes
+ */
+public interface Searchable {
+
+    Long getId();
+
+    /**
+     * @return the text the entity can be found by, e.g. its names. Not a getter so it is not serialised.
+     */
+    String searchText();
+}
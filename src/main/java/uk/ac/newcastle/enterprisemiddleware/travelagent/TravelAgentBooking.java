@@ -1,7 +1,11 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -17,15 +21,33 @@ import java.util.Date;
 @Entity
 @NamedQueries({
         @NamedQuery(name = TravelAgentBooking.FIND_ALL, query = "SELECT p FROM TravelAgentBooking p ORDER BY p.customer.id ASC,p.hotelBookingId ASC,p.createdOn DESC"),
-        @NamedQuery(name = TravelAgentBooking.FIND_BY_CUSTOMER_ID, query = "SELECT b FROM TravelAgentBooking b WHERE b.customer.id = :customerId")
+        @NamedQuery(name = TravelAgentBooking.FIND_BY_CUSTOMER_ID, query = "SELECT b FROM TravelAgentBooking b WHERE b.customer.id = :customerId"),
+        @NamedQuery(name = TravelAgentBooking.FIND_UPCOMING_REMOTE_IDS_BY_CUSTOMER_ID, query = "SELECT t.flightBookingId, t.taxiBookingId "
+                + "FROM TravelAgentBooking t, Booking b WHERE t.customer.id = :customerId AND b.id = t.hotelBookingId AND b.bookingDate >= :from"),
+        @NamedQuery(name = TravelAgentBooking.FIND_UPCOMING_REMOTE_IDS_BY_HOTEL_ID, query = "SELECT t.flightBookingId, t.taxiBookingId "
+                + "FROM Booking b, TravelAgentBooking t WHERE b.hotel.id = :hotelId AND b.bookingDate >= :from AND t.hotelBookingId = b.id"),
+        @NamedQuery(name = TravelAgentBooking.DELETE_BY_CUSTOMER_ID, query = "DELETE FROM TravelAgentBooking t WHERE t.customer.id = :customerId"),
+        @NamedQuery(name = TravelAgentBooking.DELETE_BY_HOTEL_ID, query = "DELETE FROM TravelAgentBooking t "
+                + "WHERE t.hotelBookingId IN (SELECT b.id FROM Booking b WHERE b.hotel.id = :hotelId)"),
+        @NamedQuery(name = TravelAgentBooking.DELETE_BY_HOTEL_BOOKING_IDS, query = "DELETE FROM TravelAgentBooking t WHERE t.hotelBookingId IN :ids")
 })
 @XmlRootElement
-@Table(name = "travel_agent")
+@Table(name = "travel_agent", indexes = {
+        @Index(name = "idx_travel_agent_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_travel_agent_hotel_booking_id", columnList = "hotel_booking_id")
+})
 public class TravelAgentBooking implements Serializable {
     public static final String FIND_ALL = "TravelAgentBooking.findAll";
     public static final String FIND_BY_CUSTOMER_ID = "TravelAgentBooking.findByCustomerId";
+    public static final String FIND_UPCOMING_REMOTE_IDS_BY_CUSTOMER_ID = "TravelAgentBooking.findUpcomingRemoteIdsByCustomerId";
+    public static final String FIND_UPCOMING_REMOTE_IDS_BY_HOTEL_ID = "TravelAgentBooking.findUpcomingRemoteIdsByHotelId";
+    public static final String DELETE_BY_CUSTOMER_ID = "TravelAgentBooking.deleteByCustomerId";
+    public static final String DELETE_BY_HOTEL_ID = "TravelAgentBooking.deleteByHotelId";
+    public static final String DELETE_BY_HOTEL_BOOKING_IDS = "TravelAgentBooking.deleteByHotelBookingIds";
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "travel_agent_seq")
+    @GenericGenerator(name = "travel_agent_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "travel_agent_seq"))
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -1,11 +1,15 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent;
 
+import uk.ac.newcastle.enterprisemiddleware.util.ReadOnly;
+import uk.ac.newcastle.enterprisemiddleware.util.ReadRouting;
+
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.validation.ConstraintViolationException;
+import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -18,6 +22,9 @@ public class TravelAgentBookingRepository {
     @Inject
     EntityManager em;
 
+    @Inject
+    ReadRouting routing;
+
     /**
      * <p>Persists the TravelAgentBooking object to the application database using the EntityManager.</p>
      *
@@ -39,8 +46,9 @@ public class TravelAgentBookingRepository {
      *
      * @return List of TravelAgentBooking objects
      */
+    @ReadOnly
     List<TravelAgentBooking> findAllOrderedByDate() {
-        TypedQuery<TravelAgentBooking> query = em.createNamedQuery(TravelAgentBooking.FIND_ALL, TravelAgentBooking.class);
+        TypedQuery<TravelAgentBooking> query = routing.entityManager().createNamedQuery(TravelAgentBooking.FIND_ALL, TravelAgentBooking.class);
         return query.getResultList();
     }
 
@@ -50,8 +58,9 @@ public class TravelAgentBookingRepository {
      * @param id The id of the TravelAgentBooking to be returned
      * @return The TravelAgentBooking with the specified id
      */
+    @ReadOnly
     TravelAgentBooking findById(Long id) {
-        return em.find(TravelAgentBooking.class, id);
+        return routing.entityManager().find(TravelAgentBooking.class, id);
     }
 
     /**
@@ -59,11 +68,57 @@ public class TravelAgentBookingRepository {
      * @param customerId customer id
      * @return List of bookings
      */
+    @ReadOnly
     public List<TravelAgentBooking> findByCustomerId (Long customerId) {
-        TypedQuery<TravelAgentBooking> query = em.createNamedQuery(TravelAgentBooking.FIND_BY_CUSTOMER_ID, TravelAgentBooking.class).setParameter("customerId", customerId);
+        TypedQuery<TravelAgentBooking> query = routing.entityManager().createNamedQuery(TravelAgentBooking.FIND_BY_CUSTOMER_ID, TravelAgentBooking.class).setParameter("customerId", customerId);
         return query.getResultList();
     }
 
+    /**
+     * @param customerId customer id
+     * @param from the first date
+     * @return the remote flight and taxi booking ids of the travel agent bookings of a customer for a stay from the
+     * date on
+     */
+    List<Object[]> findUpcomingRemoteIdsByCustomerId(Long customerId, Date from) {
+        return em.createNamedQuery(TravelAgentBooking.FIND_UPCOMING_REMOTE_IDS_BY_CUSTOMER_ID, Object[].class)
+                .setParameter("customerId", customerId)
+                .setParameter("from", from)
+                .getResultList();
+    }
+
+    /**
+     * @param hotelId hotel id
+     * @param from the first date
+     * @return the remote flight and taxi booking ids of the travel agent bookings of a hotel for a stay from the date on
+     */
+    List<Object[]> findUpcomingRemoteIdsByHotelId(Long hotelId, Date from) {
+        return em.createNamedQuery(TravelAgentBooking.FIND_UPCOMING_REMOTE_IDS_BY_HOTEL_ID, Object[].class)
+                .setParameter("hotelId", hotelId)
+                .setParameter("from", from)
+                .getResultList();
+    }
+
+    /**
+     * <p>Deletes all the travel agent bookings of a customer with one statement, without loading them.</p>
+     *
+     * @param customerId customer id
+     * @return the number of travel agent bookings deleted
+     */
+    int deleteByCustomerId(Long customerId) {
+        return em.createNamedQuery(TravelAgentBooking.DELETE_BY_CUSTOMER_ID).setParameter("customerId", customerId).executeUpdate();
+    }
+
+    /**
+     * <p>Deletes all the travel agent bookings made with a booking of a hotel, with one statement.</p>
+     *
+     * @param hotelId hotel id
+     * @return the number of travel agent bookings deleted
+     */
+    int deleteByHotelId(Long hotelId) {
+        return em.createNamedQuery(TravelAgentBooking.DELETE_BY_HOTEL_ID).setParameter("hotelId", hotelId).executeUpdate();
+    }
+
     /**
      * <p>Deletes the provided TravelAgentBooking object from the application database if found there</p>
      *
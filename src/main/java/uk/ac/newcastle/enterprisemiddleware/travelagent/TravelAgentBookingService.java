@@ -2,6 +2,7 @@ package uk.ac.newcastle.enterprisemiddleware.travelagent;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.resteasy.reactive.ClientWebApplicationException;
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingHold;
 import uk.ac.newcastle.enterprisemiddleware.booking.BookingService;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.customer.CustomerService;
@@ -10,6 +11,8 @@ import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.FlightBooking;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.HotelBooking;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.TaxiBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.outbox.OutboxEntry;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.outbox.OutboxService;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.*;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.FlightService;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.TaxiService;
@@ -19,6 +22,8 @@ import uk.ac.newcastle.enterprisemiddleware.util.RestServiceException;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.transaction.Status;
+import javax.transaction.SystemException;
 import javax.transaction.UserTransaction;
 import javax.validation.ConstraintViolationException;
 import java.util.Date;
@@ -53,6 +58,9 @@ public class TravelAgentBookingService {
     @Inject
     UserTransaction userTransaction;
 
+    @Inject
+    OutboxService outboxService;
+
     @RestClient
     FlightService flightService;
 
@@ -158,6 +166,13 @@ public class TravelAgentBookingService {
         TaxiBookingModel persistedTaxiBooking = null;
         Booking persistedHotelBooking = null;
 
+        // Hold the hotel before any remote booking is made, so that it cannot be taken in the meantime and force the
+        // cancellation of the flight and taxi bookings.
+        BookingHold hotelHold = new BookingHold();
+        hotelHold.setHotelId(hotelFetchedById.getId());
+        hotelHold.setBookingDate(hotelBookingDate);
+        hotelHold = hotelBookingService.hold(hotelHold, null);
+
         userTransaction.begin();
 
         // 2. Make booking in Flight Database
@@ -168,10 +183,12 @@ public class TravelAgentBookingService {
             persistedFlightBooking = flightService.createBooking(flightBookingModel);
         } catch (ClientWebApplicationException e) {
             // revert previous booking made
-            userTransaction.rollback();
+            rollback();
+            hotelBookingService.release(hotelHold.getId());
             throw HttpError.throwServiceException(HttpError.FLIGHTBOOKING, null, null, e);
         } catch (Exception e) {
-            userTransaction.rollback();
+            rollback();
+            hotelBookingService.release(hotelHold.getId());
             throw e;
         }
         log.info("Flight booking completed: " + persistedFlightBooking);
@@ -183,43 +200,44 @@ public class TravelAgentBookingService {
             persistedTaxiBooking = taxiService.createBooking(taxiBookingModel);
         } catch (ClientWebApplicationException e) {
             // revert previous booking made
-            userTransaction.rollback();
-            flightService.deleteFlightBooking(persistedFlightBooking.getId());
+            rollback();
+            hotelBookingService.release(hotelHold.getId());
+            cancelRemoteBookings(persistedFlightBooking, null);
             throw HttpError.throwServiceException(HttpError.TAXIBOOKING, null, null, e);
         } catch (Exception e) {
-            userTransaction.rollback();
+            rollback();
+            hotelBookingService.release(hotelHold.getId());
+            cancelRemoteBookings(persistedFlightBooking, null);
             throw e;
         }
         log.info("Taxi booking completed: " + persistedTaxiBooking);
 
-        // 4. Make internal Hotel Booking
-        log.info("Hotel booking started...");
+        TravelAgentBooking persistedTABooking;
         try {
+            // 4. Make internal Hotel Booking
+            log.info("Hotel booking started...");
             Booking hotelBooking = createHotelBookingObject(customerFetchedById, hotelFetchedById, hotelBookingDate);
-            persistedHotelBooking = hotelBookingService.create(hotelBooking);
-        } catch (ClientWebApplicationException e) {
-            // revert previous booking made
-            userTransaction.rollback();
-            flightService.deleteFlightBooking(persistedFlightBooking.getId());
-            taxiService.deleteTaxiBooking(persistedTaxiBooking.getId());
-            throw HttpError.throwServiceException(HttpError.FLIGHTBOOKING, null, null, e);
+            persistedHotelBooking = hotelBookingService.create(hotelBooking, hotelHold.getId());
+            log.info("Hotel booking completed:: " + persistedHotelBooking);
+
+            // 5. Store persisted information in TravelAgentBooking object
+            // Write the TravelAgentBooking booking object to the internal TravelAgent database.
+            TravelAgentBooking dbBooking = createTABookingObject(customerFetchedById, persistedFlightBooking.getId(), persistedHotelBooking.getId(), persistedTaxiBooking.getId());
+            persistedTABooking = crud.create(dbBooking);
+
+            // 6. commit the transaction
+            userTransaction.commit();
         } catch (Exception e) {
-            userTransaction.rollback();
+            // revert previous bookings made
+            rollback();
+            hotelBookingService.release(hotelHold.getId());
+            cancelRemoteBookings(persistedFlightBooking, persistedTaxiBooking);
             throw e;
         }
-        log.info("Hotel booking completed:: " + persistedHotelBooking);
-
-        // 5. Store persisted information in TravelAgentBooking object
-        // Write the TravelAgentBooking booking object to the internal TravelAgent database.
-        TravelAgentBooking dbBooking = createTABookingObject(customerFetchedById, persistedFlightBooking.getId(), persistedHotelBooking.getId(), persistedTaxiBooking.getId());
-        TravelAgentBooking persistedTABooking = crud.create(dbBooking);
 
-        // 6. Create response to send back to Client
+        // 7. Create response to send back to Client
         taBookingResponse = createTABookingResponse(persistedTABooking, persistedFlightBooking, persistedHotelBooking, persistedTaxiBooking);
 
-        // 7. commit the transaction
-        userTransaction.commit();
-
         log.info("Travel Agent Booking completed!");
 
         // return persisted booking request
@@ -372,6 +390,30 @@ public class TravelAgentBookingService {
         return bookingResponse;
     }
 
+    /**
+     * Records the cancellation of remote bookings that were made before a failure. The transaction of the booking
+     * has already been rolled back at this point, so the cancellations are written in a transaction of their own
+     * and delivered by the outbox dispatcher.
+     * @see OutboxService#enqueueInNewTransaction(OutboxEntry.Operation, Long)
+     * */
+    private void cancelRemoteBookings(FlightBookingModel flightBooking, TaxiBookingModel taxiBooking) {
+        if (flightBooking != null) {
+            outboxService.enqueueInNewTransaction(OutboxEntry.Operation.CANCEL_FLIGHT_BOOKING, flightBooking.getId());
+        }
+        if (taxiBooking != null) {
+            outboxService.enqueueInNewTransaction(OutboxEntry.Operation.CANCEL_TAXI_BOOKING, taxiBooking.getId());
+        }
+    }
+
+    /**
+     * Rolls back the current transaction if it is still associated with the thread, e.g. not after a failed commit
+     * */
+    private void rollback() throws SystemException {
+        if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+            userTransaction.rollback();
+        }
+    }
+
     /**
      * <p>Deletes the provided TravelAgentBooking object from the application database if found there.<p/>
      *
@@ -394,50 +436,23 @@ public class TravelAgentBookingService {
 
         userTransaction.begin();
 
-        // 1. Delete associated Flight Booking
-        try {
-            flightService.deleteFlightBooking(flightBookingId);
-            log.info("Flight with ID: " + flightBookingId + " deleted.");
-        } catch (ClientWebApplicationException e) {
-            // revert previous booking made
-            userTransaction.rollback();
-            throw HttpError.throwServiceException(HttpError.FLIGHTBOOKING, null, null, e);
-        } catch (Exception e) {
-            userTransaction.rollback();
-            throw e;
-        }
-
-        // 2. Delete associated Taxi Booking
-        try {
-            taxiService.deleteTaxiBooking(taxiBookingId);
-            log.info("Taxi with ID: " + taxiBookingId + " deleted.");
-        } catch (ClientWebApplicationException e) {
-            // revert previous booking made
-            userTransaction.rollback();
-            throw HttpError.throwServiceException(HttpError.TAXIBOOKING, null, null, e);
-        } catch (Exception e) {
-            userTransaction.rollback();
-            throw e;
-        }
-
-        // 4. Delete associated Hotel Booking
         try {
+            // 1. Delete associated Hotel Booking
             hotelBookingService.delete(hotelBookingId);
             log.info("Hotel with ID: " + hotelBookingId + " deleted.");
-        } catch (ClientWebApplicationException e) {
-            // revert previous booking made
-            userTransaction.rollback();
-            throw HttpError.throwServiceException(HttpError.HOTELBOOKING, null, null, e);
-        } catch (Exception e) {
-            userTransaction.rollback();
-            throw e;
-        }
 
+            // 2. Delete travel agent booking
+            deletedBooking = crud.delete(booking);
 
-        // 5. Delete travel agent booking
-        deletedBooking = crud.delete(booking);
+            // 3. Record the cancellation of the associated Flight and Taxi Bookings, delivered by the outbox dispatcher
+            outboxService.enqueue(OutboxEntry.Operation.CANCEL_FLIGHT_BOOKING, flightBookingId);
+            outboxService.enqueue(OutboxEntry.Operation.CANCEL_TAXI_BOOKING, taxiBookingId);
 
-        userTransaction.commit();
+            userTransaction.commit();
+        } catch (Exception e) {
+            rollback();
+            throw e;
+        }
 
         return deletedBooking;
     }
@@ -7,16 +7,14 @@ import uk.ac.newcastle.enterprisemiddleware.customer.CustomerService;
 import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
 import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightModel;
+import uk.ac.newcastle.enterprisemiddleware.util.BeanValidation;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -53,16 +51,10 @@ public class TravelAgentBookingValidator {
      * @throws ValidationException If customer, hotel or flight is not found
      */
     void validateBooking(TravelAgentBookingRequest booking, Customer customer, Hotel hotel, FlightModel flight ) throws ConstraintViolationException, ValidationException {
-        // Create a bean validator and check for issues.
-
-        Set<ConstraintViolation<TravelAgentBookingRequest>> violations = validator.validate(booking);
-
         log.info("Validating booking request...");
 
         log.info("Checking: Violations");
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
-        }
+        BeanValidation.validate(validator, booking);
 
         log.info("Checking: If Customer exists");
         if (customer == null) {
@@ -0,0 +1,64 @@
+package uk.ac.newcastle.enterprisemiddleware.travelagent;
+
+import uk.ac.newcastle.enterprisemiddleware.travelagent.outbox.OutboxEntry;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.outbox.OutboxService;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * <p>Removes the travel agent bookings of a customer or a hotel about to be deleted.</p>
+ *
+ * <p>The rows are deleted with one statement. The remote flight and taxi bookings of the upcoming stays are cancelled
+ * through the outbox, in the same transaction, and delivered later by the outbox dispatcher; those of past stays are
+ * left alone. Only the remote ids are read, so the cost follows the number of upcoming travel agent bookings, not the
+ * length of the history.</p>
+ */
+@Dependent
+public class TravelAgentCancellations {
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    TravelAgentBookingRepository crud;
+
+    @Inject
+    OutboxService outboxService;
+
+    /**
+     * <p>Deletes the travel agent bookings of a customer, as part of the current transaction.</p>
+     *
+     * @param customerId id of the customer
+     * @param today first date of the upcoming stays
+     */
+    public void deleteForCustomer(Long customerId, Date today) {
+        cancel(crud.findUpcomingRemoteIdsByCustomerId(customerId, today));
+        int deleted = crud.deleteByCustomerId(customerId);
+        log.info("TravelAgentCancellations.deleteForCustomer() - " + deleted + " travel agent bookings of customer " + customerId);
+    }
+
+    /**
+     * <p>Deletes the travel agent bookings made with a booking of a hotel, as part of the current transaction.</p>
+     *
+     * @param hotelId id of the hotel
+     * @param today first date of the upcoming stays
+     */
+    public void deleteForHotel(Long hotelId, Date today) {
+        cancel(crud.findUpcomingRemoteIdsByHotelId(hotelId, today));
+        int deleted = crud.deleteByHotelId(hotelId);
+        log.info("TravelAgentCancellations.deleteForHotel() - " + deleted + " travel agent bookings of hotel " + hotelId);
+    }
+
+    private void cancel(List<Object[]> remoteIds) {
+        for (Object[] ids : remoteIds) {
+            outboxService.enqueue(OutboxEntry.Operation.CANCEL_FLIGHT_BOOKING, (Long) ids[0]);
+            outboxService.enqueue(OutboxEntry.Operation.CANCEL_TAXI_BOOKING, (Long) ids[1]);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.util.Date;
 
 /**
  * <p>POJO class  representing the structure of input JSON from the client</p>
  * @author Divya Tewari
  * */
+@RegisterForReflection
 public class FlightBooking {
     private Long id;
     private Long flightId;
@@ -0,0 +1,85 @@
+package uk.ac.newcastle.enterprisemiddleware.travelagent.outbox;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.ClientWebApplicationException;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.FlightService;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.TaxiService;
+import uk.ac.newcastle.enterprisemiddleware.util.HttpError;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * <p>Background job delivering the remote calls recorded in the outbox.</p>
+ *
+ * <p>Due entries are read in batches. Each remote call is made outside of any database transaction, and its outcome
+ * is written back in a short transaction of its own.</p>
+ *
+ * @see OutboxService
+ * */
+@ApplicationScoped
+public class OutboxDispatcher {
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    OutboxService outboxService;
+
+    @RestClient
+    FlightService flightService;
+
+    @RestClient
+    TaxiService taxiService;
+
+    @ConfigProperty(name = "travelagent.outbox.dispatch.batch-size", defaultValue = "20")
+    int batchSize;
+
+    /**
+     * <p>Delivers due entries until no full batch is left.</p>
+     */
+    @Scheduled(every = "{travelagent.outbox.dispatch.every}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void dispatch() {
+        List<OutboxEntry> batch;
+        do {
+            batch = outboxService.findDue(batchSize);
+            for (OutboxEntry entry : batch) {
+                try {
+                    deliver(entry);
+                    outboxService.markDelivered(entry.getId());
+                } catch (Exception e) {
+                    outboxService.markFailed(entry.getId(), e);
+                }
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Makes the remote call of an entry. A resource that is already gone on the remote side counts as delivered.
+     * */
+    private void deliver(OutboxEntry entry) {
+        try {
+            switch (entry.getOperation()) {
+                case CANCEL_FLIGHT_BOOKING:
+                    flightService.deleteFlightBooking(entry.getTargetId());
+                    break;
+                case CANCEL_TAXI_BOOKING:
+                    taxiService.deleteTaxiBooking(entry.getTargetId());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown outbox operation " + entry.getOperation());
+            }
+        } catch (ClientWebApplicationException e) {
+            if (e.getResponse().getStatus() != HttpError.NOT_FOUND) {
+                throw e;
+            }
+            log.info("OutboxDispatcher.deliver() - Remote resource already removed for " + entry);
+        }
+        log.info("OutboxDispatcher.deliver() - Delivered " + entry);
+    }
+}
@@ -0,0 +1,156 @@
+package uk.ac.newcastle.enterprisemiddleware.travelagent.outbox;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import uk.ac.newcastle.enterprisemiddleware.util.PooledSequenceGenerator;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * <p>This is a domain or entity class which represents a remote call that still has to be delivered to one of the
+ * external services (Flight or Taxi).</p>
+ *
+ * <p>Entries are written in the same transaction as the local change that requires them, and are delivered later by
+ * the {@link OutboxDispatcher}. This way a request only performs local writes, and the remote side effects are
+ * eventually consistent with the database.</p>
+ *
+ * @see OutboxService
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = OutboxEntry.FIND_DUE, query = "SELECT o FROM OutboxEntry o WHERE o.status = :status AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt ASC, o.id ASC")
+})
+@Table(name = "outbox_entry", indexes = @Index(name = "idx_outbox_entry_status_next_attempt_at", columnList = "status, next_attempt_at"))
+public class OutboxEntry implements Serializable {
+    public static final String FIND_DUE = "OutboxEntry.findDue";
+
+    /**
+     * <p>Remote operation to be delivered by the dispatcher.</p>
+     */
+    public enum Operation {
+        CANCEL_FLIGHT_BOOKING,
+        CANCEL_TAXI_BOOKING
+    }
+
+    /**
+     * <p>Delivery status of an entry. Delivered entries are removed, so only pending and dead-lettered entries
+     * are kept in the table.</p>
+     */
+    public enum Status {
+        PENDING,
+        DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_entry_seq")
+    @GenericGenerator(name = "outbox_entry_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "outbox_entry_seq"))
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 32)
+    private Operation operation;
+
+    @NotNull
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date nextAttemptAt;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false, name = "creation_date")
+    private Date createdOn;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Date nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "{ id = " + getId()
+                + ", operation = " + getOperation()
+                + ", targetId = " + getTargetId()
+                + ", status = " + getStatus()
+                + ", attempts = " + getAttempts() + " }";
+    }
+}
@@ -0,0 +1,73 @@
+package uk.ac.newcastle.enterprisemiddleware.travelagent.outbox;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * This is a repository class that connects the outbox service layer to the {@link OutboxEntry} entity
+ *
+ *  @see OutboxEntry
+ * */
+@RequestScoped
+public class OutboxRepository {
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    EntityManager em;
+
+    /**
+     * <p>Persists the OutboxEntry object to the application database using the EntityManager.</p>
+     *
+     * @param entry The OutboxEntry object to be persisted
+     * @return The OutboxEntry object that has been persisted
+     */
+    OutboxEntry create(OutboxEntry entry) {
+        log.info("OutboxRepository.create() - CREATING - " + entry);
+
+        em.persist(entry);
+
+        return entry;
+    }
+
+    /**
+     * <p>Returns an OutboxEntry object fetched by a id.<p/>
+     *
+     * @param id The id of the OutboxEntry to be returned
+     * @return The OutboxEntry with the specified id
+     */
+    OutboxEntry findById(Long id) {
+        return em.find(OutboxEntry.class, id);
+    }
+
+    /**
+     * <p>Returns the pending entries whose next attempt is due, oldest first.</p>
+     *
+     * @param now the current time
+     * @param limit maximum number of entries to return
+     * @return List of due OutboxEntry objects
+     */
+    List<OutboxEntry> findDue(Date now, int limit) {
+        TypedQuery<OutboxEntry> query = em.createNamedQuery(OutboxEntry.FIND_DUE, OutboxEntry.class)
+                .setParameter("status", OutboxEntry.Status.PENDING)
+                .setParameter("now", now)
+                .setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    /**
+     * <p>Deletes the provided OutboxEntry object from the application database.</p>
+     *
+     * @param entry The OutboxEntry object to be removed from the application database
+     */
+    void delete(OutboxEntry entry) {
+        em.remove(em.contains(entry) ? entry : em.merge(entry));
+    }
+}
@@ -0,0 +1,135 @@
+package uk.ac.newcastle.enterprisemiddleware.travelagent.outbox;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.transaction.Transactional;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * <p> Service Class for writing and updating {@link OutboxEntry} records. </p>
+ *
+ * <p>{@link #enqueue(OutboxEntry.Operation, Long)} must be called inside the transaction of the local change, so that
+ * the remote call is recorded if, and only if, the local change commits.</p>
+ * */
+@Dependent
+public class OutboxService {
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    OutboxRepository crud;
+
+    @ConfigProperty(name = "travelagent.outbox.retry.initial-backoff-seconds", defaultValue = "2")
+    long initialBackoffSeconds;
+
+    @ConfigProperty(name = "travelagent.outbox.retry.max-backoff-seconds", defaultValue = "300")
+    long maxBackoffSeconds;
+
+    @ConfigProperty(name = "travelagent.outbox.retry.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    /**
+     * <p>Records a remote call as part of the current transaction.</p>
+     *
+     * @param operation the remote operation to deliver
+     * @param targetId id of the remote resource the operation applies to
+     * @return The OutboxEntry that has been written, or null if there is nothing to deliver
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public OutboxEntry enqueue(OutboxEntry.Operation operation, Long targetId) {
+        if (targetId == null) {
+            log.info("OutboxService.enqueue() - No target id for " + operation + ", nothing to deliver.");
+            return null;
+        }
+
+        OutboxEntry entry = new OutboxEntry();
+        entry.setOperation(operation);
+        entry.setTargetId(targetId);
+        entry.setStatus(OutboxEntry.Status.PENDING);
+        entry.setNextAttemptAt(new Date());
+
+        return crud.create(entry);
+    }
+
+    /**
+     * <p>Records a remote call in a transaction of its own. Used for compensations, where the transaction of the
+     * local change has already been rolled back.</p>
+     *
+     * @param operation the remote operation to deliver
+     * @param targetId id of the remote resource the operation applies to
+     * @return The OutboxEntry that has been written, or null if there is nothing to deliver
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public OutboxEntry enqueueInNewTransaction(OutboxEntry.Operation operation, Long targetId) {
+        return enqueue(operation, targetId);
+    }
+
+    /**
+     * <p>Returns the pending entries that are due for delivery.</p>
+     *
+     * @param limit maximum size of the batch
+     * @return List of due OutboxEntry objects
+     */
+    @Transactional
+    List<OutboxEntry> findDue(int limit) {
+        return crud.findDue(new Date(), limit);
+    }
+
+    /**
+     * <p>Removes an entry once its remote call has been delivered.</p>
+     *
+     * @param id id of the delivered entry
+     */
+    @Transactional
+    void markDelivered(Long id) {
+        OutboxEntry entry = crud.findById(id);
+        if (entry != null) {
+            crud.delete(entry);
+        }
+    }
+
+    /**
+     * <p>Records a failed delivery attempt. The entry is retried with exponential backoff, and dead-lettered once
+     * the maximum number of attempts has been reached.</p>
+     *
+     * @param id id of the entry that failed
+     * @param error the failure cause
+     */
+    @Transactional
+    void markFailed(Long id, Exception error) {
+        OutboxEntry entry = crud.findById(id);
+        if (entry == null) {
+            return;
+        }
+
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(truncate(String.valueOf(error.getMessage())));
+
+        if (attempts >= maxAttempts) {
+            entry.setStatus(OutboxEntry.Status.DEAD);
+            log.severe("OutboxService.markFailed() - Dead-lettering " + entry + " after " + attempts + " attempts");
+        } else {
+            entry.setNextAttemptAt(new Date(System.currentTimeMillis() + backoffMillis(attempts)));
+            log.warning("OutboxService.markFailed() - Retrying " + entry + " at " + entry.getNextAttemptAt());
+        }
+    }
+
+    /**
+     * Exponential backoff, doubling from the initial delay and capped at the maximum delay
+     * */
+    private long backoffMillis(int attempts) {
+        long seconds = initialBackoffSeconds << Math.min(attempts - 1, 30);
+        return Math.min(seconds, maxBackoffSeconds) * 1000L;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1024 ? message.substring(0, 1024) : message;
+    }
+}
@@ -1,5 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 
 import java.io.Serializable;
@@ -10,6 +11,7 @@ import java.util.Objects;
  * <p>POJO class serializing request from external services</p>
  * @author Divya Tewari
  * */
+@RegisterForReflection
 public class FlightBookingModel implements Serializable {
 
     private Long id;
@@ -1,5 +1,7 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.io.Serializable;
 import java.util.*;
 
@@ -8,6 +10,7 @@ import java.util.*;
  *
  * @author Divya Tewari
  */
+@RegisterForReflection
 public class FlightModel implements Serializable {
     private Long id;
     private String number;
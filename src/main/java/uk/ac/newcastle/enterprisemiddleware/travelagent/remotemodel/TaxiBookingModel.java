@@ -1,5 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import uk.ac.newcastle.enterprisemiddleware.booking.Booking;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 
@@ -11,6 +12,7 @@ import java.util.Objects;
  * <p>POJO class serializing request from external services</p>
  * @author Divya Tewari
  * */
+@RegisterForReflection
 public class TaxiBookingModel implements Serializable {
 
     private Long id;
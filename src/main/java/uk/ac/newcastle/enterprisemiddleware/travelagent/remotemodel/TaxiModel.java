@@ -1,11 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.util.Objects;
 
 /**
  * <p>POJO class responsible for serialising requests to/from client</p>
  * @author Divya Tewari
  * */
+@RegisterForReflection
 public class TaxiModel {
     private Long id;
     private String registrationNumber;
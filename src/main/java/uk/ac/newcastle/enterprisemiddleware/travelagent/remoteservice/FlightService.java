@@ -1,6 +1,7 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice;
 
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import uk.ac.newcastle.enterprisemiddleware.health.RemoteCall;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightModel;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightBookingModel;
@@ -19,6 +20,7 @@ import java.util.List;
  */
 @Path("/")
 @Produces(MediaType.APPLICATION_JSON)
+@RemoteCall
 @RegisterRestClient(configKey = "flight-api")
 public interface FlightService {
 
@@ -47,6 +49,11 @@ public interface FlightService {
     @Consumes(MediaType.APPLICATION_JSON)
     FlightBookingModel createBooking(FlightBookingModel request);
 
+    @GET
+    @Path("/bookings/{id:[0-9]+}")
+    @Produces(MediaType.APPLICATION_JSON)
+    FlightBookingModel getBookingById(@PathParam("id") Long id);
+
     @DELETE
     @Path("/bookings/{id:[0-9]+}")
     @Produces(MediaType.APPLICATION_JSON)
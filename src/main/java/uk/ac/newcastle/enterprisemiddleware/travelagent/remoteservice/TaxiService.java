@@ -1,6 +1,7 @@
 package uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice;
 
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import uk.ac.newcastle.enterprisemiddleware.health.RemoteCall;
 import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightModel;
 import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.TaxiBookingModel;
@@ -20,6 +21,7 @@ import java.util.List;
  */
 @Path("/")
 @Produces(MediaType.APPLICATION_JSON)
+@RemoteCall
 @RegisterRestClient(configKey = "taxi-api")
 public interface TaxiService {
 
@@ -48,6 +50,11 @@ public interface TaxiService {
     @Consumes(MediaType.APPLICATION_JSON)
     TaxiBookingModel createBooking(TaxiBookingModel request);
 
+    @GET
+    @Path("/bookings/{id:[0-9]+}")
+    @Produces(MediaType.APPLICATION_JSON)
+    TaxiBookingModel getBookingById(@PathParam("id") Long id);
+
     @DELETE
     @Path("/bookings/{id:[0-9]+}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -0,0 +1,48 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.Set;
+
+/**
+ * <p>Runs Bean Validation on the objects checked by the validators of the services.</p>
+ *
+ * <p>Hibernate Validator reads the constraints of a class once (at build time in Quarkus) and compiles the regular
+ * expression of a <code>@Pattern</code> once per constraint, so a valid object only costs the walk over its properties.
+ * The violations of an invalid one are handed to the {@link ConstraintViolationException} as returned, and the
+ * exception is thrown without a stack trace: it reports bad input to the REST services, and is not an error to
+ * debug.</p>
+ */
+public final class BeanValidation {
+
+    private BeanValidation() {
+    }
+
+    /**
+     * @param validator the Bean Validation validator
+     * @param bean the object to validate
+     * @param <T> the type of the object
+     * @throws ConstraintViolationException If Bean Validation errors exist
+     */
+    public static <T> void validate(Validator validator, T bean) throws ConstraintViolationException {
+        Set<ConstraintViolation<T>> violations = validator.validate(bean);
+
+        if (!violations.isEmpty()) {
+            throw new InvalidBeanException(violations);
+        }
+    }
+
+    private static final class InvalidBeanException extends ConstraintViolationException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidBeanException(Set<? extends ConstraintViolation<?>> violations) {
+            super(violations);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.ws.rs.core.EntityTag;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Builds HTTP entity tags from the JPA @Version of the entities making up a representation.</p>
+ *
+ * <p>The version is incremented on every update, so a tag changes whenever the representation does, and can be
+ * compared with If-None-Match / If-Match through {@link javax.ws.rs.core.Request#evaluatePreconditions(EntityTag)}
+ * before anything is serialised.</p>
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * @param version version of the single entity the representation is made of
+     * @return a strong entity tag
+     */
+    public static EntityTag of(Long version) {
+        return new EntityTag(String.valueOf(version));
+    }
+
+    /**
+     * @param parts ids and versions of all the entities the representation is made of, in representation order
+     * @return a weak entity tag, digest of the parts
+     */
+    public static EntityTag weak(List<?> parts) {
+        String joined = parts.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return new EntityTag(UUID.nameUUIDFromBytes(joined.getBytes(StandardCharsets.UTF_8)).toString(), true);
+    }
+}
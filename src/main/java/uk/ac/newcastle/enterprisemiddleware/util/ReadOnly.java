@@ -0,0 +1,21 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Marks a repository method that only reads the database. Its queries may be sent to the read replica, through the
+ * EntityManager returned by {@link ReadRouting#entityManager()}.</p>
+ *
+ * <p>Methods checking the uniqueness of a value must not be marked: they have to see the primary database.</p>
+ */
+@Inherited
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnly {
+}
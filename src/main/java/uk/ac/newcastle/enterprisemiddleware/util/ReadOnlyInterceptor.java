@@ -0,0 +1,31 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * <p>Sends the calls of the {@link ReadOnly} methods to the read replica when {@link ReadRouting} allows it.</p>
+ */
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_AFTER)
+public class ReadOnlyInterceptor {
+
+    @Inject
+    ReadRouting routing;
+
+    @AroundInvoke
+    Object route(InvocationContext context) throws Exception {
+        if (!routing.enterRead()) {
+            return context.proceed();
+        }
+        try {
+            return context.proceed();
+        } finally {
+            routing.exitRead();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import io.quarkus.hibernate.orm.PersistenceUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Status;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * <p>Chooses, for the current request, between the primary database and the read replica (the "replica" persistence
+ * unit and datasource).</p>
+ *
+ * <p>Only the methods marked {@link ReadOnly} go to the replica, and only while the request has not written anything,
+ * so that a request always reads its own writes:</p>
+ * <ul>
+ *     <li>a request with an unsafe HTTP method (POST, PUT, DELETE...) uses the primary throughout, see
+ *     {@link ReadRoutingFilter};</li>
+ *     <li>a read made inside a transaction uses the primary, and so does every read of the request after it.</li>
+ * </ul>
+ *
+ * <p>The replica persistence unit has no second-level cache, so an entity updated on the primary is not served stale
+ * from a cache once the replica has caught up. It only exists when the application is built with the replica profile.
+ * Routing is off unless app.read-replica.enabled is set and the replica persistence unit exists; every read then goes
+ * to the primary.</p>
+ */
+@RequestScoped
+public class ReadRouting {
+
+    @Inject
+    EntityManager primary;
+
+    @Inject
+    @PersistenceUnit("replica")
+    Instance<EntityManager> replica;
+
+    @Inject
+    TransactionSynchronizationRegistry transactions;
+
+    @ConfigProperty(name = "app.read-replica.enabled", defaultValue = "false")
+    boolean enabled;
+
+    private int replicaReads;
+    private boolean wrote;
+
+    @PostConstruct
+    void init() {
+        enabled = enabled && replica.isResolvable();
+    }
+
+    /**
+     * @return the EntityManager of the replica during a {@link ReadOnly} method routed to it, the primary one otherwise
+     */
+    public EntityManager entityManager() {
+        return replicaReads > 0 ? replica.get() : primary;
+    }
+
+    /**
+     * <p>Makes the rest of the request read from the primary database.</p>
+     */
+    public void markWrite() {
+        wrote = true;
+    }
+
+    /**
+     * @return true if the {@link ReadOnly} method being entered is routed to the replica, in which case
+     * {@link #exitRead()} must be called when it returns
+     */
+    boolean enterRead() {
+        if (!enabled || wrote) {
+            return false;
+        }
+        if (transactions.getTransactionStatus() != Status.STATUS_NO_TRANSACTION) {
+            wrote = true;
+            return false;
+        }
+        replicaReads++;
+        return true;
+    }
+
+    void exitRead() {
+        replicaReads--;
+    }
+}
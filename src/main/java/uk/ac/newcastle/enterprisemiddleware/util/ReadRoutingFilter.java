@@ -0,0 +1,31 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * <p>Keeps the requests that change something on the primary database: only GET and HEAD requests may read from the
+ * replica (see {@link ReadRouting}).</p>
+ */
+@Provider
+public class ReadRoutingFilter implements ContainerRequestFilter {
+
+    @Inject
+    ReadRouting routing;
+
+    @ConfigProperty(name = "app.read-replica.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String method = request.getMethod();
+        if (enabled && !HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            routing.markWrite();
+        }
+    }
+}
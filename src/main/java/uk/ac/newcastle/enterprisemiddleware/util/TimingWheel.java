@@ -0,0 +1,109 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Hashed timing wheel: schedules the expiry of many short lived items at a fixed tick resolution.</p>
+ *
+ * <p>The wheel is a ring of slots, one per tick. An item expiring at a given tick goes into the slot of that tick,
+ * so scheduling and cancelling are constant time, and advancing the wheel only looks at the slots of the ticks that
+ * have elapsed. Items more than one revolution ahead share a slot with nearer ones and stay there until their own
+ * tick comes.</p>
+ *
+ * <p>The wheel does not run a thread of its own: {@link #advance(long)} is called periodically, e.g. from a scheduled
+ * job. It is safe for concurrent use.</p>
+ *
+ * @param <T> type of the scheduled items
+ */
+public class TimingWheel<T> {
+
+    /**
+     * <p>Handle of a scheduled item, used to cancel it.</p>
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<Set<Timeout<T>>> slots;
+    private long currentTick;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param wheelSize number of slots, i.e. ticks per revolution
+     * @param startMillis current time, in milliseconds
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashSet<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * <p>Schedules an item. It is returned by the first call to {@link #advance(long)} at or after its deadline,
+     * rounded up to the next tick.</p>
+     *
+     * @param item the item to schedule
+     * @param deadlineMillis expiry time of the item, in milliseconds
+     * @return the handle to cancel the item with
+     */
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        slot(deadlineTick).add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @param timeout the handle of an item that must not expire any more
+     * @return true if the item was still scheduled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        return slot(timeout.deadlineTick).remove(timeout);
+    }
+
+    /**
+     * <p>Moves the wheel to the given time and returns the items that have expired since the previous call.</p>
+     *
+     * @param nowMillis current time, in milliseconds
+     * @return the expired items, in no particular order
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        // After a pause of more than one revolution every slot is looked at once.
+        long ticks = Math.min(targetTick - currentTick, slots.size());
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            for (Iterator<Timeout<T>> it = slot(tick).iterator(); it.hasNext(); ) {
+                Timeout<T> timeout = it.next();
+                if (timeout.deadlineTick <= targetTick) {
+                    expired.add(timeout.item);
+                    it.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    private Set<Timeout<T>> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
@@ -0,0 +1,167 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import uk.ac.newcastle.enterprisemiddleware.area.Area;
+import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
+import uk.ac.newcastle.enterprisemiddleware.booking.BookingHold;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerImportReport;
+import uk.ac.newcastle.enterprisemiddleware.guestbooking.GuestBooking;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.hotel.HotelUpsertReport;
+import uk.ac.newcastle.enterprisemiddleware.inventory.Availability;
+import uk.ac.newcastle.enterprisemiddleware.inventory.InventoryService;
+import uk.ac.newcastle.enterprisemiddleware.itinerary.Itinerary;
+import uk.ac.newcastle.enterprisemiddleware.itinerary.ItineraryEntry;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.TravelAgentBookingRequest;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.FlightBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.HotelBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.TaxiBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightBookingModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.TaxiBookingModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.TaxiModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.FlightService;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.TaxiService;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * <p>Does at start up the work the first requests of a new instance would otherwise pay for.</p>
+ *
+ * <p>The REST clients are built first. They are singletons, so injecting them here creates them; they are unwrapped
+ * all the same in case one is configured with a normal scope, as injecting one of those only creates a proxy. The first page
+ * of the hotel catalogue is loaded into the second-level cache, with the availability of the current month of each of
+ * those hotels. A sample of each entity and of each request, response and remote model is written to JSON and read
+ * back, so that Jackson has built their serializers and deserializers. The named queries need no warm-up: Hibernate
+ * compiles them when it boots.</p>
+ *
+ * <p>No remote call is made: an outage of the area, flight or taxi services must not hold back the start up.</p>
+ */
+@ApplicationScoped
+public class Warmup {
+
+    /**
+     * Models sent or received as JSON which are not entities
+     * */
+    private static final List<Class<?>> MODELS = Arrays.asList(ErrorMessage.class, Area.class, Availability.class,
+            BookingHold.class, CustomerImportReport.class, HotelUpsertReport.class, GuestBooking.class,
+            Itinerary.class, ItineraryEntry.class, TravelAgentBookingRequest.class, FlightBooking.class,
+            HotelBooking.class, TaxiBooking.class, FlightModel.class, FlightBookingModel.class, TaxiModel.class,
+            TaxiBookingModel.class);
+
+    @Inject
+    @Named("logger")
+    Logger log;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    InventoryService inventoryService;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @RestClient
+    AreaService areaService;
+
+    @RestClient
+    FlightService flightService;
+
+    @RestClient
+    TaxiService taxiService;
+
+    @ConfigProperty(name = "app.warmup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.warmup.hotels", defaultValue = "100")
+    int hotels;
+
+    private volatile boolean done;
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            done = true;
+            return;
+        }
+        long start = System.nanoTime();
+
+        int clients = buildClients();
+        int catalogue = primeCatalogue();
+        int models = prepareJson();
+
+        done = true;
+        log.info("Warmup.onStart() - Warmed up in " + (System.nanoTime() - start) / 1_000_000 + " ms: " + clients
+                + " REST clients built, " + catalogue + " hotels cached, " + models + " JSON models prepared");
+    }
+
+    /**
+     * @return true once the warm-up has run, or if it is disabled
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Asking a client proxy for its contextual instance creates the bean behind it
+     * */
+    private int buildClients() {
+        List<Object> clients = Arrays.asList(areaService, flightService, taxiService);
+        for (Object client : clients) {
+            if (client instanceof ClientProxy) {
+                ((ClientProxy) client).arc_contextualInstance();
+            }
+        }
+        return clients.size();
+    }
+
+    private int primeCatalogue() {
+        List<Hotel> page = em.createNamedQuery(Hotel.FIND_ALL, Hotel.class).setMaxResults(hotels).getResultList();
+        LocalDate today = LocalDate.now();
+        for (Hotel hotel : page) {
+            inventoryService.booked(hotel.getId(), today);
+        }
+        em.clear();
+        return page.size();
+    }
+
+    /**
+     * Jackson builds the serializer and deserializer of a type on first use, and keeps them. Types without a
+     * no-argument constructor are skipped
+     * */
+    private int prepareJson() {
+        List<Class<?>> types = new ArrayList<>(MODELS);
+        for (EntityType<?> entity : em.getMetamodel().getEntities()) {
+            types.add(entity.getJavaType());
+        }
+        int prepared = 0;
+        for (Class<?> type : types) {
+            try {
+                Object sample = type.getDeclaredConstructor().newInstance();
+                mapper.readValue(mapper.writeValueAsBytes(sample), type);
+                prepared++;
+            } catch (NoSuchMethodException e) {
+                log.fine("Warmup.prepareJson() - No sample of " + type.getName());
+            } catch (Exception e) {
+                log.warning("Warmup.prepareJson() - Could not prepare " + type.getName() + ": " + e);
+            }
+        }
+        return prepared;
+    }
+}
@@ -0,0 +1,5 @@
+-- PostgreSQL only: prefix searches of Contacts (LIKE 'prefix%', see ContactRepository.search) can use a b-tree index
+-- under any collation only if the index compares the keys character by character
+
+create index idx_contact_last_name_key_pattern on contact (last_name_key varchar_pattern_ops, first_name_key varchar_pattern_ops);
+create index idx_contact_first_name_key_pattern on contact (first_name_key varchar_pattern_ops);
@@ -0,0 +1,80 @@
+-- Initial schema, matching the entity mappings at the time versioned migrations were introduced.
+-- Applied by Flyway in the prod profile; dev and test keep using Hibernate's drop-and-create.
+
+create table customer (
+    id bigint generated by default as identity,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    phone_number varchar(255),
+    primary key (id)
+);
+
+alter table customer add constraint uk_customer_email unique (email);
+
+create table hotel (
+    id bigint generated by default as identity,
+    name varchar(255),
+    phone_number varchar(255),
+    post_code varchar(255),
+    primary key (id)
+);
+
+alter table hotel add constraint uk_hotel_phone_number unique (phone_number);
+
+create table Booking (
+    id bigint generated by default as identity,
+    booking_date date,
+    customer_id bigint,
+    hotel_id bigint,
+    primary key (id)
+);
+
+alter table Booking add constraint fk_booking_customer foreign key (customer_id) references customer;
+alter table Booking add constraint fk_booking_hotel foreign key (hotel_id) references hotel;
+
+create table travel_agent (
+    id bigint generated by default as identity,
+    creation_date timestamp not null,
+    flight_booking_id bigint,
+    hotel_booking_id bigint,
+    taxi_booking_id bigint,
+    customer_id bigint,
+    primary key (id)
+);
+
+alter table travel_agent add constraint fk_travel_agent_customer foreign key (customer_id) references customer;
+
+create table contact (
+    id bigint not null,
+    birth_date date,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    phone_number varchar(255),
+    state varchar(255),
+    primary key (id)
+);
+
+alter table contact add constraint uk_contact_email unique (email);
+
+-- Backing table of the GenerationType.TABLE id generator used by Contact
+create table hibernate_sequences (
+    sequence_name varchar(255) not null,
+    next_val bigint,
+    primary key (sequence_name)
+);
+
+insert into hibernate_sequences (sequence_name, next_val) values ('default', 0);
+
+create table outbox_entry (
+    id bigint generated by default as identity,
+    attempts integer not null,
+    creation_date timestamp not null,
+    last_error varchar(1024),
+    next_attempt_at timestamp not null,
+    operation varchar(32) not null,
+    status varchar(16) not null,
+    target_id bigint not null,
+    primary key (id)
+);
@@ -0,0 +1,15 @@
+-- Indexes for the named-query and criteria-query access paths (see the @Table(indexes) of each entity)
+
+create index idx_booking_customer_id on Booking (customer_id);
+create index idx_booking_hotel_id_booking_date on Booking (hotel_id, booking_date);
+
+create index idx_travel_agent_customer_id on travel_agent (customer_id);
+
+create index idx_contact_last_name_first_name on contact (last_name, first_name);
+create index idx_contact_first_name on contact (first_name);
+
+create index idx_customer_last_name_first_name on customer (last_name, first_name);
+
+create index idx_hotel_name on hotel (name);
+
+create index idx_outbox_entry_status_next_attempt_at on outbox_entry (status, next_attempt_at);
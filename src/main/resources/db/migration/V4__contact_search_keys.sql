@@ -0,0 +1,12 @@
+-- Lower-cased name columns for case-insensitive and prefix Contact searches (see ContactRepository.search)
+
+alter table contact add column first_name_key varchar(25);
+alter table contact add column last_name_key varchar(25);
+
+update contact set first_name_key = lower(first_name), last_name_key = lower(last_name);
+
+drop index idx_contact_last_name_first_name;
+drop index idx_contact_first_name;
+
+create index idx_contact_last_name_key_first_name_key on contact (last_name_key, first_name_key);
+create index idx_contact_first_name_key on contact (first_name_key);
@@ -0,0 +1,6 @@
+-- Optimistic locking / ETag version columns (JPA @Version). Existing rows start at version 0.
+
+alter table customer add column version bigint default 0 not null;
+alter table hotel add column version bigint default 0 not null;
+alter table Booking add column version bigint default 0 not null;
+alter table contact add column version bigint default 0 not null;
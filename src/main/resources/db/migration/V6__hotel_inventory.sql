@@ -0,0 +1,18 @@
+-- Hotel capacity and per-date room inventory. Existing hotels keep one room, and the counters of the dates
+-- already booked start from their bookings.
+
+alter table hotel add column capacity integer default 1 not null;
+
+create table hotel_inventory (
+    hotel_id bigint not null,
+    stay_date date not null,
+    booked integer not null,
+    primary key (hotel_id, stay_date)
+);
+
+alter table hotel_inventory add constraint fk_hotel_inventory_hotel foreign key (hotel_id) references hotel;
+
+insert into hotel_inventory (hotel_id, stay_date, booked)
+select hotel_id, booking_date, count(*) from Booking
+where hotel_id is not null and booking_date is not null
+group by hotel_id, booking_date;
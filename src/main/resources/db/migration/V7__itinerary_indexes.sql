@@ -0,0 +1,6 @@
+-- Access paths of the customer itinerary: the bookings of a customer by date, and the travel agent booking made
+-- with a hotel booking.
+
+create index idx_booking_customer_id_booking_date on Booking (customer_id, booking_date);
+
+create index idx_travel_agent_hotel_booking_id on travel_agent (hotel_booking_id);
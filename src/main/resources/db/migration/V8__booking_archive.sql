@@ -0,0 +1,20 @@
+-- Archive of past bookings (see BookingArchiver). Flat rows with the ids of the booking, its customer and hotel and
+-- the travel agent booking made with it, without foreign keys.
+
+create table booking_archive (
+    id bigint not null,
+    booking_date date not null,
+    customer_id bigint not null,
+    hotel_id bigint not null,
+    travel_agent_booking_id bigint,
+    flight_booking_id bigint,
+    taxi_booking_id bigint,
+    archived_on timestamp not null,
+    primary key (id)
+);
+
+create index idx_booking_archive_customer_id_booking_date on booking_archive (customer_id, booking_date);
+create index idx_booking_archive_hotel_id on booking_archive (hotel_id);
+
+-- The archive job reads the live bookings oldest first
+create index idx_booking_booking_date on Booking (booking_date);
@@ -0,0 +1,457 @@
+package uk.ac.newcastle.enterprisemiddleware.booking;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.*;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.customer.CustomerRestService;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.hotel.HotelRestService;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@TestHTTPEndpoint(BookingHoldRestService.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+public class BookingHoldRestServiceIntegrationTest {
+    private static Customer customer;
+    private static Hotel hotel;
+    private static Hotel otherHotel;
+    private static Hotel lastRoomHotel;
+    private static Hotel heldRoomHotel;
+    private static String holdId;
+
+    @Inject
+    CustomerRestService customerRestService;
+
+    @Inject
+    HotelRestService hotelRestService;
+
+    // Date and time (GMT): Thursday, 1 January 2099 00:00:00
+    private final Date futureBookingDate = new Date(4070908800000L);
+
+    @Test
+    @Order(1)
+    public void testCanHoldHotel() {
+        customer = persistCustomer(createCustomerObject());
+        hotel = persistHotel(createHotelObject());
+
+        holdId = given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, futureBookingDate)).
+                queryParam("seconds", 30).
+                when().
+                post().
+                then().
+                statusCode(201).
+                body("expiresAt", notNullValue()).
+                extract().path("id");
+
+        when().
+                get(holdId).
+                then().
+                statusCode(200);
+    }
+
+    @Test
+    @Order(2)
+    public void testHeldHotelCannotBeHeldOrBookedByOthers() {
+        given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, futureBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(409).
+                body("reasons.booking", containsString("already booked or held"));
+
+        Booking booking = new Booking();
+        booking.setHotel(hotel);
+        booking.setCustomer(customer);
+        booking.setBookingDate(futureBookingDate);
+        given().
+                basePath("/bookings").
+                contentType(ContentType.JSON).
+                body(booking).
+                when().
+                post().
+                then().
+                statusCode(409);
+    }
+
+    @Test
+    @Order(3)
+    public void testCanConfirmHold() {
+        given().
+                contentType(ContentType.JSON).
+                queryParam("customerId", customer.getId()).
+                when().
+                post(holdId + "/confirm").
+                then().
+                statusCode(201).
+                body("hotel.id", is(hotel.getId().intValue()));
+
+        when().
+                get(holdId).
+                then().
+                statusCode(404);
+
+        // The hotel is now booked for the date
+        given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, futureBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(409);
+    }
+
+    @Test
+    @Order(4)
+    public void testCanReleaseHold() {
+        Date otherDate = new Date(futureBookingDate.getTime() + 24 * 3600 * 1000L);
+        String id = given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, otherDate)).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        when().
+                delete(id).
+                then().
+                statusCode(204);
+
+        when().
+                delete(id).
+                then().
+                statusCode(404);
+
+        given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, otherDate)).
+                when().
+                post().
+                then().
+                statusCode(201);
+    }
+
+    @Test
+    @Order(5)
+    public void testInvalidHoldCausesError() {
+        given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, new Date(1608163200000L))).
+                when().
+                post().
+                then().
+                statusCode(400).
+                body("reasons.bookingDate", containsString("Booking date can not be in the past"));
+
+        given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(hotel, futureBookingDate)).
+                queryParam("seconds", 0).
+                when().
+                post().
+                then().
+                statusCode(400);
+    }
+
+    @Test
+    @Order(6)
+    public void testAvailabilityCountsBookingsAndHolds() {
+        given().
+                basePath("/hotels").
+                queryParam("from", "2099-01-01").
+                queryParam("to", "2099-01-03").
+                when().
+                get(hotel.getId() + "/availability").
+                then().
+                statusCode(200).
+                body("size()", is(3)).
+                body("[0].booked", is(1)).
+                body("[0].available", is(0)).
+                body("[1].held", is(1)).
+                body("[1].available", is(0)).
+                body("[2].available", is(1));
+
+        given().
+                basePath("/hotels").
+                queryParam("from", "2099-01-03").
+                queryParam("to", "2099-01-01").
+                when().
+                get(hotel.getId() + "/availability").
+                then().
+                statusCode(400);
+    }
+
+    @Test
+    @Order(7)
+    public void testHotelTakesAsManyBookingsAsRooms() {
+        Hotel hotel = createHotelObject();
+        hotel.setName("RoomsHotel");
+        hotel.setPhoneNumber("08866754333");
+        hotel.setCapacity(2);
+        otherHotel = persistHotel(hotel);
+
+        Booking booking = new Booking();
+        booking.setHotel(otherHotel);
+        booking.setCustomer(customer);
+        booking.setBookingDate(futureBookingDate);
+        for (int status : new int[]{201, 201, 409}) {
+            given().
+                    basePath("/bookings").
+                    contentType(ContentType.JSON).
+                    body(booking).
+                    when().
+                    post().
+                    then().
+                    statusCode(status);
+        }
+
+        given().
+                basePath("/hotels").
+                queryParam("from", "2099-01-01").
+                queryParam("to", "2099-01-01").
+                when().
+                get(otherHotel.getId() + "/availability").
+                then().
+                statusCode(200).
+                body("[0].capacity", is(2)).
+                body("[0].booked", is(2)).
+                body("[0].available", is(0));
+    }
+
+    @Test
+    @Order(8)
+    public void testConcurrentBookingsOfTheLastRoomLetOneThrough() throws Exception {
+        Hotel hotel = createHotelObject();
+        hotel.setName("LastRoomHotel");
+        hotel.setPhoneNumber("08866754334");
+        hotel.setCapacity(1);
+        lastRoomHotel = persistHotel(hotel);
+
+        Booking booking = new Booking();
+        booking.setHotel(lastRoomHotel);
+        booking.setCustomer(customer);
+        booking.setBookingDate(futureBookingDate);
+
+        // All the requests are released together, so that they race for the room
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return given().
+                            basePath("/bookings").
+                            contentType(ContentType.JSON).
+                            body(booking).
+                            when().
+                            post().
+                            then().
+                            extract().statusCode();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> codes = new ArrayList<>();
+            for (Future<Integer> status : statuses) {
+                codes.add(status.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(1, Collections.frequency(codes, 201), "Statuses: " + codes);
+            assertEquals(requests - 1, Collections.frequency(codes, 409), "Statuses: " + codes);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        given().
+                basePath("/hotels").
+                queryParam("from", "2099-01-01").
+                queryParam("to", "2099-01-01").
+                when().
+                get(lastRoomHotel.getId() + "/availability").
+                then().
+                statusCode(200).
+                body("[0].booked", is(1)).
+                body("[0].available", is(0));
+    }
+
+    @Test
+    @Order(9)
+    public void testHoldConfirmRacingBookingsOfTheHeldRoomWins() throws Exception {
+        Hotel hotel = createHotelObject();
+        hotel.setName("HeldRoomHotel");
+        hotel.setPhoneNumber("08866754335");
+        hotel.setCapacity(1);
+        heldRoomHotel = persistHotel(hotel);
+
+        String id = given().
+                contentType(ContentType.JSON).
+                body(createHoldObject(heldRoomHotel, futureBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        Booking booking = new Booking();
+        booking.setHotel(heldRoomHotel);
+        booking.setCustomer(customer);
+        booking.setBookingDate(futureBookingDate);
+
+        // Bookings of the held room are made over and over until the confirmation is done, so that they are being
+        // made when it arrives
+        int bookings = 7;
+        ExecutorService executor = Executors.newFixedThreadPool(bookings + 1);
+        CountDownLatch confirming = new CountDownLatch(bookings);
+        List<Future<List<Integer>>> statuses = new ArrayList<>();
+        try {
+            Future<Integer> confirmed = executor.submit(() -> {
+                confirming.await();
+                return given().
+                        contentType(ContentType.JSON).
+                        queryParam("customerId", customer.getId()).
+                        when().
+                        post(id + "/confirm").
+                        then().
+                        extract().statusCode();
+            });
+            for (int i = 0; i < bookings; i++) {
+                statuses.add(executor.submit(() -> {
+                    List<Integer> codes = new ArrayList<>();
+                    confirming.countDown();
+                    while (!confirmed.isDone()) {
+                        codes.add(given().
+                                basePath("/bookings").
+                                contentType(ContentType.JSON).
+                                body(booking).
+                                when().
+                                post().
+                                then().
+                                extract().statusCode());
+                    }
+                    return codes;
+                }));
+            }
+
+            assertEquals(201, confirmed.get(30, TimeUnit.SECONDS));
+            List<Integer> codes = new ArrayList<>();
+            for (Future<List<Integer>> status : statuses) {
+                codes.addAll(status.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(codes.size(), Collections.frequency(codes, 409), "Statuses: " + codes);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Order(10)
+    public void testCanDeleteHeldHotelAndCustomer() {
+        // Deleting the hotel and customer removes their booking, leaving the database as the other tests expect it
+        given().
+                basePath("/hotels").
+                when().
+                delete(hotel.getId().toString()).
+                then().
+                statusCode(204);
+
+        given().
+                basePath("/hotels").
+                when().
+                delete(otherHotel.getId().toString()).
+                then().
+                statusCode(204);
+
+        given().
+                basePath("/hotels").
+                when().
+                delete(lastRoomHotel.getId().toString()).
+                then().
+                statusCode(204);
+
+        given().
+                basePath("/hotels").
+                when().
+                delete(heldRoomHotel.getId().toString()).
+                then().
+                statusCode(204);
+
+        given().
+                basePath("/customers").
+                when().
+                delete(customer.getId().toString()).
+                then().
+                statusCode(204);
+    }
+
+    private BookingHold createHoldObject(Hotel hotel, Date bookingDate) {
+        BookingHold hold = new BookingHold();
+        hold.setHotelId(hotel.getId());
+        hold.setBookingDate(bookingDate);
+        return hold;
+    }
+
+    private Hotel createHotelObject() {
+        Hotel hotel = new Hotel();
+        hotel.setName("HoldHotel");
+        hotel.setPostCode("654321");
+        hotel.setPhoneNumber("08866754331");
+        return hotel;
+    }
+
+    private Customer createCustomerObject() {
+        Customer customer = new Customer();
+        customer.setFirstName("Hold");
+        customer.setLastName("Account");
+        customer.setEmail("hold@email.com");
+        customer.setPhoneNumber("08866754332");
+        return customer;
+    }
+
+    private Customer persistCustomer(Customer customer) {
+        try {
+            customerRestService.createCustomer(customer);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return customer;
+    }
+
+    private Hotel persistHotel(Hotel hotel) {
+        try {
+            hotelRestService.createHotel(hotel);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return hotel;
+    }
+}
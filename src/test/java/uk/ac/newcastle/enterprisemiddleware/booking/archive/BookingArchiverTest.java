@@ -0,0 +1,132 @@
+package uk.ac.newcastle.enterprisemiddleware.booking.archive;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.*;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+public class BookingArchiverTest {
+    // Booking dates must be in the future, so the past booking is written with SQL
+    private static final long PAST_BOOKING_ID = 900001L;
+
+    private static Integer customerId;
+    private static Integer hotelId;
+
+    @Inject
+    BookingArchiver archiver;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    @Order(1)
+    public void testCanArchivePastBooking() {
+        Customer customer = new Customer();
+        customer.setFirstName("Archive");
+        customer.setLastName("Account");
+        customer.setEmail("archive@email.com");
+        customer.setPhoneNumber("08866754336");
+        customerId = given().
+                basePath("/customers").
+                contentType(ContentType.JSON).
+                body(customer).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        Hotel hotel = new Hotel();
+        hotel.setName("ArchiveHotel");
+        hotel.setPostCode("654321");
+        hotel.setPhoneNumber("08866754337");
+        hotelId = given().
+                basePath("/hotels").
+                contentType(ContentType.JSON).
+                body(hotel).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        insertPastBooking();
+
+        assertEquals(1, archiver.archive(), "One booking should have been archived");
+        assertEquals(0, archiver.archive(), "Nothing should be left to archive");
+    }
+
+    @Test
+    @Order(2)
+    public void testItineraryIncludesArchivedOnlyWhenAsked() {
+        given().
+                basePath("/customers").
+                when().
+                get(customerId + "/itinerary").
+                then().
+                statusCode(200).
+                body("entries.size()", is(0));
+
+        given().
+                basePath("/customers").
+                queryParam("includeArchived", true).
+                when().
+                get(customerId + "/itinerary").
+                then().
+                statusCode(200).
+                body("entries.size()", is(1)).
+                body("entries[0].bookingId", is((int) PAST_BOOKING_ID)).
+                body("entries[0].hotelName", is("ArchiveHotel"));
+    }
+
+    @Test
+    @Order(3)
+    public void testCanDeleteArchivedCustomerAndHotel() {
+        given().
+                basePath("/customers").
+                when().
+                delete(customerId.toString()).
+                then().
+                statusCode(204);
+
+        given().
+                basePath("/hotels").
+                when().
+                delete(hotelId.toString()).
+                then().
+                statusCode(204);
+
+        assertEquals(0L, countArchived(), "The archived booking should have been deleted with its customer");
+    }
+
+    @Transactional
+    void insertPastBooking() {
+        em.createNativeQuery("insert into Booking (id, booking_date, customer_id, hotel_id, version) values (?, ?, ?, ?, 0)")
+                .setParameter(1, PAST_BOOKING_ID)
+                .setParameter(2, java.sql.Date.valueOf("2020-01-01"))
+                .setParameter(3, customerId.longValue())
+                .setParameter(4, hotelId.longValue())
+                .executeUpdate();
+    }
+
+    @Transactional
+    long countArchived() {
+        return em.createQuery("SELECT COUNT(a) FROM ArchivedBooking a WHERE a.id = :id", Long.class)
+                .setParameter("id", PAST_BOOKING_ID)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,117 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.search.SearchIndexesChanged;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <p>The cluster is replaced by a cluster of one instance recording what it broadcasts.</p>
+ */
+@QuarkusTest
+@TestProfile(CachedEntitiesTest.RecordingClusterProfile.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+public class CachedEntitiesTest {
+
+    static final List<Serializable> broadcasts = new CopyOnWriteArrayList<>();
+
+    public static class RecordingClusterProfile implements QuarkusTestProfile {
+        @Override
+        public Set<Class<?>> getEnabledAlternatives() {
+            return Set.of(RecordingClusterProducer.class);
+        }
+    }
+
+    @Alternative
+    @ApplicationScoped
+    public static class RecordingClusterProducer {
+        @Produces
+        @Alternative
+        @ApplicationScoped
+        Cluster cluster() {
+            return new LocalCluster() {
+                @Override
+                public void broadcast(Serializable event) {
+                    broadcasts.add(event);
+                }
+            };
+        }
+    }
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    void testChangesOfATransactionAreBroadcastOnce() {
+        broadcasts.clear();
+        List<Long> ids = QuarkusTransaction.call(() -> {
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Hotel hotel = new Hotel();
+                hotel.setName("Batchhotel");
+                hotel.setPostCode("456789");
+                hotel.setPhoneNumber("0886675440" + i);
+                em.persist(hotel);
+                em.flush();
+                hotel.setName("Batchhotel" + (char) ('a' + i));
+                created.add(hotel.getId());
+            }
+            return created;
+        });
+
+        // Each hotel was inserted then updated: one change per hotel, in one message of each kind
+        assertEquals(List.of(ids), cachedEntityIds());
+        assertEquals(List.of(ids), searchIndexIds());
+
+        broadcasts.clear();
+        QuarkusTransaction.run(() -> ids.forEach(id -> em.remove(em.find(Hotel.class, id))));
+
+        assertEquals(List.of(ids), cachedEntityIds());
+        assertEquals(List.of(ids), searchIndexIds());
+    }
+
+    /**
+     * The ids of the hotels of each CachedEntitiesChanged message broadcast
+     * */
+    private static List<List<Long>> cachedEntityIds() {
+        return broadcasts.stream()
+                .filter(CachedEntitiesChanged.class::isInstance)
+                .map(event -> ((CachedEntitiesChanged) event).getChanges().stream()
+                        .filter(change -> change.getEntityName().equals(Hotel.class.getName()))
+                        .map(change -> (Long) change.getId())
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The ids of the hotels of each SearchIndexesChanged message broadcast
+     * */
+    private static List<List<Long>> searchIndexIds() {
+        return broadcasts.stream()
+                .filter(SearchIndexesChanged.class::isInstance)
+                .map(event -> ((SearchIndexesChanged) event).getChanges().stream()
+                        .filter(change -> change.getType().equals(Hotel.class.getName()))
+                        .map(change -> change.getId())
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,118 @@
+package uk.ac.newcastle.enterprisemiddleware.cluster;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InfinispanClusterTest {
+    private static final int NODES = 2;
+
+    private static final List<InfinispanCluster> nodes = new ArrayList<>();
+    private static final List<List<Object>> received = new ArrayList<>();
+
+    @BeforeAll
+    static void start() {
+        for (int i = 0; i < NODES; i++) {
+            List<Object> events = new CopyOnWriteArrayList<>();
+            received.add(events);
+            nodes.add(new InfinispanCluster("cluster-test", "jgroups-test.xml", events::add));
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        nodes.forEach(InfinispanCluster::close);
+    }
+
+    @Test
+    void testComputeIsSeenByEveryNode() {
+        SharedMap<String, String> first = nodes.get(0).map("compute");
+        SharedMap<String, String> second = nodes.get(1).map("compute");
+
+        first.compute("key", (key, value) -> value == null ? "a" : value + "a", 60000);
+        second.compute("key", (key, value) -> value == null ? "b" : value + "b", 60000);
+
+        assertEquals("ab", first.get("key"));
+        assertEquals("ab", second.get("key"));
+        assertEquals("ab", first.remove("key"));
+        assertNull(second.get("key"));
+    }
+
+    @Test
+    void testConcurrentComputesAdmitUpToTheLimit() throws Exception {
+        int limit = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                SharedMap<String, HashSet<Integer>> map = nodes.get(i % NODES).map("admission");
+                int taker = i;
+                results.add(executor.submit(() -> {
+                    HashSet<Integer> takers = map.compute("room", (key, current) -> {
+                        HashSet<Integer> next = current == null ? new HashSet<>() : new HashSet<>(current);
+                        if (next.size() < limit) {
+                            next.add(taker);
+                        }
+                        return next;
+                    }, 60000);
+                    return takers.contains(taker);
+                }));
+            }
+            int admitted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    admitted++;
+                }
+            }
+
+            assertEquals(limit, admitted);
+            SharedMap<String, HashSet<Integer>> map = nodes.get(1).map("admission");
+            assertEquals(limit, map.get("room").size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEntriesExpireAfterTheirLifespan() throws Exception {
+        SharedMap<String, String> first = nodes.get(0).map("lifespan");
+        SharedMap<String, String> second = nodes.get(1).map("lifespan");
+
+        first.put("short", "value", 200);
+        first.put("long", "value", 60000);
+        assertEquals("value", second.get("short"));
+
+        Thread.sleep(400);
+
+        assertNull(second.get("short"));
+        assertEquals("value", second.get("long"));
+        second.remove("long");
+    }
+
+    @Test
+    void testBroadcastReachesTheOtherNodes() throws Exception {
+        received.forEach(List::clear);
+
+        nodes.get(0).broadcast("changed");
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (received.get(1).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("changed"), received.get(1));
+        assertTrue(received.get(0).isEmpty());
+    }
+}
@@ -3,17 +3,28 @@ package uk.ac.newcastle.enterprisemiddleware.contact;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.junit.jupiter.api.*;
 
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
@@ -23,6 +34,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 class ContactRestServiceIntegrationTest {
 
     private static Contact contact;
+    private static Long patchedId;
+    private static final List<Long> searchedIds = new ArrayList<>();
+
+    @Inject
+    EntityManager em;
 
     @BeforeAll
     static void setup() {
@@ -97,4 +113,207 @@ class ContactRestServiceIntegrationTest {
         then().
                 statusCode(204);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(5)
+    public void testCanPatchContact() {
+        // Stored directly: creating a contact through the API looks its area code up remotely
+        Contact stored = new Contact();
+        stored.setFirstName("Patch");
+        stored.setLastName("Account");
+        stored.setEmail("patch@email.com");
+        stored.setBirthDate(new Date(0));
+        stored.setPhoneNumber("(201) 123-4568");
+        stored.setState("New Jersey");
+        QuarkusTransaction.run(() -> em.persist(stored));
+        patchedId = stored.getId();
+
+        String tag = when().
+                get(patchedId.toString()).
+                then().
+                statusCode(200).
+                extract().header("ETag");
+
+        String patched = given().
+                contentType(ContentType.JSON).
+                header("If-Match", tag).
+                body("{\"lastName\":\"Patched\"}").
+                when().
+                patch(patchedId.toString()).
+                then().
+                statusCode(200).
+                body("lastName", is("Patched")).
+                body("firstName", is("Patch")).
+                body("email", is("patch@email.com")).
+                body("phoneNumber", is("(201) 123-4568")).
+                body("state", is("New Jersey")).
+                body("version", is(1)).
+                extract().header("ETag");
+        assertNotEquals(tag, patched);
+    }
+
+    @Test
+    @Order(6)
+    public void testPatchWithStaleVersionIsRefused() {
+        given().
+                contentType(ContentType.JSON).
+                body("{\"firstName\":\"Stale\",\"version\":0}").
+                when().
+                patch(patchedId.toString()).
+                then().
+                statusCode(409).
+                body("reasons.version", containsString("modified"));
+
+        // The newer data is kept
+        when().
+                get(patchedId.toString()).
+                then().
+                statusCode(200).
+                body("firstName", is("Patch")).
+                body("lastName", is("Patched")).
+                body("version", is(1));
+    }
+
+    @Test
+    @Order(7)
+    public void testPatchWithStaleIfMatchIsRefused() {
+        given().
+                contentType(ContentType.JSON).
+                header("If-Match", "\"0\"").
+                body("{\"firstName\":\"Stale\"}").
+                when().
+                patch(patchedId.toString()).
+                then().
+                statusCode(412);
+
+        when().
+                get(patchedId.toString()).
+                then().
+                statusCode(200).
+                body("firstName", is("Patch")).
+                body("version", is(1));
+    }
+
+    @Test
+    @Order(8)
+    public void testUpdatesWriteOnlyTheChangedColumns() {
+        EntityPersister persister = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Contact.class);
+        assertTrue(persister.getEntityMetamodel().isDynamicUpdate(), "Contact updates should be dynamic");
+
+        when().
+                delete(patchedId.toString()).
+                then().
+                statusCode(204);
+    }
+
+    @Test
+    @Order(9)
+    public void testPrefixSearchIgnoresCase() {
+        storeContact("Anna", "Searle", "(201) 123-4571");
+        storeContact("Bob", "SEARS", "(201) 123-4572");
+        storeContact("Cara", "Seaton", "(201) 123-4573");
+        storeContact("Dan", "Sebastian", "(201) 123-4574");
+
+        given().
+                queryParam("lastname", "SEA").
+                queryParam("prefix", true).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("lastName", contains("Searle", "SEARS", "Seaton"));
+
+        given().
+                queryParam("lastname", "sears").
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("firstName", contains("Bob"));
+
+        given().
+                queryParam("firstname", "a").
+                queryParam("lastname", "sea").
+                queryParam("prefix", true).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("firstName", contains("Anna"));
+
+        // Wildcards in the prefix are matched literally
+        given().
+                queryParam("lastname", "Se_").
+                queryParam("prefix", true).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("size()", is(0));
+    }
+
+    @Test
+    @Order(10)
+    public void testPaging() {
+        // All the matching contacts without page or size
+        given().
+                queryParam("lastname", "se").
+                queryParam("prefix", true).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("lastName", contains("Searle", "SEARS", "Seaton", "Sebastian"));
+
+        given().
+                queryParam("lastname", "se").
+                queryParam("prefix", true).
+                queryParam("size", 3).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("lastName", contains("Searle", "SEARS", "Seaton"));
+
+        given().
+                queryParam("lastname", "se").
+                queryParam("prefix", true).
+                queryParam("page", 1).
+                queryParam("size", 3).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("lastName", contains("Sebastian"));
+
+        given().
+                queryParam("lastname", "se").
+                queryParam("prefix", true).
+                queryParam("page", 1).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("size()", is(0));
+
+        given().queryParam("size", 0).when().get().then().statusCode(400);
+        given().queryParam("size", ContactSearch.MAX_PAGE_SIZE + 1).when().get().then().statusCode(400);
+        given().queryParam("page", -1).when().get().then().statusCode(400);
+
+        QuarkusTransaction.run(() -> searchedIds.forEach(id -> em.remove(em.find(Contact.class, id))));
+    }
+
+    private void storeContact(String firstName, String lastName, String phoneNumber) {
+        // Stored directly: creating a contact through the API looks its area code up remotely
+        Contact stored = new Contact();
+        stored.setFirstName(firstName);
+        stored.setLastName(lastName);
+        stored.setEmail(firstName.toLowerCase() + "." + lastName.toLowerCase() + "@email.com");
+        stored.setBirthDate(new Date(0));
+        stored.setPhoneNumber(phoneNumber);
+        stored.setState("New Jersey");
+        QuarkusTransaction.run(() -> em.persist(stored));
+        searchedIds.add(stored.getId());
+    }
+}
@@ -3,15 +3,27 @@ package uk.ac.newcastle.enterprisemiddleware.customer;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.*;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.CoreMatchers.everyItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
@@ -21,6 +33,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class CustomerRestServiceIntegrationTest {
     private static Customer customer;
 
+    @Inject
+    EntityManager em;
+
     @BeforeAll
     static void setup() {
         customer = new Customer();
@@ -77,6 +92,21 @@ public class CustomerRestServiceIntegrationTest {
 
     @Test
     @Order(4)
+    public void testCanGetCustomerByEmail() {
+        when().
+                get("/email/" + customer.getEmail()).
+                then().
+                statusCode(200).
+                body("email", is(customer.getEmail()));
+
+        when().
+                get("/email/unknown@email.com").
+                then().
+                statusCode(404);
+    }
+
+    @Test
+    @Order(5)
     public void testPhoneFormatCausesError() {
         Customer customer = new Customer();
         customer.setFirstName("Test");
@@ -95,7 +125,7 @@ public class CustomerRestServiceIntegrationTest {
     }
 
     @Test
-    @Order(5)
+    @Order(6)
     public void testEmptyRequiredFieldCausesError() {
         Customer customer = new Customer();
         customer.setFirstName("Test");
@@ -114,7 +144,7 @@ public class CustomerRestServiceIntegrationTest {
     }
 
     @Test
-    @Order(6)
+    @Order(7)
     public void testCanDeleteCustomer() {
         Response response = when().
                 get().
@@ -129,4 +159,236 @@ public class CustomerRestServiceIntegrationTest {
                 then().
                 statusCode(204);
     }
+
+    @Test
+    @Order(8)
+    public void testCanGetItineraryByPage() {
+        Customer traveller = new Customer();
+        traveller.setFirstName("Itinerary");
+        traveller.setLastName("Account");
+        traveller.setEmail("itinerary@email.com");
+        traveller.setPhoneNumber("08866754334");
+        Integer customerId = given().
+                contentType(ContentType.JSON).
+                body(traveller).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        Hotel hotel = new Hotel();
+        hotel.setName("ItineraryHotel");
+        hotel.setPostCode("654321");
+        hotel.setPhoneNumber("08866754335");
+        Integer hotelId = given().
+                basePath("/hotels").
+                contentType(ContentType.JSON).
+                body(hotel).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        for (String date : new String[]{"2099-01-02", "2099-01-01", "2099-01-03"}) {
+            given().
+                    basePath("/bookings").
+                    contentType(ContentType.JSON).
+                    body("{\"customer\":{\"id\":" + customerId + "},\"hotel\":{\"id\":" + hotelId + "},\"bookingDate\":\"" + date + "\"}").
+                    when().
+                    post().
+                    then().
+                    statusCode(201);
+        }
+
+        Response firstPage = given().
+                queryParam("limit", 2).
+                when().
+                get(customerId + "/itinerary").
+                then().
+                statusCode(200).
+                body("entries.size()", is(2)).
+                body("entries[0].hotelName", is("ItineraryHotel")).
+                body("nextFrom", is("2099-01-02")).
+                extract().response();
+        String nextFrom = firstPage.path("nextFrom");
+        Integer nextAfter = firstPage.path("nextAfter");
+
+        given().
+                queryParam("limit", 2).
+                queryParam("from", nextFrom).
+                queryParam("after", nextAfter).
+                when().
+                get(customerId + "/itinerary").
+                then().
+                statusCode(200).
+                body("entries.size()", is(1)).
+                body("nextFrom", nullValue());
+
+        when().
+                get("999999/itinerary").
+                then().
+                statusCode(404);
+
+        // Deleting the customer deletes its bookings and gives their rooms back
+        when().
+                delete(customerId.toString()).
+                then().
+                statusCode(204);
+
+        given().
+                basePath("/hotels").
+                queryParam("from", "2099-01-01").
+                queryParam("to", "2099-01-03").
+                when().
+                get(hotelId + "/availability").
+                then().
+                statusCode(200).
+                body("booked", everyItem(is(0)));
+
+        given().
+                basePath("/hotels").
+                when().
+                delete(hotelId.toString()).
+                then().
+                statusCode(204);
+    }
+
+    @Test
+    @Order(9)
+    public void testCanImportAndExportCustomers() {
+        String csv = "email,firstName,lastName,phoneNumber\n"
+                + "import1@email.com,Import,One,08866754301\n"
+                + "import2@email.com,\"Import\",Two,08866754302\n"
+                + "import1@email.com,Import,Again,08866754303\n"
+                + "import3@email.com,Import,Three,123\n"
+                + "import4@email.com,Import\n";
+
+        Response csvReport = given().
+                contentType("text/csv").
+                body(csv).
+                when().
+                post("import").
+                then().
+                statusCode(200).
+                body("created", is(2)).
+                body("duplicates", is(1)).
+                body("invalid", is(2)).
+                body("rows.status", contains("CREATED", "CREATED", "DUPLICATE", "INVALID", "INVALID")).
+                body("rows[3].reasons.phoneNumber", containsString("starts with a 0")).
+                extract().response();
+
+        String ndjson = "{\"firstName\":\"Import\",\"lastName\":\"Again\",\"email\":\"import1@email.com\",\"phoneNumber\":\"08866754304\"}\n"
+                + "{\"firstName\":\"Import\",\"lastName\":\"Five\",\"email\":\"import5@email.com\",\"phoneNumber\":\"08866754305\"}\n"
+                + "not json\n";
+
+        Response ndjsonReport = given().
+                contentType("application/x-ndjson").
+                body(ndjson.getBytes(StandardCharsets.UTF_8)).
+                when().
+                post("import").
+                then().
+                statusCode(200).
+                body("rows.status", contains("DUPLICATE", "CREATED", "INVALID")).
+                body("rows.line", contains(1, 2, 3)).
+                extract().response();
+
+        given().
+                contentType("text/csv").
+                body("email,firstName\n").
+                when().
+                post("import").
+                then().
+                statusCode(400);
+
+        String exported = given().
+                accept("text/csv").
+                when().
+                get("export").
+                then().
+                statusCode(200).
+                extract().asString();
+        assertTrue(exported.startsWith("id,firstName,lastName,email,phoneNumber\n"), "CSV export should start with its header");
+        assertTrue(exported.contains(",Import,One,import1@email.com,08866754301\n"), "CSV export should contain the imported customer");
+
+        given().
+                accept("application/x-ndjson").
+                when().
+                get("export").
+                then().
+                statusCode(200).
+                body(containsString("\"email\":\"import5@email.com\""));
+
+        for (Integer id : new Integer[]{csvReport.path("rows[0].id"), csvReport.path("rows[1].id"), ndjsonReport.path("rows[1].id")}) {
+            when().
+                    delete(id.toString()).
+                    then().
+                    statusCode(204);
+        }
+    }
+
+    @Test
+    @Order(10)
+    public void testConditionalGetOfCustomer() {
+        Customer tagged = new Customer();
+        tagged.setFirstName("Tagged");
+        tagged.setLastName("Account");
+        tagged.setEmail("tagged@email.com");
+        tagged.setPhoneNumber("08866754330");
+        Integer id = given().
+                contentType(ContentType.JSON).
+                body(tagged).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        String tag = when().
+                get(id.toString()).
+                then().
+                statusCode(200).
+                header("ETag", notNullValue()).
+                extract().header("ETag");
+
+        given().
+                header("If-None-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(304);
+
+        given().
+                header("If-Match", "\"999\"").
+                when().
+                get(id.toString()).
+                then().
+                statusCode(412);
+
+        // There is no update endpoint for customers
+        QuarkusTransaction.run(() -> em.find(Customer.class, id.longValue()).setFirstName("Retagged"));
+
+        String updated = given().
+                header("If-None-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(200).
+                body("firstName", is("Retagged")).
+                extract().header("ETag");
+        assertNotEquals(tag, updated);
+
+        given().
+                header("If-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(412);
+
+        when().
+                delete(id.toString()).
+                then().
+                statusCode(204);
+    }
 }
@@ -17,10 +17,20 @@ import uk.ac.newcastle.enterprisemiddleware.hotel.HotelService;
 
 import javax.inject.Inject;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -32,6 +42,10 @@ public class GuestBookingRestServiceIntegrationTest {
     private static Customer customer;
     private static Hotel hotel;
     private static GuestBooking booking;
+    private static Long fullHotelId;
+    private static Long guestCustomerId;
+    private static Long racingHotelId;
+    private static Long racingCustomerId;
     @Inject
     HotelRestService hotelRestService;
 
@@ -43,10 +57,16 @@ public class GuestBookingRestServiceIntegrationTest {
     @TestHTTPResource("/bookings")
     URL bookingEndpoint;
 
+    @TestHTTPResource("/customers")
+    URL customerEndpoint;
+
     // Date and time (GMT): Sunday, 17 December 2023 00:00:00 in milliseconds
     private Date futureBookingDateEpoch = new Date(1702771200000L);
     // Date and time (GMT): Thursday, 17 December 2020 00:00:00
     private Date pastBookingDateEpoch = new Date(1608163200000L);
+    // Date and time (GMT): Monday, 2 June 2031 00:00:00
+    private Date laterBookingDate = new Date(1938124800000L);
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
 
     @BeforeAll
     static void setup() {
@@ -127,6 +147,213 @@ public class GuestBookingRestServiceIntegrationTest {
         }
     }
 
+    @Test
+    @Order(4)
+    public void testFailedBookingsRollBack() {
+        Hotel fullHotel = new Hotel();
+        fullHotel.setName("FullHotel");
+        fullHotel.setPostCode("234567");
+        fullHotel.setPhoneNumber("08866754323");
+        fullHotel.setCapacity(1);
+        fullHotelId = given().
+                contentType(ContentType.JSON).
+                body(fullHotel).
+                when().
+                post(hotelEndpoint).
+                then().
+                statusCode(201).
+                extract().jsonPath().getLong("id");
+
+        Customer guest = new Customer();
+        guest.setFirstName("Guest");
+        guest.setLastName("Account");
+        guest.setEmail("guest@email.com");
+        guest.setPhoneNumber("08866754324");
+
+        guestCustomerId = given().
+                contentType(ContentType.JSON).
+                body(createGuestBookingObject(guest, fullHotelId, laterBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().jsonPath().getLong("customer.id");
+
+        // Each failure rolls back its own transaction, so none of them affects the requests after it
+        for (int i = 0; i < 20; i++) {
+            given().
+                    contentType(ContentType.JSON).
+                    body(createGuestBookingObject(guest, fullHotelId, laterBookingDate)).
+                    when().
+                    post().
+                    then().
+                    statusCode(409);
+
+            given().
+                    contentType(ContentType.JSON).
+                    body(createGuestBookingObject(guest, 0L, laterBookingDate)).
+                    when().
+                    post().
+                    then().
+                    statusCode(400);
+        }
+
+        Customer invalid = new Customer();
+        invalid.setFirstName("Guest1");
+        invalid.setLastName("Account");
+        invalid.setEmail("invalid@email.com");
+        invalid.setPhoneNumber("08866754325");
+        given().
+                contentType(ContentType.JSON).
+                body(createGuestBookingObject(invalid, fullHotelId, laterBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(400);
+
+        given().
+                contentType(ContentType.JSON).
+                body(createGuestBookingObject(guest, fullHotelId, new Date(laterBookingDate.getTime() + DAY_MILLIS))).
+                when().
+                post().
+                then().
+                statusCode(201);
+
+        given().
+                when().
+                get(bookingEndpoint + "/customer/" + guestCustomerId).
+                then().
+                statusCode(200).
+                body("size()", is(2));
+    }
+
+    @Test
+    @Order(5)
+    public void testFailedBookingOfNewGuestLeavesNoCustomer() {
+        Customer newGuest = new Customer();
+        newGuest.setFirstName("Newguest");
+        newGuest.setLastName("Account");
+        newGuest.setEmail("new.guest@email.com");
+        newGuest.setPhoneNumber("08866754326");
+
+        // Unknown hotel
+        given().
+                contentType(ContentType.JSON).
+                body(createGuestBookingObject(newGuest, 0L, laterBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(400);
+
+        // Full hotel
+        given().
+                contentType(ContentType.JSON).
+                body(createGuestBookingObject(newGuest, fullHotelId, laterBookingDate)).
+                when().
+                post().
+                then().
+                statusCode(409);
+
+        // The customer created for each booking was rolled back with it
+        given().
+                when().
+                get(customerEndpoint + "/email/" + newGuest.getEmail()).
+                then().
+                statusCode(404);
+    }
+
+    @Test
+    @Order(6)
+    public void testConcurrentBookingsOfNewGuestShareOneCustomer() throws Exception {
+        int requests = 6;
+        Hotel racingHotel = new Hotel();
+        racingHotel.setName("RacingHotel");
+        racingHotel.setPostCode("345678");
+        racingHotel.setPhoneNumber("08866754327");
+        racingHotel.setCapacity(requests);
+        racingHotelId = given().
+                contentType(ContentType.JSON).
+                body(racingHotel).
+                when().
+                post(hotelEndpoint).
+                then().
+                statusCode(201).
+                extract().jsonPath().getLong("id");
+
+        Customer racingGuest = new Customer();
+        racingGuest.setFirstName("Racing");
+        racingGuest.setLastName("Account");
+        racingGuest.setEmail("racing.guest@email.com");
+        racingGuest.setPhoneNumber("08866754328");
+        GuestBooking racingBooking = createGuestBookingObject(racingGuest, racingHotelId, laterBookingDate);
+
+        // All the requests are released together, so that they race to create the customer
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Response>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return given().
+                            contentType(ContentType.JSON).
+                            body(racingBooking).
+                            when().
+                            post().
+                            then().
+                            extract().response();
+                }));
+            }
+            start.countDown();
+
+            Set<Long> customerIds = new HashSet<>();
+            for (Future<Response> response : responses) {
+                Response created = response.get(30, TimeUnit.SECONDS);
+                assertEquals(201, created.statusCode(), created.asString());
+                customerIds.add(created.jsonPath().getLong("customer.id"));
+            }
+            assertEquals(1, customerIds.size(), "Customers: " + customerIds);
+            racingCustomerId = customerIds.iterator().next();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        given().
+                when().
+                get(bookingEndpoint + "/customer/" + racingCustomerId).
+                then().
+                statusCode(200).
+                body("size()", is(requests));
+    }
+
+    @Test
+    @Order(7)
+    public void testCleanUpFailedBookings() {
+        given().
+                when().
+                delete(customerEndpoint + "/" + guestCustomerId).
+                then().
+                statusCode(204);
+
+        given().
+                when().
+                delete(hotelEndpoint + "/" + fullHotelId).
+                then().
+                statusCode(204);
+
+        given().
+                when().
+                delete(customerEndpoint + "/" + racingCustomerId).
+                then().
+                statusCode(204);
+
+        given().
+                when().
+                delete(hotelEndpoint + "/" + racingHotelId).
+                then().
+                statusCode(204);
+    }
+
     private GuestBooking createGuestBookingObject(Customer customer, Long hotelId, Date bookingDate) {
         GuestBooking booking = new GuestBooking();
         booking.setId(1L);
@@ -0,0 +1,83 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.ClientWebApplicationException;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
+
+import javax.inject.Inject;
+import javax.ws.rs.ProcessingException;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * <p>The area-api client is pointed at a port nobody listens on, so that its calls fail and open its circuit.</p>
+ */
+@QuarkusTest
+@TestProfile(HealthCheckTest.UnreachableAreaProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class HealthCheckTest {
+
+    public static class UnreachableAreaProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.rest-client.area-api.url", "http://localhost:1/",
+                    "app.remote.circuit.failure-threshold", "2");
+        }
+    }
+
+    @RestClient
+    AreaService areaService;
+
+    @Inject
+    RemoteCalls remoteCalls;
+
+    @Test
+    @Order(1)
+    public void testReadinessChecksAreUp() {
+        given().when().get("/q/health/ready").then()
+                .statusCode(200)
+                .body("status", equalTo("UP"))
+                .body("checks.name", hasItems("datasource-pool", "remote-services", "warmup", "search-index"));
+    }
+
+    @Test
+    @Order(2)
+    public void testLivenessCheckIsUp() {
+        given().when().get("/q/health/live").then()
+                .statusCode(200)
+                .body("checks.name", hasItems("deadlocks"));
+    }
+
+    @Test
+    @Order(3)
+    public void testOpenCircuitRefusesCallsAndIsReported() {
+        assertThrows(ProcessingException.class, () -> areaService.getAreaById(201));
+        assertThrows(ProcessingException.class, () -> areaService.getAreaById(201));
+
+        ClientWebApplicationException refused = assertThrows(ClientWebApplicationException.class,
+                () -> areaService.getAreaById(201));
+        assertEquals(503, refused.getResponse().getStatus());
+        assertEquals(2, remoteCalls.stats("area-api").calls(System.currentTimeMillis()));
+
+        // Reported only: readiness does not depend on the remote services by default
+        given().when().get("/q/health/ready").then()
+                .statusCode(200)
+                .body("checks.find { it.name == 'remote-services' }.status", equalTo("UP"))
+                .body("checks.find { it.name == 'remote-services' }.data.'area-api.circuit'", equalTo("OPEN"))
+                .body("checks.find { it.name == 'remote-services' }.data.'area-api.calls'", equalTo(2));
+        given().when().get("/q/health/live").then().statusCode(200);
+    }
+}
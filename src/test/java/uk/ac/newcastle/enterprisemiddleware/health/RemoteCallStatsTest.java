@@ -0,0 +1,71 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteCallStatsTest {
+
+    @Test
+    void testPercentileOverTheRecentCalls() {
+        RemoteCallStats stats = new RemoteCallStats(1000, 60000, 5, 30000);
+        for (int i = 1; i <= 100; i++) {
+            stats.record(1000, i, false);
+        }
+
+        assertEquals(100, stats.calls(1000));
+        assertEquals(99, stats.percentileMillis(1000, 99));
+        assertEquals(50, stats.percentileMillis(1000, 50));
+
+        stats.record(70000, 5, false);
+        assertEquals(1, stats.calls(70000));
+        assertEquals(5, stats.percentileMillis(70000, 99));
+    }
+
+    @Test
+    void testRingBufferKeepsTheLastCalls() {
+        RemoteCallStats stats = new RemoteCallStats(10, 60000, 5, 30000);
+        for (int i = 1; i <= 20; i++) {
+            stats.record(1000, i * 100, false);
+        }
+
+        assertEquals(10, stats.calls(1000));
+        assertEquals(2000, stats.percentileMillis(1000, 99));
+        assertEquals(1100, stats.percentileMillis(1000, 1));
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        RemoteCallStats stats = new RemoteCallStats(100, 60000, 3, 30000);
+        stats.record(0, 10, true);
+        stats.record(0, 10, true);
+        stats.record(0, 10, false);
+        stats.record(0, 10, true);
+        stats.record(0, 10, true);
+        assertEquals(RemoteCallStats.State.CLOSED, stats.state(0));
+
+        stats.record(0, 10, true);
+        assertEquals(RemoteCallStats.State.OPEN, stats.state(0));
+        assertFalse(stats.allow(29999));
+    }
+
+    @Test
+    void testHalfOpenCircuitLetsOneTrialThrough() {
+        RemoteCallStats stats = new RemoteCallStats(100, 60000, 1, 30000);
+        stats.record(0, 10, true);
+
+        assertEquals(RemoteCallStats.State.HALF_OPEN, stats.state(30000));
+        assertTrue(stats.allow(30000));
+        assertFalse(stats.allow(30001));
+
+        stats.record(30010, 10, true);
+        assertEquals(RemoteCallStats.State.OPEN, stats.state(30010));
+
+        assertTrue(stats.allow(60010));
+        stats.record(60020, 10, false);
+        assertEquals(RemoteCallStats.State.CLOSED, stats.state(60020));
+        assertTrue(stats.allow(60020));
+    }
+}
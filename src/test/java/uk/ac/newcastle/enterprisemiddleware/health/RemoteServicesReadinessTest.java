@@ -0,0 +1,51 @@
+package uk.ac.newcastle.enterprisemiddleware.health;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.area.AreaService;
+
+import javax.ws.rs.ProcessingException;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * <p>Same unreachable area-api as {@link HealthCheckTest}, with app.health.remote.readiness-enabled set, so that an
+ * open circuit takes the instance out of readiness.</p>
+ */
+@QuarkusTest
+@TestProfile(RemoteServicesReadinessTest.RemoteReadinessProfile.class)
+public class RemoteServicesReadinessTest {
+
+    public static class RemoteReadinessProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.rest-client.area-api.url", "http://localhost:1/",
+                    "app.remote.circuit.failure-threshold", "2",
+                    "app.health.remote.readiness-enabled", "true");
+        }
+    }
+
+    @RestClient
+    AreaService areaService;
+
+    @Test
+    public void testOpenCircuitMakesTheInstanceNotReady() {
+        given().when().get("/q/health/ready").then().statusCode(200);
+
+        assertThrows(ProcessingException.class, () -> areaService.getAreaById(201));
+        assertThrows(ProcessingException.class, () -> areaService.getAreaById(201));
+
+        given().when().get("/q/health/ready").then()
+                .statusCode(503)
+                .body("checks.find { it.name == 'remote-services' }.status", equalTo("DOWN"))
+                .body("checks.find { it.name == 'remote-services' }.data.'area-api.circuit'", equalTo("OPEN"));
+        given().when().get("/q/health/live").then().statusCode(200);
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.newcastle.enterprisemiddleware.hotel;
+
+import io.quarkus.hibernate.orm.PersistenceUnit;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.*;
+
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Reads from a replica that is a database of its own, which the test keeps in sync by hand, so that what is read
+ * from the replica can be told apart from what is read from the primary.</p>
+ */
+@QuarkusTest
+@TestHTTPEndpoint(HotelRestService.class)
+@TestProfile(HotelReadReplicaTest.ReplicaProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+public class HotelReadReplicaTest {
+
+    public static class ReplicaProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // The replica profile itself extends the prod one
+            return Map.of(
+                    "app.read-replica.enabled", "true",
+                    "quarkus.datasource.\"replica\".db-kind", "${quarkus.datasource.db-kind}",
+                    "quarkus.datasource.\"replica\".jdbc.url", "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+                    "quarkus.hibernate-orm.\"replica\".packages", "uk.ac.newcastle.enterprisemiddleware",
+                    "quarkus.hibernate-orm.\"replica\".datasource", "replica",
+                    "quarkus.hibernate-orm.\"replica\".dialect", "${quarkus.hibernate-orm.dialect}",
+                    "quarkus.hibernate-orm.\"replica\".second-level-caching-enabled", "false",
+                    "quarkus.hibernate-orm.\"replica\".database.generation", "drop-and-create");
+        }
+    }
+
+    private static final String PHONE_NUMBER = "08800000047";
+    private static Long id;
+
+    @Inject
+    @PersistenceUnit("replica")
+    Instance<EntityManager> replica;
+
+    @Inject
+    HotelRepository crud;
+
+    @Test
+    @Order(1)
+    public void testGetReadsFromReplica() {
+        id = given().
+                contentType(ContentType.JSON).
+                body("{\"name\":\"Replica\",\"postCode\":\"NE17RU\",\"phoneNumber\":\"" + PHONE_NUMBER + "\"}").
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().jsonPath().getLong("id");
+
+        // Not replicated yet
+        when().get().then().statusCode(200).body("phoneNumber", not(hasItem(PHONE_NUMBER)));
+        when().get("/" + id).then().statusCode(404);
+    }
+
+    @Test
+    @Order(2)
+    @Transactional
+    public void replicateHotel() {
+        // Named apart from the hotel of the primary
+        Hotel copy = new Hotel();
+        copy.setName("Replicated");
+        copy.setPostCode("NE17RU");
+        copy.setPhoneNumber(PHONE_NUMBER);
+        replica.get().persist(copy);
+    }
+
+    @Test
+    @Order(3)
+    public void testGetReadsReplicatedHotels() {
+        when().get().then().statusCode(200).body("name", hasItem("Replicated"));
+    }
+
+    @Test
+    @Order(4)
+    @TestTransaction
+    public void testReadsInTransactionUseThePrimary() {
+        assertTrue(crud.findAllOrderedByName().stream()
+                .anyMatch(hotel -> id.equals(hotel.getId()) && "Replica".equals(hotel.getName())));
+    }
+
+    @Test
+    @Order(5)
+    public void testWriteRequestsReadTheirOwnWrites() {
+        // The hotel is looked up by id before being deleted: from the primary, where the id exists
+        when().delete("/" + id).then().statusCode(204);
+    }
+
+    @Test
+    @Order(6)
+    @Transactional
+    public void cleanup() {
+        replica.get().createQuery("DELETE FROM Hotel h WHERE h.phoneNumber = :phoneNumber")
+                .setParameter("phoneNumber", PHONE_NUMBER)
+                .executeUpdate();
+    }
+}
@@ -8,10 +8,18 @@ import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
@@ -126,4 +134,189 @@ public class HotelRestServiceIntegrationTest {
                 statusCode(204);
     }
 
+    @Test
+    @Order(6)
+    public void testCanUpsertHotels() {
+        String first = "[" + hotelJson("Alpha", "08866754401", "AB1234", 2) + ","
+                + hotelJson("Beta", "08866754402", "AB1235", 3) + ","
+                + hotelJson("Gamma", "08866754401", "AB1236", 1) + ","
+                + hotelJson("Delta", "123", "AB1237", 1) + "]";
+
+        Response created = given().
+                contentType(ContentType.JSON).
+                body(first).
+                when().
+                put().
+                then().
+                statusCode(200).
+                body("created", is(2)).
+                body("rows.status", contains("CREATED", "CREATED", "DUPLICATE", "INVALID")).
+                body("rows[3].reasons.phoneNumber", containsString("starts with a 0")).
+                extract().response();
+        Integer alphaId = created.path("rows[0].id");
+        Integer betaId = created.path("rows[1].id");
+
+        String second = "[" + hotelJson("Alpha", "08866754401", "AB1234", 5) + ","
+                + hotelJson("Beta", "08866754402", "AB1235", 3) + ","
+                + hotelJson("Epsilon", "08866754403", "AB1238", 1) + "]";
+
+        Response loaded = given().
+                contentType(ContentType.JSON).
+                body(second).
+                when().
+                put().
+                then().
+                statusCode(200).
+                body("rows.status", contains("UPDATED", "UNCHANGED", "CREATED")).
+                body("rows[0].id", is(alphaId)).
+                body("rows[1].id", is(betaId)).
+                extract().response();
+        Integer epsilonId = loaded.path("rows[2].id");
+
+        when().
+                get(alphaId.toString()).
+                then().
+                statusCode(200).
+                body("capacity", is(5));
+
+        given().
+                contentType(ContentType.JSON).
+                body("[]").
+                when().
+                put().
+                then().
+                statusCode(400);
+
+        for (Integer id : new Integer[]{alphaId, betaId, epsilonId}) {
+            when().
+                    delete(id.toString()).
+                    then().
+                    statusCode(204);
+        }
+    }
+
+    @Test
+    @Order(7)
+    public void testConditionalGetOfHotel() {
+        Integer id = given().
+                contentType(ContentType.JSON).
+                body(hotelJson("Tagged", "08866754501", "AB1239", 2)).
+                when().
+                post().
+                then().
+                statusCode(201).
+                extract().path("id");
+
+        String tag = when().
+                get(id.toString()).
+                then().
+                statusCode(200).
+                header("ETag", notNullValue()).
+                extract().header("ETag");
+
+        given().
+                header("If-None-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(304);
+
+        given().
+                header("If-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(200);
+
+        given().
+                header("If-Match", "\"999\"").
+                when().
+                get(id.toString()).
+                then().
+                statusCode(412);
+
+        given().
+                contentType(ContentType.JSON).
+                body("[" + hotelJson("Tagged", "08866754501", "AB1239", 4) + "]").
+                when().
+                put().
+                then().
+                statusCode(200).
+                body("rows[0].status", is("UPDATED"));
+
+        String updated = given().
+                header("If-None-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(200).
+                body("capacity", is(4)).
+                extract().header("ETag");
+        assertNotEquals(tag, updated);
+
+        given().
+                header("If-Match", tag).
+                when().
+                get(id.toString()).
+                then().
+                statusCode(412);
+
+        when().
+                delete(id.toString()).
+                then().
+                statusCode(204);
+    }
+
+    @Test
+    @Order(8)
+    public void testSearchIsPaged() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(given().
+                    contentType(ContentType.JSON).
+                    body(hotelJson("Zephyrhall", "0886675451" + i, "ZH123" + i, 2)).
+                    when().
+                    post().
+                    then().
+                    statusCode(201).
+                    extract().path("id"));
+        }
+
+        List<Integer> found = new ArrayList<>();
+        found.addAll(given().
+                queryParam("search", "zephyrhall").
+                queryParam("size", 2).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("size()", is(2)).
+                extract().<List<Integer>>path("id"));
+        found.addAll(given().
+                queryParam("search", "zephyrhall").
+                queryParam("page", 1).
+                queryParam("size", 2).
+                when().
+                get().
+                then().
+                statusCode(200).
+                body("size()", is(1)).
+                extract().<List<Integer>>path("id"));
+        assertEquals(new HashSet<>(ids), new HashSet<>(found));
+
+        given().queryParam("search", "zephyrhall").queryParam("size", 0).when().get().then().statusCode(400);
+        given().queryParam("search", "zephyrhall").queryParam("page", -1).when().get().then().statusCode(400);
+
+        for (Integer id : ids) {
+            when().
+                    delete(id.toString()).
+                    then().
+                    statusCode(204);
+        }
+    }
+
+    private static String hotelJson(String name, String phoneNumber, String postCode, int capacity) {
+        return "{\"name\":\"" + name + "\",\"phoneNumber\":\"" + phoneNumber + "\",\"postCode\":\"" + postCode
+                + "\",\"capacity\":" + capacity + "}";
+    }
 }
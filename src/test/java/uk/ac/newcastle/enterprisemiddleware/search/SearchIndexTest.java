@@ -0,0 +1,71 @@
+package uk.ac.newcastle.enterprisemiddleware.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new SearchIndex();
+        index.put(1L, "John Smith");
+        index.put(2L, "Jane Smithers");
+        index.put(3L, "Jon Smyth");
+        index.put(4L, "Robert Jones");
+    }
+
+    @Test
+    void testExactThenPrefixThenTypoMatches() {
+        assertEquals(Arrays.asList(1L, 2L, 3L), index.search("smith", 0, 10));
+    }
+
+    @Test
+    void testPrefixMatch() {
+        assertEquals(Collections.singletonList(4L), index.search("rob", 0, 10));
+    }
+
+    @Test
+    void testTypoMatch() {
+        assertEquals(Collections.singletonList(4L), index.search("robret", 0, 10));
+    }
+
+    @Test
+    void testPhoneticMatch() {
+        assertEquals(Collections.singletonList(4L), index.search("rupert", 0, 10));
+    }
+
+    @Test
+    void testAllTermsMustMatch() {
+        assertEquals(Collections.singletonList(4L), index.search("rob jones", 0, 10));
+        assertEquals(Collections.emptyList(), index.search("robert smith", 0, 10));
+    }
+
+    @Test
+    void testOffsetAndLimit() {
+        assertEquals(Collections.singletonList(2L), index.search("smith", 1, 1));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.put(4L, "Robert Smith");
+        assertEquals(Collections.emptyList(), index.search("jones", 0, 10));
+
+        index.remove(1L);
+        assertEquals(Arrays.asList(4L, 2L, 3L), index.search("smith", 0, 10));
+    }
+
+    @Test
+    void testSoundex() {
+        assertEquals("R163", SearchIndex.soundex("robert"));
+        assertEquals("R163", SearchIndex.soundex("rupert"));
+        assertEquals("A261", SearchIndex.soundex("ashcraft"));
+        assertEquals("T522", SearchIndex.soundex("tymczak"));
+    }
+}
@@ -0,0 +1,327 @@
+package uk.ac.newcastle.enterprisemiddleware.travelagent.outbox;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.h2.H2DatabaseTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.ClientWebApplicationException;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import uk.ac.newcastle.enterprisemiddleware.customer.Customer;
+import uk.ac.newcastle.enterprisemiddleware.hotel.Hotel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.TravelAgentBookingRequest;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.FlightBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.HotelBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.clientmodel.TaxiBooking;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightBookingModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.FlightModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.TaxiBookingModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remotemodel.TaxiModel;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.FlightService;
+import uk.ac.newcastle.enterprisemiddleware.travelagent.remoteservice.TaxiService;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>The flight and taxi clients are replaced by stubs, whose answer to a cancellation depends on the id of the
+ * booking. The scheduler is off, so that the entries are only dispatched when the tests call the dispatcher.</p>
+ */
+@QuarkusTest
+@TestProfile(OutboxDispatcherTest.StubbedRemoteProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@QuarkusTestResource(H2DatabaseTestResource.class)
+public class OutboxDispatcherTest {
+
+    /**
+     * Booking ids the stubs cancel, answer 404 to, or fail to cancel
+     * */
+    static final long CANCELLED_ID = 1001L;
+    static final long GONE_ID = 1404L;
+    static final long FAILING_ID = 1500L;
+    static final long FLIGHT_BOOKING_ID = 1077L;
+
+    static final List<Long> cancelledFlights = new CopyOnWriteArrayList<>();
+    static final List<Long> cancelledTaxis = new CopyOnWriteArrayList<>();
+
+    public static class StubbedRemoteProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.scheduler.enabled", "false",
+                    "travelagent.outbox.retry.initial-backoff-seconds", "2",
+                    "travelagent.outbox.retry.max-attempts", "3");
+        }
+
+        @Override
+        public Set<Class<?>> getEnabledAlternatives() {
+            return Set.of(StubRemoteServices.class);
+        }
+    }
+
+    /**
+     * The stubs are proxies: a class implementing the client interfaces would be deployed as a resource
+     * */
+    @Alternative
+    @ApplicationScoped
+    public static class StubRemoteServices {
+        @Produces
+        @Alternative
+        @ApplicationScoped
+        @RestClient
+        FlightService flightService() {
+            return stub(FlightService.class, cancelledFlights);
+        }
+
+        @Produces
+        @Alternative
+        @ApplicationScoped
+        @RestClient
+        TaxiService taxiService() {
+            return stub(TaxiService.class, cancelledTaxis);
+        }
+    }
+
+    private static <T> T stub(Class<T> type, List<Long> cancelled) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getFlightById":
+                    FlightModel flight = new FlightModel();
+                    flight.setId((Long) args[0]);
+                    flight.setNumber("AB123");
+                    flight.setOrigin("NCL");
+                    flight.setDestination("LHR");
+                    return flight;
+                case "getTaxiById":
+                    TaxiModel taxi = new TaxiModel();
+                    taxi.setId((Long) args[0]);
+                    taxi.setRegistrationNumber("AB12CDE");
+                    taxi.setNumberOfSeats(4);
+                    return taxi;
+                case "getCustomerByEmail":
+                    Customer travelAgent = new Customer();
+                    travelAgent.setId(1L);
+                    travelAgent.setEmail((String) args[0]);
+                    return travelAgent;
+                case "createBooking":
+                    if (args[0] instanceof TaxiBookingModel) {
+                        throw new ClientWebApplicationException(500);
+                    }
+                    FlightBookingModel flightBooking = (FlightBookingModel) args[0];
+                    flightBooking.setId(FLIGHT_BOOKING_ID);
+                    return flightBooking;
+                case "deleteFlightBooking":
+                case "deleteTaxiBooking":
+                    cancel(cancelled, (Long) args[0]);
+                    return null;
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }));
+    }
+
+    private static void cancel(List<Long> cancelled, Long id) {
+        if (id == GONE_ID) {
+            throw new ClientWebApplicationException(404);
+        }
+        if (id == FAILING_ID) {
+            throw new ClientWebApplicationException(503);
+        }
+        cancelled.add(id);
+    }
+
+    private static Long cancelledId;
+    private static Long goneId;
+    private static Long failingId;
+
+    // Date and time (GMT): Monday, 2 June 2031 00:00:00
+    private final Date laterBookingDate = new Date(1938124800000L);
+
+    @Inject
+    OutboxService outboxService;
+
+    @Inject
+    OutboxDispatcher dispatcher;
+
+    @Inject
+    EntityManager em;
+
+    @TestHTTPResource("/travelagentbooking")
+    URL travelAgentEndpoint;
+
+    @TestHTTPResource("/hotels")
+    URL hotelEndpoint;
+
+    @Test
+    @Order(1)
+    public void testDeliveredEntriesAreRemoved() {
+        QuarkusTransaction.run(() -> {
+            cancelledId = outboxService.enqueue(OutboxEntry.Operation.CANCEL_FLIGHT_BOOKING, CANCELLED_ID).getId();
+            goneId = outboxService.enqueue(OutboxEntry.Operation.CANCEL_TAXI_BOOKING, GONE_ID).getId();
+            failingId = outboxService.enqueue(OutboxEntry.Operation.CANCEL_FLIGHT_BOOKING, FAILING_ID).getId();
+        });
+
+        long before = System.currentTimeMillis();
+        dispatcher.dispatch();
+        long after = System.currentTimeMillis();
+
+        assertEquals(List.of(CANCELLED_ID), cancelledFlights);
+        assertNull(find(cancelledId), "A cancelled booking leaves the outbox");
+        assertNull(find(goneId), "A booking the remote service no longer knows counts as cancelled");
+
+        OutboxEntry failing = find(failingId);
+        assertEquals(OutboxEntry.Status.PENDING, failing.getStatus());
+        assertEquals(1, failing.getAttempts());
+        assertNotNull(failing.getLastError());
+        assertBetween(before + 2000, after + 2000, failing.getNextAttemptAt());
+    }
+
+    @Test
+    @Order(2)
+    public void testFailedEntriesAreRetriedWithBackoff() {
+        // Not due before its backoff is over
+        dispatcher.dispatch();
+        assertEquals(1, find(failingId).getAttempts());
+
+        makeDue(failingId);
+        long before = System.currentTimeMillis();
+        dispatcher.dispatch();
+        long after = System.currentTimeMillis();
+
+        OutboxEntry failing = find(failingId);
+        assertEquals(OutboxEntry.Status.PENDING, failing.getStatus());
+        assertEquals(2, failing.getAttempts());
+        assertBetween(before + 4000, after + 4000, failing.getNextAttemptAt());
+    }
+
+    @Test
+    @Order(3)
+    public void testEntriesAreDeadAfterTheLastAttempt() {
+        makeDue(failingId);
+        dispatcher.dispatch();
+
+        OutboxEntry failing = find(failingId);
+        assertEquals(OutboxEntry.Status.DEAD, failing.getStatus());
+        assertEquals(3, failing.getAttempts());
+
+        // A dead entry is not dispatched any more
+        makeDue(failingId);
+        dispatcher.dispatch();
+        assertEquals(3, find(failingId).getAttempts());
+
+        QuarkusTransaction.run(() -> em.remove(em.find(OutboxEntry.class, failingId)));
+    }
+
+    @Test
+    @Order(4)
+    public void testFailedTravelAgentBookingEnqueuesCancellation() {
+        Hotel hotel = new Hotel();
+        hotel.setName("OutboxHotel");
+        hotel.setPostCode("345678");
+        hotel.setPhoneNumber("08866754341");
+        Long hotelId = given().
+                contentType(ContentType.JSON).
+                body(hotel).
+                when().
+                post(hotelEndpoint).
+                then().
+                statusCode(201).
+                extract().jsonPath().getLong("id");
+
+        Customer customer = new Customer();
+        customer.setFirstName("Outbox");
+        customer.setLastName("Account");
+        customer.setEmail("outbox@email.com");
+        customer.setPhoneNumber("08866754340");
+        QuarkusTransaction.run(() -> em.persist(customer));
+
+        // The flight is booked, then the taxi booking fails: the flight booking must be cancelled
+        given().
+                contentType(ContentType.JSON).
+                body(createTravelAgentBookingRequest(customer.getId(), hotelId)).
+                when().
+                post(travelAgentEndpoint).
+                then().
+                statusCode(500);
+
+        List<OutboxEntry> due = QuarkusTransaction.call(() -> outboxService.findDue(20));
+        assertEquals(1, due.size());
+        assertEquals(OutboxEntry.Operation.CANCEL_FLIGHT_BOOKING, due.get(0).getOperation());
+        assertEquals(FLIGHT_BOOKING_ID, due.get(0).getTargetId());
+
+        dispatcher.dispatch();
+        assertTrue(cancelledFlights.contains(FLIGHT_BOOKING_ID));
+        assertNull(find(due.get(0).getId()));
+
+        QuarkusTransaction.run(() -> em.remove(em.find(Customer.class, customer.getId())));
+        given().
+                when().
+                delete(hotelEndpoint + "/" + hotelId).
+                then().
+                statusCode(204);
+    }
+
+    private OutboxEntry find(Long id) {
+        return QuarkusTransaction.call(() -> em.find(OutboxEntry.class, id));
+    }
+
+    private void makeDue(Long id) {
+        QuarkusTransaction.run(() -> em.find(OutboxEntry.class, id).setNextAttemptAt(new Date(0)));
+    }
+
+    private static void assertBetween(long from, long to, Date actual) {
+        assertTrue(actual.getTime() >= from && actual.getTime() <= to,
+                "Expected between " + new Date(from) + " and " + new Date(to) + " but was " + actual);
+    }
+
+    private TravelAgentBookingRequest createTravelAgentBookingRequest(Long customerId, Long hotelId) {
+        FlightBooking flightBooking = new FlightBooking();
+        flightBooking.setFlightId(1L);
+        flightBooking.setBookingDate(laterBookingDate);
+
+        HotelBooking hotelBooking = new HotelBooking();
+        hotelBooking.setHotelId(hotelId);
+        hotelBooking.setBookingDate(laterBookingDate);
+
+        TaxiBooking taxiBooking = new TaxiBooking();
+        taxiBooking.setTaxiId(1L);
+        taxiBooking.setBookingDate(laterBookingDate);
+
+        TravelAgentBookingRequest request = new TravelAgentBookingRequest();
+        request.setId(1L);
+        request.setCustomerId(customerId);
+        request.setFlightBooking(flightBooking);
+        request.setHotelBooking(hotelBooking);
+        request.setTaxiBooking(taxiBooking);
+        return request;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.hibernate.hql.spi.QueryTranslatorFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.EntityType;
+import javax.transaction.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Asks H2 for the plan of every filtered access path and fails when one of them would scan a whole table.</p>
+ *
+ * <p>All the @NamedQuery declarations of the entities are checked, plus the criteria queries of the repositories
+ * (written out as JPQL below). Queries without a WHERE clause (the FIND_ALL queries) read the whole table by design
+ * and are skipped. The schema is the one created by the Flyway migrations, so the indexes of the prod profile are
+ * the ones being checked.</p>
+ */
+@QuarkusTest
+@TestProfile(SchemaMigrationTest.MigrationProfile.class)
+public class NamedQueryPlanTest {
+
+    private static final Map<String, String> CRITERIA_QUERIES = new LinkedHashMap<>();
+    static {
+        // H2 turns a LIKE into an index range once its pattern is bound, so the prefix searches are planned here
+        // with a literal pattern
+        CRITERIA_QUERIES.put("ContactRepository.search(firstName)", "SELECT c FROM Contact c WHERE c.firstNameKey = :firstName ORDER BY c.lastNameKey, c.firstNameKey, c.id");
+        CRITERIA_QUERIES.put("ContactRepository.search(lastName, prefix)", "SELECT c FROM Contact c WHERE c.lastNameKey LIKE 'sm%' ESCAPE '\\' ORDER BY c.lastNameKey, c.firstNameKey, c.id");
+        CRITERIA_QUERIES.put("ContactRepository.search(firstName, lastName, prefix)", "SELECT c FROM Contact c WHERE c.firstNameKey LIKE 'jo%' ESCAPE '\\' AND c.lastNameKey LIKE 'sm%' ESCAPE '\\' ORDER BY c.lastNameKey, c.firstNameKey, c.id");
+        CRITERIA_QUERIES.put("CustomerRepository.findAllByName(first last)", "SELECT c FROM Customer c WHERE c.lastName = :lastName AND c.firstName = :firstName");
+        CRITERIA_QUERIES.put("CustomerRepository.findAllByName(last)", "SELECT c FROM Customer c WHERE c.lastName = :lastName");
+        CRITERIA_QUERIES.put("HotelRepository.findAllByName", "SELECT h FROM Hotel h WHERE h.name = :name");
+    }
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    @Transactional
+    public void testFilteredQueriesDoNotScanTables() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (EntityType<?> entity : em.getMetamodel().getEntities()) {
+            NamedQueries namedQueries = entity.getJavaType().getAnnotation(NamedQueries.class);
+            if (namedQueries != null) {
+                for (NamedQuery namedQuery : namedQueries.value()) {
+                    queries.put(namedQuery.name(), namedQuery.query());
+                }
+            }
+        }
+        queries.putAll(CRITERIA_QUERIES);
+
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        QueryTranslatorFactory translators = sessionFactory.getServiceRegistry().getService(QueryTranslatorFactory.class);
+        List<String> fullScans = new ArrayList<>();
+        int checked = 0;
+
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            QueryTranslator translator = translators.createQueryTranslator(query.getKey(), query.getValue(),
+                    Collections.emptyMap(), sessionFactory, null);
+            translator.compile(Collections.emptyMap(), false);
+            for (String sql : translator.collectSqlStrings()) {
+                if (!sql.toLowerCase().contains(" where ")) {
+                    continue;
+                }
+                checked++;
+                String explained = explain(sql);
+                if (explained.contains(".tableScan")) {
+                    fullScans.add(query.getKey() + " -> " + explained);
+                }
+            }
+        }
+
+        assertTrue(checked > 0, "No filtered query was checked");
+        assertTrue(fullScans.isEmpty(), "Queries planned as a full table scan:\n" + String.join("\n", fullScans));
+    }
+
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet result = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (result.next()) {
+                    plan.append(result.getString(1));
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * <p>Starts the application the way the prod profile does: the schema is created by the Flyway migrations only, and
+ * Hibernate validates it against the entity mappings. The application fails to start if they diverge.</p>
+ */
+@QuarkusTest
+@TestProfile(SchemaMigrationTest.MigrationProfile.class)
+public class SchemaMigrationTest {
+
+    public static class MigrationProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.datasource.jdbc.url", "jdbc:h2:mem:migrations;DB_CLOSE_DELAY=-1",
+                    "quarkus.hibernate-orm.database.generation", "validate",
+                    "quarkus.hibernate-orm.sql-load-script", "no-file",
+                    "quarkus.flyway.migrate-at-start", "true");
+        }
+    }
+
+    @Inject
+    Flyway flyway;
+
+    @Test
+    public void testMigrationsMatchEntityMappings() {
+        assertNotNull(flyway.info().current(), "No migration was applied");
+        assertEquals(0, flyway.info().pending().length, "Some migrations are still pending");
+    }
+}
@@ -0,0 +1,64 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void testItemsExpireAtTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 1500);
+        wheel.schedule("b", 3000);
+
+        assertEquals(Collections.emptyList(), wheel.advance(1999));
+        assertEquals(Collections.singletonList("a"), wheel.advance(2000));
+        assertEquals(Collections.emptyList(), wheel.advance(2999));
+        assertEquals(Collections.singletonList("b"), wheel.advance(3000));
+    }
+
+    @Test
+    void testItemsBeyondOneRevolution() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("near", 2000);
+        wheel.schedule("far", 10000);
+
+        assertEquals(Collections.singletonList("near"), wheel.advance(9000));
+        assertEquals(Collections.singletonList("far"), wheel.advance(10000));
+    }
+
+    @Test
+    void testLongPauseExpiresEverything() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 1000);
+        wheel.schedule("b", 5000);
+        wheel.schedule("c", 20000);
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(wheel.advance(60000)));
+    }
+
+    @Test
+    void testCancelledItemsDoNotExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("a", 1000);
+
+        assertTrue(wheel.cancel(timeout));
+        assertFalse(wheel.cancel(timeout));
+        assertEquals(Collections.emptyList(), wheel.advance(5000));
+    }
+
+    @Test
+    void testPastDeadlineExpiresAtNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 5000);
+        wheel.schedule("late", 1000);
+
+        assertEquals(Collections.singletonList("late"), wheel.advance(6000));
+    }
+}
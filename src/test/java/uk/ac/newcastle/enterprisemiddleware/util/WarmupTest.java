@@ -0,0 +1,26 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>The warm-up runs at start up, before the first request is served.</p>
+ */
+@QuarkusTest
+public class WarmupTest {
+
+    @Inject
+    Warmup warmup;
+
+    @Test
+    void testWarmupHasRunAtStartup() {
+        assertTrue(warmup.isDone());
+
+        given().when().get("/hotels").then().statusCode(200);
+    }
+}